@@ -0,0 +1,55 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of filling a freshly created mesh, growing its buffers on demand, reserving them up front or calling the
+ * deprecated {@link Mesh#growIfNeeded()} before every quad.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GrowthBenchmark {
+    @Param({"OnDemand", "Reserve", "GrowIfNeeded"})
+    public String strategy;
+
+    @Param({"1024", "65536"})
+    public int quads;
+
+    @Setup
+    public void setup() {
+        Renderer.gl = new NullGL();
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public long fill() {
+        Mesh mesh = new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec3, Mesh.Attrib.Vec2);
+        mesh.begin();
+
+        boolean reserve = strategy.equals("Reserve"), growIfNeeded = strategy.equals("GrowIfNeeded");
+        if (reserve) {
+            mesh.reserveVertices(quads * 4);
+            mesh.reserveIndices(quads * 6);
+        }
+
+        for (int i = 0; i < quads; i++) {
+            if (growIfNeeded) mesh.growIfNeeded();
+
+            mesh.quad(
+                    mesh.vec3(i, 0, 0).vec2(0, 0).next(),
+                    mesh.vec3(i, 1, 0).vec2(0, 1).next(),
+                    mesh.vec3(i + 1, 1, 0).vec2(1, 1).next(),
+                    mesh.vec3(i + 1, 0, 0).vec2(1, 0).next()
+            );
+        }
+
+        mesh.end();
+        long capacity = mesh.getCapacityBytes();
+        mesh.dispose();
+        return capacity;
+    }
+}
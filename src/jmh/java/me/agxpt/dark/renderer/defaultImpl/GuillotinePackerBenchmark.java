@@ -0,0 +1,86 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert rate of {@link GuillotinePacker} filling an empty 2048x2048 page with 4096 random rectangles, and with half
+ * of them freed and inserted again to measure fragmentation. The {@code usedPixels} counter divided by the
+ * {@code pagePixels} counter is the occupancy the page ends up with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GuillotinePackerBenchmark {
+    private static final int PAGE = 2048;
+    private static final int RECTS = 4096;
+
+    @Param({"8-32", "8-64", "16-256"})
+    public String sizes;
+
+    private final int[] widths = new int[RECTS], heights = new int[RECTS];
+    private final long[] positions = new long[RECTS];
+    private GuillotinePacker packer;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long usedPixels, pagePixels;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            usedPixels = pagePixels = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        String[] range = sizes.split("-");
+        int min = Integer.parseInt(range[0]), max = Integer.parseInt(range[1]);
+
+        Random random = new Random(42);
+        for (int i = 0; i < RECTS; i++) {
+            widths[i] = min + random.nextInt(max - min + 1);
+            heights[i] = min + random.nextInt(max - min + 1);
+        }
+
+        packer = new GuillotinePacker(PAGE, PAGE);
+    }
+
+    private void fill() {
+        packer.reset();
+        for (int i = 0; i < RECTS; i++) positions[i] = packer.insert(widths[i], heights[i]);
+    }
+
+    private void count(Counters counters) {
+        counters.usedPixels += Math.round(packer.getOccupancy() * PAGE * PAGE);
+        counters.pagePixels += (long) PAGE * PAGE;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECTS)
+    public int fillEmpty(Counters counters) {
+        fill();
+        count(counters);
+        return packer.getFreeCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECTS + RECTS / 2)
+    public int refillFragmented(Counters counters) {
+        fill();
+
+        for (int i = 0; i < RECTS; i += 2) {
+            long position = positions[i];
+            if (position != -1) packer.free(GuillotinePacker.x(position), GuillotinePacker.y(position), widths[i], heights[i]);
+        }
+
+        // The freed rectangles are filled again in a different order
+        for (int i = RECTS - 2; i >= 0; i -= 2) packer.insert(widths[i], heights[i]);
+
+        count(counters);
+        return packer.getFreeCount();
+    }
+}
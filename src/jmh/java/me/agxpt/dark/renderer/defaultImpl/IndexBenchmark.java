@@ -0,0 +1,90 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index emission throughput of {@link Mesh#line(int, int)}, {@link Mesh#triangle(int, int, int)},
+ * {@link Mesh#quad(int, int, int, int)} with written and shared quad indices and strips written with
+ * {@link Mesh#index(int)}, reported as primitives per millisecond.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IndexBenchmark {
+    private static final int PRIMITIVES = 16384;
+
+    @Param({"line", "triangle", "quad", "sharedQuad", "strip"})
+    public String shape;
+
+    private Mesh mesh;
+
+    @Setup
+    public void setup() {
+        Renderer.gl = new NullGL();
+        mesh = new Mesh(drawMode(), Mesh.Attrib.Vec2);
+
+        mesh.begin();
+        mesh.reserveIndices(PRIMITIVES * 6);
+        mesh.end();
+    }
+
+    private Mesh.DrawMode drawMode() {
+        switch (shape) {
+            case "line":
+                return Mesh.DrawMode.Lines;
+            case "sharedQuad":
+                return Mesh.DrawMode.Quads;
+            case "strip":
+                return Mesh.DrawMode.TriangleStrip;
+            default:
+                return Mesh.DrawMode.Triangles;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        mesh.dispose();
+    }
+
+    private void vertices() {
+        mesh.begin();
+        mesh.vec2(0, 0).next();
+        mesh.vec2(0, 1).next();
+        mesh.vec2(1, 1).next();
+        mesh.vec2(1, 0).next();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PRIMITIVES)
+    public int emit() {
+        vertices();
+
+        switch (shape) {
+            case "line":
+                for (int i = 0; i < PRIMITIVES; i++) mesh.line(i & 3, (i + 1) & 3);
+                break;
+            case "triangle":
+                for (int i = 0; i < PRIMITIVES; i++) mesh.triangle(i & 3, (i + 1) & 3, (i + 2) & 3);
+                break;
+            case "sharedQuad":
+                // Quad meshes only count, the quads are not checked outside debug mode
+                for (int i = 0; i < PRIMITIVES; i++) mesh.quad(i * 4, i * 4 + 1, i * 4 + 2, i * 4 + 3);
+                break;
+            case "strip":
+                for (int i = 0; i < PRIMITIVES; i++) {
+                    if ((i & 63) == 63) mesh.restart();
+                    else mesh.index(i & 3);
+                }
+                break;
+            default:
+                for (int i = 0; i < PRIMITIVES; i++) mesh.quad(0, 1, 2, 3);
+                break;
+        }
+
+        mesh.end();
+        return mesh.getIndicesCount();
+    }
+}
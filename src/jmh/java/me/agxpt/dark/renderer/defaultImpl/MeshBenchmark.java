@@ -0,0 +1,167 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IColor;
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vertex emission throughput of the different attribute layouts, reported as vertices per millisecond.
+ * The {@code uploadedBytes} counter divided by the {@code vertices} counter is the number of bytes uploaded per
+ * vertex by {@link #quads()}, indices included.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MeshBenchmark {
+    private static final int QUADS = 4096;
+
+    private static final IColor COLOR = new IColor() {
+        @Override
+        public double r() {
+            return 1;
+        }
+
+        @Override
+        public double g() {
+            return 0.5;
+        }
+
+        @Override
+        public double b() {
+            return 0.25;
+        }
+
+        @Override
+        public double a() {
+            return 1;
+        }
+    };
+
+    @Param({"Pos2", "Pos3Uv", "Pos3UvColor", "Packed", "Ui", "UiColor8"})
+    public Layout layout;
+
+    private NullGL gl;
+    private Mesh mesh;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long uploadedBytes, vertices;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uploadedBytes = vertices = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        gl = new NullGL();
+        Renderer.gl = gl;
+        mesh = new Mesh(Mesh.DrawMode.Triangles, layout.attributes);
+
+        // Grow the buffers once so the benchmarks measure writes only
+        mesh.begin();
+        mesh.reserveVertices(QUADS * 4);
+        mesh.reserveIndices(QUADS * 6);
+        mesh.end();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mesh.dispose();
+    }
+
+    /**
+     * Writes vertices without indices, {@link Mesh#end()} uploads nothing.
+     */
+    @Benchmark
+    @OperationsPerInvocation(QUADS * 4)
+    public int vertices() {
+        mesh.begin();
+
+        for (int i = 0; i < QUADS; i++) {
+            layout.vertex(mesh, i, 0);
+            layout.vertex(mesh, i, 1);
+            layout.vertex(mesh, i + 1, 1);
+            layout.vertex(mesh, i + 1, 0);
+        }
+
+        mesh.end();
+        return mesh.getVertexCount();
+    }
+
+    /**
+     * Writes quads and uploads them to {@link NullGL}.
+     */
+    @Benchmark
+    @OperationsPerInvocation(QUADS * 4)
+    public int quads(Counters counters) {
+        long bytes = gl.bytes;
+        mesh.begin();
+
+        for (int i = 0; i < QUADS; i++) {
+            mesh.quad(
+                    layout.vertex(mesh, i, 0),
+                    layout.vertex(mesh, i, 1),
+                    layout.vertex(mesh, i + 1, 1),
+                    layout.vertex(mesh, i + 1, 0)
+            );
+        }
+
+        mesh.end();
+
+        counters.uploadedBytes += gl.bytes - bytes;
+        counters.vertices += QUADS * 4;
+        return mesh.getIndicesCount();
+    }
+
+    public enum Layout {
+        Pos2(Mesh.Attrib.Vec2) {
+            @Override
+            int vertex(Mesh mesh, double x, double y) {
+                return mesh.vec2(x, y).next();
+            }
+        },
+        Pos3Uv(Mesh.Attrib.Vec3, Mesh.Attrib.Vec2) {
+            @Override
+            int vertex(Mesh mesh, double x, double y) {
+                return mesh.vec3(x, y, 0).vec2(x, y).next();
+            }
+        },
+        Pos3UvColor(Mesh.Attrib.Vec3, Mesh.Attrib.Vec2, Mesh.Attrib.Vec4) {
+            @Override
+            int vertex(Mesh mesh, double x, double y) {
+                return mesh.vec3(x, y, 0).vec2(x, y).vec4(1, 0.5, 0.25, 1).next();
+            }
+        },
+        Packed(Mesh.Attrib.Vec3, Mesh.Attrib.UNorm16Vec2, Mesh.Attrib.Normal, Mesh.Attrib.HalfVec4) {
+            @Override
+            int vertex(Mesh mesh, double x, double y) {
+                return mesh.vec3(x, y, 0).unorm16(0.5, 0.5).normal(0, 0, 1).half4(1, 0.5, 0.25, 1).next();
+            }
+        },
+        Ui(Mesh.Attrib.Vec2, Mesh.Attrib.Vec2, Mesh.Attrib.Vec4) {
+            @Override
+            int vertex(Mesh mesh, double x, double y) {
+                return mesh.vec2(x, y).vec2(x, y).color(COLOR).next();
+            }
+        },
+        UiColor8(Mesh.Attrib.Vec2, Mesh.Attrib.Vec2, Mesh.Attrib.Color8) {
+            @Override
+            int vertex(Mesh mesh, double x, double y) {
+                return mesh.vec2(x, y).vec2(x, y).color8(COLOR).next();
+            }
+        };
+
+        final Mesh.Attrib[] attributes;
+
+        Layout(Mesh.Attrib... attributes) {
+            this.attributes = attributes;
+        }
+
+        abstract int vertex(Mesh mesh, double x, double y);
+    }
+}
@@ -0,0 +1,399 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.interfaces.IGL;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.GL20C.GL_ACTIVE_UNIFORMS;
+import static org.lwjgl.opengl.GL20C.GL_ACTIVE_UNIFORM_MAX_LENGTH;
+import static org.lwjgl.opengl.GL31C.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT;
+import static org.lwjgl.opengl.GL32C.GL_ALREADY_SIGNALED;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+
+/**
+ * Implementation of {@link IGL} that does nothing, so benchmarks only measure the CPU side of the renderer.
+ * Counts the calls and bytes passed so the JIT can not remove them. Every program reports {@link #uniforms} as its
+ * active uniforms, with consecutive locations, shaders always compile and link and fences are always signaled.
+ * Mapped buffer ranges are backed by a single scratch buffer.
+ */
+public class NullGL implements IGL {
+    private int nextName = 1;
+    public long calls, bytes;
+    public String[] uniforms = new String[0];
+    private ByteBuffer mapped = ByteBuffer.allocateDirect(0);
+
+    @Override
+    public void bindVAO(int array) {
+        calls++;
+    }
+
+    @Override
+    public void bindVBO(int buffer) {
+        calls++;
+    }
+
+    @Override
+    public void bindIBO(int buffer) {
+        calls++;
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        calls++;
+    }
+
+    @Override
+    public void bindBufferRange(int target, int index, int buffer, long offset, long size) {
+        calls++;
+    }
+
+    @Override
+    public long mapBufferRange(int target, long offset, long size, int access) {
+        calls++;
+        bytes += size;
+
+        if (size > mapped.capacity()) mapped = ByteBuffer.allocateDirect((int) size);
+        return memAddress(mapped);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        calls++;
+        return true;
+    }
+
+    @Override
+    public void bindTexture(int texture, int slot) {
+        calls++;
+    }
+
+    @Override
+    public void deleteVAO(int array) {
+        calls++;
+    }
+
+    @Override
+    public void deleteBuffer(int buffer) {
+        calls++;
+    }
+
+    @Override
+    public void deleteTexture(int texture) {
+        calls++;
+    }
+
+    @Override
+    public int genVAO() {
+        return nextName++;
+    }
+
+    @Override
+    public int genBuffer() {
+        return nextName++;
+    }
+
+    @Override
+    public int genTexture() {
+        return nextName++;
+    }
+
+    @Override
+    public void bufferData(int target, long size, long data, int usage) {
+        calls++;
+        bytes += size;
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, long size, long data) {
+        calls++;
+        bytes += size;
+    }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) {
+        calls++;
+    }
+
+    @Override
+    public boolean isBufferStorageSupported() {
+        return true;
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        calls++;
+        bytes += size;
+    }
+
+    @Override
+    public long fenceSync() {
+        calls++;
+        return nextName++;
+    }
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        calls++;
+        return GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void deleteSync(long sync) {
+        calls++;
+    }
+
+    @Override
+    public int getInteger(int name) {
+        return name == GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT ? 256 : 0;
+    }
+
+    @Override
+    public String getString(int name) {
+        return "";
+    }
+
+    @Override
+    public void enableVertexAttrib(int index) {
+        calls++;
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+        calls++;
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        calls++;
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long offset, int baseVertex) {
+        calls++;
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long offset, int instances, int baseVertex) {
+        calls++;
+    }
+
+    @Override
+    public void primitiveRestart(boolean enabled, int index) {
+        calls++;
+    }
+
+    @Override
+    public void texParameter(int name, int value) {
+        calls++;
+    }
+
+    @Override
+    public void pixelStore(int name, int value) {
+        calls++;
+    }
+
+    @Override
+    public void texImage2D(int level, int internalFormat, int width, int height, int format, int type, long pixels) {
+        calls++;
+    }
+
+    @Override
+    public void texStorage2D(int levels, int internalFormat, int width, int height) {
+        calls++;
+    }
+
+    @Override
+    public void texSubImage2D(int level, int x, int y, int width, int height, int format, int type, long pixels) {
+        calls++;
+    }
+
+    @Override
+    public void compressedTexImage2D(int level, int internalFormat, int width, int height, int size, long data) {
+        calls++;
+        bytes += size;
+    }
+
+    @Override
+    public void generateMipmap() {
+        calls++;
+    }
+
+    @Override
+    public void useProgram(int program) {
+        calls++;
+    }
+
+    @Override
+    public void uniform(int location, int v) {
+        calls++;
+    }
+
+    @Override
+    public void uniform(int location, float v) {
+        calls++;
+    }
+
+    @Override
+    public void uniform(int location, float x, float y) {
+        calls++;
+    }
+
+    @Override
+    public void uniformMatrix4(int location, long matrix) {
+        calls++;
+    }
+
+    @Override
+    public int createProgram() {
+        return nextName++;
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+        calls++;
+    }
+
+    @Override
+    public int createShader(int type) {
+        return nextName++;
+    }
+
+    @Override
+    public void deleteShader(int shader) {
+        calls++;
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        calls++;
+        bytes += source.length();
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        calls++;
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        return 1;
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader) {
+        return "";
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        calls++;
+    }
+
+    @Override
+    public void detachShader(int program, int shader) {
+        calls++;
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        calls++;
+    }
+
+    @Override
+    public void validateProgram(int program) {
+        calls++;
+    }
+
+    @Override
+    public String getProgramInfoLog(int program) {
+        return "";
+    }
+
+    @Override
+    public void programParameter(int program, int name, int value) {
+        calls++;
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        switch (name) {
+            case GL_ACTIVE_UNIFORMS:
+                return uniforms.length;
+            case GL_ACTIVE_UNIFORM_MAX_LENGTH: {
+                int length = 0;
+                for (String uniform : uniforms) length = Math.max(length, uniform.length() + 1);
+                return length;
+            }
+            default:
+                return 1;
+        }
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, int maxLength, IntBuffer size, IntBuffer type) {
+        size.put(0, 1);
+        type.put(0, 0);
+        return uniforms[index];
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        for (int i = 0; i < uniforms.length; i++) {
+            if (uniforms[i].contentEquals(name)) return i;
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return 0;
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int index, int binding) {
+        calls++;
+    }
+
+    @Override
+    public int getProgramBinary(int program, IntBuffer format, ByteBuffer binary) {
+        return 0;
+    }
+
+    @Override
+    public void programBinary(int program, int format, ByteBuffer binary) {
+        calls++;
+        bytes += binary.remaining();
+    }
+
+    @Override
+    public void maxShaderCompilerThreads(int count) {
+        calls++;
+    }
+
+    @Override
+    public int genQuery() {
+        return nextName++;
+    }
+
+    @Override
+    public void deleteQuery(int query) {
+        calls++;
+    }
+
+    @Override
+    public void queryCounter(int query, int target) {
+        calls++;
+    }
+
+    @Override
+    public int getQueryObjecti(int query, int name) {
+        return 1;
+    }
+
+    @Override
+    public long getQueryObjecti64(int query, int name) {
+        return 0;
+    }
+}
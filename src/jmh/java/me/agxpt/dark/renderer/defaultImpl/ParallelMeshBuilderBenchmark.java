@@ -0,0 +1,74 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Quad throughput of {@link ParallelMeshBuilder} with a varying number of worker threads, compared to writing the
+ * same geometry into the target mesh on a single thread. The arenas need no context, only the final upload goes
+ * through {@link NullGL}. A build is 64 parts of 8192 quads, about 2M vertices, so the workers are busy long enough
+ * for the fan out and merge to matter less than the writes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelMeshBuilderBenchmark {
+    private static final int PARTS = 64;
+    private static final int QUADS = 8192;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ExecutorService executor;
+    private ParallelMeshBuilder builder;
+    private Mesh target;
+
+    @Setup
+    public void setup() {
+        Renderer.gl = new NullGL();
+
+        executor = Executors.newFixedThreadPool(threads);
+        builder = new ParallelMeshBuilder(executor, Mesh.DrawMode.Triangles, Mesh.Attrib.Vec3, Mesh.Attrib.Vec2);
+        target = new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec3, Mesh.Attrib.Vec2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        builder.dispose();
+        target.dispose();
+        executor.shutdownNow();
+    }
+
+    private static void part(Mesh mesh, int part) {
+        float y = part;
+
+        for (int i = 0; i < QUADS; i++) {
+            mesh.quad(
+                    mesh.vec3(i, y, 0).vec2(0, 0).next(),
+                    mesh.vec3(i, y + 1, 0).vec2(0, 1).next(),
+                    mesh.vec3(i + 1, y + 1, 0).vec2(1, 1).next(),
+                    mesh.vec3(i + 1, y, 0).vec2(1, 0).next()
+            );
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PARTS * QUADS)
+    public int parallel() {
+        builder.build(target, PARTS, ParallelMeshBuilderBenchmark::part);
+        return target.getIndicesCount();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PARTS * QUADS)
+    public int serial() {
+        target.begin();
+        for (int i = 0; i < PARTS; i++) part(target, i);
+        target.end();
+        return target.getIndicesCount();
+    }
+}
@@ -0,0 +1,108 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost and state changes of 10000 draws over 16 shaders, 64 textures and 256 meshes in random order, submitted
+ * through a {@link RenderQueue} or rendered directly in submission order. Both go through a {@link CachingGL} on top
+ * of {@link NullGL}, so redundant binds are elided either way and only real state changes are counted.
+ * The {@code binds} counter divided by the {@code draws} counter is the number of state changes per draw.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RenderQueueBenchmark {
+    private static final int DRAWS = 10000;
+    private static final int SHADERS = 16, TEXTURES = 64, MESHES = 256;
+
+    private final Shader[] shaders = new Shader[SHADERS];
+    private final Texture[] textures = new Texture[TEXTURES];
+    private final ShaderMesh[] meshes = new ShaderMesh[MESHES];
+    private final int[] drawMeshes = new int[DRAWS], drawTextures = new int[DRAWS];
+
+    private CachingGL gl;
+    private RenderQueue queue;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long binds, draws;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            binds = draws = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        gl = new CachingGL(new NullGL());
+        Renderer.gl = gl;
+
+        for (int i = 0; i < SHADERS; i++) shaders[i] = new Shader(i + 1, false, 0);
+
+        for (int i = 0; i < TEXTURES; i++) {
+            textures[i] = new Texture(16, 16, (ByteBuffer) null, Texture.Format.RGBA, Texture.MinFilter.Nearest, Texture.MagFilter.Nearest);
+        }
+
+        for (int i = 0; i < MESHES; i++) {
+            ShaderMesh mesh = new ShaderMesh(shaders[i % SHADERS], Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+
+            mesh.begin();
+            mesh.quad(
+                    mesh.vec2(0, 0).next(),
+                    mesh.vec2(0, 1).next(),
+                    mesh.vec2(1, 1).next(),
+                    mesh.vec2(1, 0).next()
+            );
+            mesh.end();
+
+            meshes[i] = mesh;
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < DRAWS; i++) {
+            drawMeshes[i] = random.nextInt(MESHES);
+            drawTextures[i] = random.nextInt(TEXTURES);
+        }
+
+        queue = new RenderQueue(DRAWS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (ShaderMesh mesh : meshes) mesh.dispose();
+        for (Texture texture : textures) texture.dispose();
+    }
+
+    @Benchmark
+    public int queued(Counters counters) {
+        gl.resetCounters();
+
+        for (int i = 0; i < DRAWS; i++) queue.submit(meshes[drawMeshes[i]], textures[drawTextures[i]], 0, 0);
+        queue.flush();
+
+        counters.binds += gl.getIssued();
+        counters.draws += DRAWS;
+        return queue.getDrawCalls();
+    }
+
+    @Benchmark
+    public long immediate(Counters counters) {
+        gl.resetCounters();
+
+        for (int i = 0; i < DRAWS; i++) {
+            textures[drawTextures[i]].bind();
+            meshes[drawMeshes[i]].render();
+        }
+
+        counters.binds += gl.getIssued();
+        counters.draws += DRAWS;
+        return gl.getElided();
+    }
+}
@@ -0,0 +1,55 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import me.agxpt.dark.renderer.interfaces.UniformHandle;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uniform lookups and sets by name and by {@link UniformHandle}, with values that change every call and values that
+ * are filtered by the shadow copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShaderBenchmark {
+    private static final String[] UNIFORMS = {"u_Proj", "u_View", "u_Model", "u_Texture", "u_Color", "u_Time", "u_Resolution", "u_Alpha"};
+
+    private Shader shader;
+    private UniformHandle time, resolution;
+    private int frame;
+
+    @Setup
+    public void setup() {
+        NullGL gl = new NullGL();
+        gl.uniforms = UNIFORMS;
+        Renderer.gl = gl;
+
+        // Wraps a made up program, the uniforms are enumerated through NullGL
+        shader = new Shader(1, false, 0);
+
+        time = shader.uniform("u_Time");
+        resolution = shader.uniform("u_Resolution");
+    }
+
+    @Benchmark
+    public int getLocation() {
+        return shader.getLocation("u_Resolution");
+    }
+
+    @Benchmark
+    public void setByName() {
+        shader.set("u_Time", ++frame);
+    }
+
+    @Benchmark
+    public void setByHandle() {
+        shader.set(time, ++frame);
+    }
+
+    @Benchmark
+    public void setUnchanged() {
+        shader.set(resolution, 1920, 1080);
+    }
+}
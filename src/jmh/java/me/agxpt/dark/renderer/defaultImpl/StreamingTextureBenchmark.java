@@ -0,0 +1,71 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.lwjgl.BufferUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU side upload rate of 1920x1080 {@link StreamingTexture} frames through {@link NullGL}, where mapping hands out
+ * scratch memory, so this measures the copy into the pixel unpack buffer and the call overhead.
+ * The {@code megabytes} counter is reported in MB/s. Tightly packed frames are copied at once, frames read out of a
+ * wider image are copied row by row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StreamingTextureBenchmark {
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+    private static final int IMAGE_WIDTH = 2560;
+
+    @Param({"RGBA", "RGB"})
+    public String format;
+
+    private StreamingTexture texture;
+    private ByteBuffer frame, image;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Renderer.gl = new NullGL();
+
+        Texture.Format f = Texture.Format.valueOf(format);
+        texture = new StreamingTexture(WIDTH, HEIGHT, f, Texture.MinFilter.Linear, Texture.MagFilter.Linear);
+
+        frame = BufferUtils.createByteBuffer(WIDTH * HEIGHT * f.bytesPerPixel);
+        image = BufferUtils.createByteBuffer(IMAGE_WIDTH * HEIGHT * f.bytesPerPixel);
+        for (int i = 0; i < frame.capacity(); i++) frame.put(i, (byte) i);
+        for (int i = 0; i < image.capacity(); i++) image.put(i, (byte) i);
+    }
+
+    @TearDown
+    public void tearDown() {
+        texture.dispose();
+    }
+
+    @Benchmark
+    public long full(Counters counters) {
+        texture.update(frame);
+        counters.megabytes += texture.getFrameBytes() / 1e6;
+        return texture.getUploadedBytes();
+    }
+
+    @Benchmark
+    public long strided(Counters counters) {
+        texture.update(0, 0, WIDTH, HEIGHT, image, IMAGE_WIDTH);
+        counters.megabytes += texture.getFrameBytes() / 1e6;
+        return texture.getUploadedBytes();
+    }
+}
@@ -0,0 +1,78 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frame time of rebuilding and drawing a mesh every frame with {@link Mesh.UploadMode#Dynamic} against
+ * {@link Mesh.UploadMode#Streaming}, on top of {@link NullGL}. The {@code copiedBytes} counter divided by the
+ * {@code frames} counter is the number of bytes handed to the driver per frame, which streaming writes into the mapped
+ * ring buffer directly instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StreamingUploadBenchmark {
+    private static final int QUADS = 4096;
+
+    @Param({"Dynamic", "Streaming"})
+    public Mesh.UploadMode uploadMode;
+
+    private NullGL gl;
+    private Mesh mesh;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long copiedBytes, frames;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            copiedBytes = frames = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        gl = new NullGL();
+        Renderer.gl = gl;
+        mesh = new Mesh(Mesh.DrawMode.Triangles, uploadMode, Mesh.Attrib.Vec3, Mesh.Attrib.Vec2, Mesh.Attrib.Vec4);
+
+        // Build a frame once so the buffers and streams are grown before measuring
+        build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        mesh.dispose();
+    }
+
+    private void build() {
+        mesh.begin();
+
+        for (int i = 0; i < QUADS; i++) {
+            mesh.quad(
+                    mesh.vec3(i, 0, 0).vec2(0, 0).vec4(1, 1, 1, 1).next(),
+                    mesh.vec3(i, 1, 0).vec2(0, 1).vec4(1, 1, 1, 1).next(),
+                    mesh.vec3(i + 1, 1, 0).vec2(1, 1).vec4(1, 1, 1, 1).next(),
+                    mesh.vec3(i + 1, 0, 0).vec2(1, 0).vec4(1, 1, 1, 1).next()
+            );
+        }
+
+        mesh.end();
+    }
+
+    @Benchmark
+    public int frame(Counters counters) {
+        long bytes = gl.bytes;
+
+        build();
+        mesh.render();
+
+        counters.copiedBytes += gl.bytes - bytes;
+        counters.frames++;
+        return mesh.getIndicesCount();
+    }
+}
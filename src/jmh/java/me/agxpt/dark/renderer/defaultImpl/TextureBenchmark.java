@@ -0,0 +1,97 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+import static org.lwjgl.system.MemoryUtil.memAlloc;
+import static org.lwjgl.system.MemoryUtil.memFree;
+
+/**
+ * CPU side of the texture upload paths, everything up to the {@link NullGL} calls.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TextureBenchmark {
+    private static final int SIZE = 256;
+
+    private byte[] array;
+    private ByteBuffer buffer;
+    private ByteBuffer dds;
+    private ByteBuffer glyph;
+    private TextureAtlas atlas;
+
+    @Setup
+    public void setup() {
+        Renderer.gl = new NullGL();
+
+        array = new byte[SIZE * SIZE * 4];
+        buffer = memAlloc(array.length);
+        dds = dds(SIZE);
+        glyph = memAlloc(16 * 16);
+
+        // A single page so every add past the first few thousand evicts
+        atlas = new TextureAtlas(1024, 1, 1, Texture.Format.R, Texture.MinFilter.Linear, Texture.MagFilter.Linear);
+    }
+
+    @TearDown
+    public void tearDown() {
+        atlas.dispose();
+        memFree(buffer);
+        memFree(dds);
+        memFree(glyph);
+    }
+
+    /**
+     * Creates a DXT5 DDS file with a full mip chain, the blocks are left uninitialized.
+     */
+    private static ByteBuffer dds(int size) {
+        int levels = Integer.numberOfTrailingZeros(size) + 1;
+
+        int bytes = 128;
+        for (int i = 0; i < levels; i++) bytes += Texture.CompressedFormat.BC3.size(Math.max(1, size >> i), Math.max(1, size >> i));
+
+        ByteBuffer b = memAlloc(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 128; i += 4) b.putInt(i, 0);
+
+        b.putInt(0, 0x20534444);
+        b.putInt(8, 0x20000);
+        b.putInt(12, size);
+        b.putInt(16, size);
+        b.putInt(28, levels);
+        b.putInt(80, 0x4);
+        b.putInt(84, 0x35545844);
+        return b;
+    }
+
+    @Benchmark
+    public int fromArray() {
+        Texture texture = new Texture(SIZE, SIZE, array, Texture.Format.RGBA, Texture.MinFilter.Linear, Texture.MagFilter.Linear);
+        texture.dispose();
+        return texture.id;
+    }
+
+    @Benchmark
+    public int fromBuffer() {
+        Texture texture = new Texture(SIZE, SIZE, buffer, Texture.Format.RGBA, Texture.MinFilter.MipMapLinear, Texture.MagFilter.Linear);
+        texture.dispose();
+        return texture.id;
+    }
+
+    @Benchmark
+    public int compressed() {
+        Texture texture = new Texture(TextureContainer.parse(dds), Texture.MinFilter.MipMapLinear, Texture.MagFilter.Linear);
+        texture.dispose();
+        return texture.id;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public AtlasRegion atlasAdd() {
+        return atlas.add(16, 16, glyph);
+    }
+}
@@ -0,0 +1,100 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a batch of PNG files through a {@link TextureLoader}: decoding on a thread pool and uploading to
+ * {@link NullGL} under a frame budget, including the 8-bit data uploaded into half and float formats.
+ * The {@code frames} counter divided by the {@code batches} counter is the number of {@link TextureLoader#update()}
+ * calls that uploaded something, so how many frames the budget spreads a batch over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TextureLoaderBenchmark {
+    private static final int TEXTURES = 16, SIZE = 256;
+
+    @Param({"RGBA", "HalfRGBA", "FloatRGBA"})
+    public Texture.Format format;
+
+    /**
+     * Bytes per frame, a quarter of a decoded image and the whole batch.
+     */
+    @Param({"65536", "4194304"})
+    public long budget;
+
+    private final AsyncTexture[] textures = new AsyncTexture[TEXTURES];
+    private File file;
+    private ExecutorService executor;
+    private TextureLoader loader;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long frames, batches;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            frames = batches = 0;
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        Renderer.gl = new NullGL();
+
+        // Noise so the PNG does not compress to nothing and decoding does real work
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(42);
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) image.setRGB(x, y, random.nextInt());
+        }
+
+        file = File.createTempFile("texture", ".png");
+        ImageIO.write(image, "png", file);
+
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        loader = new TextureLoader(executor, budget);
+    }
+
+    @TearDown
+    public void tearDown() {
+        loader.dispose();
+        executor.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public long load(Counters counters) {
+        for (int i = 0; i < TEXTURES; i++) {
+            textures[i] = loader.load(file.getPath(), format, Texture.MinFilter.Linear, Texture.MagFilter.Linear, null);
+        }
+
+        long uploaded = loader.getUploadedBytes();
+        while (loader.getPendingCount() > 0) {
+            long before = loader.getUploadedBytes();
+            loader.update();
+
+            if (loader.getUploadedBytes() != before) counters.frames++;
+            else Thread.yield();
+        }
+
+        for (AsyncTexture texture : textures) {
+            if (!texture.isReady()) throw new IllegalStateException(texture.getFileName() + " failed to load: " + texture.getError());
+            texture.dispose();
+        }
+
+        counters.batches++;
+        return loader.getUploadedBytes() - uploaded;
+    }
+}
@@ -12,4 +12,14 @@ public class Renderer {
      * The OpenGL implementation
      */
     public static IGL gl = new GL();
+
+    /**
+     * Enables bounds checks and validation, set with the {@code dark.renderer.debug} system property.
+     */
+    public static final boolean DEBUG = Boolean.getBoolean("dark.renderer.debug");
+
+    /**
+     * Enables the {@link me.agxpt.dark.renderer.defaultImpl.Profiler} hooks, set with the {@code dark.renderer.profile} system property.
+     */
+    public static final boolean PROFILE = Boolean.getBoolean("dark.renderer.profile");
 }
@@ -0,0 +1,115 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.interfaces.ITexture;
+
+/**
+ * A texture loaded by a {@link TextureLoader}.
+ * Binding it binds the placeholder until the texture is uploaded, and keeps binding the placeholder if loading failed.
+ */
+public class AsyncTexture implements ITexture {
+    private final String fileName;
+    private final ITexture placeholder;
+    private volatile State state = State.Loading;
+    private volatile String error;
+    private Texture texture;
+    private int lastSlot = 0;
+
+    AsyncTexture(String fileName, ITexture placeholder) {
+        this.fileName = fileName;
+        this.placeholder = placeholder;
+    }
+
+    void ready(Texture texture) {
+        this.texture = texture;
+        state = State.Ready;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        state = State.Failed;
+    }
+
+    @Override
+    public AsyncTexture bind() {
+        return bind(0);
+    }
+
+    @Override
+    public AsyncTexture bind(int slot) {
+        lastSlot = slot;
+
+        if (texture != null) texture.bind(slot);
+        else if (placeholder != null) placeholder.bind(slot);
+        return this;
+    }
+
+    @Override
+    public int getSlot() {
+        return lastSlot;
+    }
+
+    /**
+     * Disposes the texture, a texture still loading is dropped once decoded. The placeholder is not disposed.
+     */
+    @Override
+    public void dispose() {
+        if (texture != null) texture.dispose();
+
+        texture = null;
+        if (state != State.Failed) fail("Disposed.");
+    }
+
+    /**
+     * Gets the loading state.
+     *
+     * @return The state.
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Checks if the texture is uploaded.
+     *
+     * @return True if the texture is ready.
+     */
+    public boolean isReady() {
+        return state == State.Ready;
+    }
+
+    /**
+     * Gets the uploaded texture.
+     *
+     * @return The texture, null until ready.
+     */
+    public Texture getTexture() {
+        return texture;
+    }
+
+    /**
+     * Gets the reason loading failed.
+     *
+     * @return The error, null if not failed.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Gets the file the texture is loaded from.
+     *
+     * @return The file path.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Texture loading states.
+     */
+    public enum State {
+        Loading,
+        Ready,
+        Failed
+    }
+}
@@ -0,0 +1,96 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import me.agxpt.dark.renderer.interfaces.ITexture;
+
+/**
+ * An image packed into a {@link TextureAtlas}.
+ * Binding it binds its atlas page, draw it with the {@link #u0}, {@link #v0}, {@link #u1} and {@link #v1} coordinates.
+ * A region evicted by its atlas is no longer valid and has to be added again.
+ */
+public class AtlasRegion implements ITexture {
+    private final TextureAtlas atlas;
+    final int page;
+
+    /**
+     * The position and size of the image inside its page in pixels.
+     */
+    public final int x, y, width, height;
+
+    /**
+     * The texture coordinates of the image.
+     */
+    public final float u0, v0, u1, v1;
+
+    private boolean valid = true;
+
+    AtlasRegion(TextureAtlas atlas, int page, int x, int y, int width, int height, int pageSize) {
+        this.atlas = atlas;
+        this.page = page;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+
+        u0 = (float) x / pageSize;
+        v0 = (float) y / pageSize;
+        u1 = (float) (x + width) / pageSize;
+        v1 = (float) (y + height) / pageSize;
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Checks if the region is still packed in its atlas.
+     *
+     * @return False if the region was evicted or disposed.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets the page this region is packed into.
+     *
+     * @return The page texture.
+     */
+    public Texture getPage() {
+        return atlas.getPage(page);
+    }
+
+    @Override
+    public AtlasRegion bind() {
+        return bind(0);
+    }
+
+    /**
+     * Binds the atlas page of the region. In debug mode binding an evicted region throws.
+     *
+     * @param slot The texture slot.
+     * @return This region.
+     * @throws IllegalStateException If debug mode is enabled and the region is no longer valid.
+     */
+    @Override
+    public AtlasRegion bind(int slot) {
+        if (Renderer.DEBUG && !valid) throw new IllegalStateException("AtlasRegion.bind() called on an evicted region.");
+
+        atlas.touch(this);
+        getPage().bind(slot);
+        return this;
+    }
+
+    @Override
+    public int getSlot() {
+        return getPage().getSlot();
+    }
+
+    /**
+     * Removes the region from its atlas so the space can be reused.
+     */
+    @Override
+    public void dispose() {
+        if (valid) atlas.remove(this);
+    }
+}
@@ -0,0 +1,488 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.interfaces.IGL;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL15C.GL_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15C.GL_ELEMENT_ARRAY_BUFFER;
+
+/**
+ * Implementation of {@link IGL} that skips binds which would not change the current state.
+ * Wraps another implementation that issues the actual calls.
+ * Call {@link #invalidate()} after code outside the renderer touched the bindings.
+ */
+public class CachingGL implements IGL {
+    private static final int UNKNOWN = -1;
+
+    private final IGL gl;
+    private final int[] textures = new int[32];
+    private int vao, vbo, ibo, activeSlot, program, restart;
+    private long restartIndex;
+    private long issued, elided;
+
+    /**
+     * Creates a new caching implementation.
+     *
+     * @param gl The implementation to forward changed binds to.
+     */
+    public CachingGL(IGL gl) {
+        this.gl = gl;
+        invalidate();
+    }
+
+    /**
+     * Creates a new caching implementation on top of {@link GL}.
+     */
+    public CachingGL() {
+        this(new GL());
+    }
+
+    /**
+     * Forgets all cached bindings, the next bind of every kind is always issued.
+     */
+    public void invalidate() {
+        vao = vbo = ibo = activeSlot = program = restart = UNKNOWN;
+        restartIndex = UNKNOWN;
+        Arrays.fill(textures, UNKNOWN);
+    }
+
+    @Override
+    public void bindVAO(int array) {
+        if (vao == array) {
+            elided++;
+            return;
+        }
+
+        gl.bindVAO(array);
+        vao = array;
+        // The element array buffer binding is part of the vertex array state
+        ibo = UNKNOWN;
+        issued++;
+    }
+
+    @Override
+    public void bindVBO(int buffer) {
+        if (vbo == buffer) {
+            elided++;
+            return;
+        }
+
+        gl.bindVBO(buffer);
+        vbo = buffer;
+        issued++;
+    }
+
+    @Override
+    public void bindIBO(int buffer) {
+        if (ibo == buffer) {
+            elided++;
+            return;
+        }
+
+        gl.bindIBO(buffer);
+        ibo = buffer;
+        issued++;
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        if (target == GL_ARRAY_BUFFER) bindVBO(buffer);
+        else if (target == GL_ELEMENT_ARRAY_BUFFER) bindIBO(buffer);
+        else gl.bindBuffer(target, buffer);
+    }
+
+    @Override
+    public void bindBufferRange(int target, int index, int buffer, long offset, long size) {
+        gl.bindBufferRange(target, index, buffer, offset, size);
+    }
+
+    @Override
+    public long mapBufferRange(int target, long offset, long size, int access) {
+        return gl.mapBufferRange(target, offset, size, access);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        return gl.unmapBuffer(target);
+    }
+
+    @Override
+    public void bindTexture(int texture, int slot) {
+        // The bind also selects the texture unit, so it can only be skipped if that unit is already active
+        if (slot == activeSlot && slot < textures.length && textures[slot] == texture) {
+            elided++;
+            return;
+        }
+
+        gl.bindTexture(texture, slot);
+        activeSlot = slot;
+        if (slot < textures.length) textures[slot] = texture;
+        issued++;
+    }
+
+    @Override
+    public void deleteVAO(int array) {
+        gl.deleteVAO(array);
+
+        if (vao == array) {
+            vao = 0;
+            ibo = UNKNOWN;
+        }
+    }
+
+    @Override
+    public void deleteBuffer(int buffer) {
+        gl.deleteBuffer(buffer);
+
+        if (vbo == buffer) vbo = 0;
+        if (ibo == buffer) ibo = 0;
+    }
+
+    @Override
+    public void deleteTexture(int texture) {
+        gl.deleteTexture(texture);
+
+        for (int i = 0; i < textures.length; i++) {
+            if (textures[i] == texture) textures[i] = 0;
+        }
+    }
+
+    @Override
+    public void useProgram(int program) {
+        if (this.program == program) {
+            elided++;
+            return;
+        }
+
+        gl.useProgram(program);
+        this.program = program;
+        issued++;
+    }
+
+    @Override
+    public int genVAO() {
+        return gl.genVAO();
+    }
+
+    @Override
+    public int genBuffer() {
+        return gl.genBuffer();
+    }
+
+    @Override
+    public int genTexture() {
+        return gl.genTexture();
+    }
+
+    @Override
+    public void bufferData(int target, long size, long data, int usage) {
+        gl.bufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, long size, long data) {
+        gl.bufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) {
+        gl.bufferStorage(target, size, flags);
+    }
+
+    @Override
+    public boolean isBufferStorageSupported() {
+        return gl.isBufferStorageSupported();
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        gl.copyBufferSubData(readTarget, writeTarget, readOffset, writeOffset, size);
+    }
+
+    @Override
+    public long fenceSync() {
+        return gl.fenceSync();
+    }
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        return gl.clientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void deleteSync(long sync) {
+        gl.deleteSync(sync);
+    }
+
+    @Override
+    public int getInteger(int name) {
+        return gl.getInteger(name);
+    }
+
+    @Override
+    public String getString(int name) {
+        return gl.getString(name);
+    }
+
+    @Override
+    public void enableVertexAttrib(int index) {
+        gl.enableVertexAttrib(index);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+        gl.vertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        gl.vertexAttribDivisor(index, divisor);
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long offset, int baseVertex) {
+        gl.drawElements(mode, count, type, offset, baseVertex);
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long offset, int instances, int baseVertex) {
+        gl.drawElementsInstanced(mode, count, type, offset, instances, baseVertex);
+    }
+
+    @Override
+    public void primitiveRestart(boolean enabled, int index) {
+        // The index is kept unsigned so the 32-bit restart index does not collide with UNKNOWN
+        long unsigned = index & 0xFFFFFFFFL;
+        if (enabled ? restart == 1 && restartIndex == unsigned : restart == 0) {
+            elided++;
+            return;
+        }
+
+        gl.primitiveRestart(enabled, index);
+        restart = enabled ? 1 : 0;
+        if (enabled) restartIndex = unsigned;
+        issued++;
+    }
+
+    @Override
+    public void texParameter(int name, int value) {
+        gl.texParameter(name, value);
+    }
+
+    @Override
+    public void pixelStore(int name, int value) {
+        gl.pixelStore(name, value);
+    }
+
+    @Override
+    public void texImage2D(int level, int internalFormat, int width, int height, int format, int type, long pixels) {
+        gl.texImage2D(level, internalFormat, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void texStorage2D(int levels, int internalFormat, int width, int height) {
+        gl.texStorage2D(levels, internalFormat, width, height);
+    }
+
+    @Override
+    public void texSubImage2D(int level, int x, int y, int width, int height, int format, int type, long pixels) {
+        gl.texSubImage2D(level, x, y, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void compressedTexImage2D(int level, int internalFormat, int width, int height, int size, long data) {
+        gl.compressedTexImage2D(level, internalFormat, width, height, size, data);
+    }
+
+    @Override
+    public void generateMipmap() {
+        gl.generateMipmap();
+    }
+
+    @Override
+    public void uniform(int location, int v) {
+        gl.uniform(location, v);
+    }
+
+    @Override
+    public void uniform(int location, float v) {
+        gl.uniform(location, v);
+    }
+
+    @Override
+    public void uniform(int location, float x, float y) {
+        gl.uniform(location, x, y);
+    }
+
+    @Override
+    public void uniformMatrix4(int location, long matrix) {
+        gl.uniformMatrix4(location, matrix);
+    }
+
+    @Override
+    public int createProgram() {
+        return gl.createProgram();
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+        gl.deleteProgram(program);
+
+        // The name is freed once the program is no longer current, so do not trust the cached one afterwards
+        if (this.program == program) this.program = UNKNOWN;
+    }
+
+    @Override
+    public int createShader(int type) {
+        return gl.createShader(type);
+    }
+
+    @Override
+    public void deleteShader(int shader) {
+        gl.deleteShader(shader);
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        gl.shaderSource(shader, source);
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        gl.compileShader(shader);
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        return gl.getShaderi(shader, name);
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader) {
+        return gl.getShaderInfoLog(shader);
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        gl.attachShader(program, shader);
+    }
+
+    @Override
+    public void detachShader(int program, int shader) {
+        gl.detachShader(program, shader);
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        gl.linkProgram(program);
+    }
+
+    @Override
+    public void validateProgram(int program) {
+        gl.validateProgram(program);
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        return gl.getProgrami(program, name);
+    }
+
+    @Override
+    public String getProgramInfoLog(int program) {
+        return gl.getProgramInfoLog(program);
+    }
+
+    @Override
+    public void programParameter(int program, int name, int value) {
+        gl.programParameter(program, name, value);
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, int maxLength, IntBuffer size, IntBuffer type) {
+        return gl.getActiveUniform(program, index, maxLength, size, type);
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return gl.getUniformLocation(program, name);
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return gl.getUniformBlockIndex(program, name);
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int index, int binding) {
+        gl.uniformBlockBinding(program, index, binding);
+    }
+
+    @Override
+    public int getProgramBinary(int program, IntBuffer format, ByteBuffer binary) {
+        return gl.getProgramBinary(program, format, binary);
+    }
+
+    @Override
+    public void programBinary(int program, int format, ByteBuffer binary) {
+        gl.programBinary(program, format, binary);
+    }
+
+    @Override
+    public void maxShaderCompilerThreads(int count) {
+        gl.maxShaderCompilerThreads(count);
+    }
+
+    @Override
+    public int genQuery() {
+        return gl.genQuery();
+    }
+
+    @Override
+    public void deleteQuery(int query) {
+        gl.deleteQuery(query);
+    }
+
+    @Override
+    public void queryCounter(int query, int target) {
+        gl.queryCounter(query, target);
+    }
+
+    @Override
+    public int getQueryObjecti(int query, int name) {
+        return gl.getQueryObjecti(query, name);
+    }
+
+    @Override
+    public long getQueryObjecti64(int query, int name) {
+        return gl.getQueryObjecti64(query, name);
+    }
+
+    /**
+     * Gets the number of binds that were forwarded.
+     *
+     * @return The number of issued binds.
+     */
+    public long getIssued() {
+        return issued;
+    }
+
+    /**
+     * Gets the number of binds that were skipped because they would not change anything.
+     *
+     * @return The number of elided binds.
+     */
+    public long getElided() {
+        return elided;
+    }
+
+    /**
+     * Resets the issued and elided counters.
+     */
+    public void resetCounters() {
+        issued = 0;
+        elided = 0;
+    }
+}
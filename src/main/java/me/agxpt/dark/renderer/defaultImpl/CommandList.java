@@ -0,0 +1,334 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.common.types.IM4f;
+import me.agxpt.dark.renderer.Renderer;
+import me.agxpt.dark.renderer.interfaces.IShader;
+import me.agxpt.dark.renderer.interfaces.ITexture;
+import me.agxpt.dark.renderer.interfaces.UniformHandle;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Render commands recorded without an OpenGL context and issued later by {@link #replay()}.
+ * Recording only touches the list itself, so lists can be recorded on several threads at once without locks as long
+ * as every list is recorded by a single thread. Commands are encoded into native memory, the meshes, shaders, textures
+ * and uniform handles they use are kept in a side table. Meshes must be ended before they are recorded and must not
+ * change until the list was replayed.
+ * <p>
+ * Replaying issues the draw calls directly and calls neither {@link Mesh#beforeRender()} nor
+ * {@link Mesh#afterRender()}. State belongs to the recorded shader and texture commands, a {@link ShaderMesh} only
+ * records a shader command when its shader is not the current one, so rebinding it and setting its defaults on every
+ * draw would also undo uniforms recorded in between. Render meshes that override the hooks with {@link Mesh#render()}.
+ */
+public class CommandList implements IDisposable {
+    private static final byte SHADER = 1, TEXTURE = 2;
+    private static final byte UNIFORM_I = 3, UNIFORM_F = 4, UNIFORM_2F = 5, UNIFORM_MATRIX_4 = 6;
+    private static final byte DRAW = 7, DRAW_INSTANCED = 8;
+
+    private long data;
+    private long size, capacity;
+    private Object[] objects = new Object[64];
+    private int objectCount;
+    private int commands;
+    private IShader shader;
+    private Thread recorder;
+
+    /**
+     * Creates a new command list.
+     *
+     * @param capacity The initial size of the command buffer in bytes.
+     */
+    public CommandList(long capacity) {
+        this.capacity = Math.max(capacity, 64);
+        data = nmemAllocChecked(this.capacity);
+    }
+
+    /**
+     * Creates a new command list.
+     */
+    public CommandList() {
+        this(16 * 1024);
+    }
+
+    private long reserve(byte op, int bytes) {
+        if (Renderer.DEBUG) checkRecorder();
+
+        long required = size + 1 + bytes;
+        if (required > capacity) {
+            capacity = Math.max(capacity * 2, required);
+            data = nmemReallocChecked(data, capacity);
+        }
+
+        long p = data + size;
+        memPutByte(p, op);
+        size = required;
+        commands++;
+        return p + 1;
+    }
+
+    private void checkRecorder() {
+        if (recorder == null) recorder = Thread.currentThread();
+        else if (recorder != Thread.currentThread()) {
+            throw new IllegalStateException("CommandList recorded by " + Thread.currentThread().getName() + " while being recorded by " + recorder.getName() + ".");
+        }
+    }
+
+    private int object(Object o) {
+        if (objectCount == objects.length) objects = Arrays.copyOf(objects, objects.length * 2);
+
+        objects[objectCount] = o;
+        return objectCount++;
+    }
+
+    private void checkShader(String method) {
+        if (shader == null) throw new IllegalStateException("CommandList." + method + "() called without a shader.");
+    }
+
+    /**
+     * Binds a shader and sets its defaults. Following uniforms are set on this shader.
+     *
+     * @param shader The shader.
+     * @return This list.
+     */
+    public CommandList shader(IShader shader) {
+        memPutInt(reserve(SHADER, 4), object(shader));
+
+        this.shader = shader;
+        return this;
+    }
+
+    /**
+     * Binds a texture.
+     *
+     * @param texture The texture.
+     * @param slot    The texture slot.
+     * @return This list.
+     */
+    public CommandList texture(ITexture texture, int slot) {
+        long p = reserve(TEXTURE, 8);
+        memPutInt(p, object(texture));
+        memPutInt(p + 4, slot);
+        return this;
+    }
+
+    /**
+     * Sets an int uniform of the current shader.
+     *
+     * @param uniform The uniform of the current shader.
+     * @param v       The value.
+     * @return This list.
+     */
+    public CommandList set(UniformHandle uniform, int v) {
+        checkShader("set");
+
+        long p = reserve(UNIFORM_I, 8);
+        memPutInt(p, object(uniform));
+        memPutInt(p + 4, v);
+        return this;
+    }
+
+    /**
+     * Sets a float uniform of the current shader.
+     *
+     * @param uniform The uniform of the current shader.
+     * @param v       The value.
+     * @return This list.
+     */
+    public CommandList set(UniformHandle uniform, double v) {
+        checkShader("set");
+
+        long p = reserve(UNIFORM_F, 8);
+        memPutInt(p, object(uniform));
+        memPutFloat(p + 4, (float) v);
+        return this;
+    }
+
+    /**
+     * Sets a 2d vector uniform of the current shader.
+     *
+     * @param uniform The uniform of the current shader.
+     * @param x       The x of the vector.
+     * @param y       The y of the vector.
+     * @return This list.
+     */
+    public CommandList set(UniformHandle uniform, double x, double y) {
+        checkShader("set");
+
+        long p = reserve(UNIFORM_2F, 12);
+        memPutInt(p, object(uniform));
+        memPutFloat(p + 4, (float) x);
+        memPutFloat(p + 8, (float) y);
+        return this;
+    }
+
+    /**
+     * Sets a 4x4 matrix uniform of the current shader. The matrix is copied, so it can be changed after recording.
+     * The current shader must be a {@link Shader} or a {@link PendingShader}.
+     *
+     * @param uniform The uniform of the current shader.
+     * @param mat     The matrix.
+     * @return This list.
+     */
+    public CommandList set(UniformHandle uniform, IM4f mat) {
+        checkShader("set");
+        if (!(shader instanceof Shader) && !(shader instanceof PendingShader)) {
+            throw new IllegalStateException("CommandList.set() called with a matrix on a shader that is not a Shader.");
+        }
+
+        FloatBuffer buffer = mat.getAsBuffer();
+        long p = reserve(UNIFORM_MATRIX_4, 68);
+        memPutInt(p, object(uniform));
+
+        int offset = buffer.position();
+        for (int i = 0; i < 16; i++) memPutFloat(p + 4 + i * 4L, buffer.get(offset + i));
+        return this;
+    }
+
+    /**
+     * Draws a mesh with the currently bound shader and textures, without calling its render hooks.
+     *
+     * @param mesh The mesh, must not be building.
+     * @return This list.
+     */
+    public CommandList draw(Mesh mesh) {
+        if (mesh.isBuilding()) throw new IllegalStateException("CommandList.draw() called with a mesh that is still building.");
+        if (mesh.getIndicesCount() == 0) return this;
+
+        memPutInt(reserve(DRAW, 4), object(mesh));
+        return this;
+    }
+
+    /**
+     * Draws a mesh with its own shader, which is bound first if it is not the current shader.
+     *
+     * @param mesh The mesh, must not be building.
+     * @return This list.
+     */
+    public CommandList draw(ShaderMesh mesh) {
+        if (mesh.shader != shader) shader(mesh.shader);
+        return draw((Mesh) mesh);
+    }
+
+    /**
+     * Draws several instances of a mesh with the currently bound shader and textures, without calling its render hooks.
+     *
+     * @param mesh      The mesh, must not be building.
+     * @param instances The number of instances.
+     * @return This list.
+     */
+    public CommandList drawInstanced(Mesh mesh, int instances) {
+        if (mesh.isBuilding()) throw new IllegalStateException("CommandList.drawInstanced() called with a mesh that is still building.");
+        if (mesh.getIndicesCount() == 0 || instances == 0) return this;
+
+        long p = reserve(DRAW_INSTANCED, 8);
+        memPutInt(p, object(mesh));
+        memPutInt(p + 4, instances);
+        return this;
+    }
+
+    /**
+     * Issues the recorded commands. Must be called on the thread that owns the OpenGL context after recording finished.
+     */
+    public void replay() {
+        IShader shader = null;
+        int vao = 0;
+
+        long p = data, end = data + size;
+        while (p < end) {
+            byte op = memGetByte(p++);
+
+            switch (op) {
+                case SHADER:
+                    shader = (IShader) objects[memGetInt(p)];
+                    shader.bind();
+                    shader.setDefaults();
+                    p += 4;
+                    break;
+                case TEXTURE:
+                    ((ITexture) objects[memGetInt(p)]).bind(memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case UNIFORM_I:
+                    shader.set((UniformHandle) objects[memGetInt(p)], memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case UNIFORM_F:
+                    shader.set((UniformHandle) objects[memGetInt(p)], memGetFloat(p + 4));
+                    p += 8;
+                    break;
+                case UNIFORM_2F:
+                    shader.set((UniformHandle) objects[memGetInt(p)], memGetFloat(p + 4), memGetFloat(p + 8));
+                    p += 12;
+                    break;
+                case UNIFORM_MATRIX_4: {
+                    Shader target = shader instanceof PendingShader ? ((PendingShader) shader).get() : (Shader) shader;
+                    target.setMatrix((UniformHandle) objects[memGetInt(p)], p + 4);
+                    p += 68;
+                    break;
+                }
+                case DRAW: {
+                    Mesh mesh = (Mesh) objects[memGetInt(p)];
+                    if (mesh.getVAO() != vao) Renderer.gl.bindVAO(vao = mesh.getVAO());
+
+                    mesh.draw();
+                    p += 4;
+                    break;
+                }
+                case DRAW_INSTANCED: {
+                    Mesh mesh = (Mesh) objects[memGetInt(p)];
+                    if (mesh.getVAO() != vao) Renderer.gl.bindVAO(vao = mesh.getVAO());
+
+                    mesh.drawInstanced(memGetInt(p + 4));
+                    p += 8;
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Corrupted command list, unknown command " + op + ".");
+            }
+        }
+
+        if (vao != 0) Renderer.gl.bindVAO(0);
+    }
+
+    /**
+     * Forgets the recorded commands so the list can be recorded again, possibly by another thread.
+     */
+    public void reset() {
+        Arrays.fill(objects, 0, objectCount, null);
+        objectCount = 0;
+        size = 0;
+        commands = 0;
+        shader = null;
+        recorder = null;
+    }
+
+    /**
+     * Gets the number of recorded commands.
+     *
+     * @return The number of commands.
+     */
+    public int getCommandCount() {
+        return commands;
+    }
+
+    /**
+     * Gets the size of the encoded commands.
+     *
+     * @return The size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void dispose() {
+        reset();
+
+        nmemFree(data);
+        data = NULL;
+    }
+}
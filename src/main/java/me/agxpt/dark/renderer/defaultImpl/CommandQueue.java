@@ -0,0 +1,82 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hands {@link CommandList}s recorded on worker threads to the thread that owns the OpenGL context.
+ * Acquiring and submitting lists is lock-free. Lists are replayed in the order they were submitted, so for a fixed
+ * order across threads submit them from one thread once recording finished. Replayed lists are reset and reused.
+ */
+public class CommandQueue implements IDisposable {
+    private final ConcurrentLinkedQueue<CommandList> submitted = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<CommandList> free = new ConcurrentLinkedQueue<>();
+    private int lists, commands;
+
+    /**
+     * Gets an empty list to record into, can be called on any thread.
+     *
+     * @return The list.
+     */
+    public CommandList acquire() {
+        CommandList list = free.poll();
+        return list != null ? list : new CommandList();
+    }
+
+    /**
+     * Queues a recorded list for the next {@link #flush()}, can be called on any thread.
+     * The list must not be recorded into after submitting.
+     *
+     * @param list The list.
+     */
+    public void submit(CommandList list) {
+        submitted.offer(list);
+    }
+
+    /**
+     * Replays all submitted lists in submission order and returns them to the pool.
+     * Must be called on the thread that owns the OpenGL context.
+     */
+    public void flush() {
+        lists = commands = 0;
+
+        CommandList list;
+        while ((list = submitted.poll()) != null) {
+            lists++;
+            commands += list.getCommandCount();
+
+            try {
+                list.replay();
+            } finally {
+                list.reset();
+                free.offer(list);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of lists replayed by the last flush.
+     *
+     * @return The number of lists.
+     */
+    public int getLists() {
+        return lists;
+    }
+
+    /**
+     * Gets the number of commands replayed by the last flush.
+     *
+     * @return The number of commands.
+     */
+    public int getCommands() {
+        return commands;
+    }
+
+    @Override
+    public void dispose() {
+        CommandList list;
+        while ((list = submitted.poll()) != null) list.dispose();
+        while ((list = free.poll()) != null) list.dispose();
+    }
+}
@@ -0,0 +1,85 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import java.util.Arrays;
+
+/**
+ * A list of dirty byte ranges that are merged before being uploaded.
+ */
+final class DirtyRanges {
+    private long[] ranges = new long[32];
+    private int count;
+
+    /**
+     * Adds a range, empty ranges are ignored.
+     *
+     * @param start The first dirty byte.
+     * @param end   The byte after the last dirty byte.
+     */
+    void add(long start, long end) {
+        if (end <= start) return;
+
+        if (count * 2 == ranges.length) ranges = Arrays.copyOf(ranges, ranges.length * 2);
+
+        ranges[count * 2] = start;
+        ranges[count * 2 + 1] = end;
+        count++;
+    }
+
+    /**
+     * Sorts the ranges and merges overlapping and adjacent ones.
+     *
+     * @return The number of dirty bytes.
+     */
+    long merge() {
+        // Insertion sort, there are only a few ranges per edit
+        for (int i = 1; i < count; i++) {
+            long start = ranges[i * 2], end = ranges[i * 2 + 1];
+
+            int j = i - 1;
+            while (j >= 0 && ranges[j * 2] > start) {
+                ranges[(j + 1) * 2] = ranges[j * 2];
+                ranges[(j + 1) * 2 + 1] = ranges[j * 2 + 1];
+                j--;
+            }
+
+            ranges[(j + 1) * 2] = start;
+            ranges[(j + 1) * 2 + 1] = end;
+        }
+
+        int merged = 0;
+        long bytes = 0;
+
+        for (int i = 0; i < count; i++) {
+            long start = ranges[i * 2], end = ranges[i * 2 + 1];
+
+            if (merged > 0 && start <= ranges[merged * 2 - 1]) {
+                ranges[merged * 2 - 1] = Math.max(ranges[merged * 2 - 1], end);
+            } else {
+                ranges[merged * 2] = start;
+                ranges[merged * 2 + 1] = end;
+                merged++;
+            }
+        }
+
+        count = merged;
+        for (int i = 0; i < count; i++) bytes += ranges[i * 2 + 1] - ranges[i * 2];
+
+        return bytes;
+    }
+
+    int size() {
+        return count;
+    }
+
+    long start(int i) {
+        return ranges[i * 2];
+    }
+
+    long end(int i) {
+        return ranges[i * 2 + 1];
+    }
+
+    void clear() {
+        count = 0;
+    }
+}
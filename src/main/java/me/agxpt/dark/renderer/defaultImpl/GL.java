@@ -1,9 +1,15 @@
 package me.agxpt.dark.renderer.defaultImpl;
 
 import me.agxpt.dark.renderer.interfaces.IGL;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryStack;
 
-import static org.lwjgl.opengl.GL15C.*;
-import static org.lwjgl.opengl.GL30C.glBindVertexArray;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import static org.lwjgl.opengl.ARBParallelShaderCompile.glMaxShaderCompilerThreadsARB;
+import static org.lwjgl.opengl.GL44C.*;
+import static org.lwjgl.opengl.KHRParallelShaderCompile.glMaxShaderCompilerThreadsKHR;
 
 /**
  * Default implementation of {@link IGL}
@@ -24,9 +30,349 @@ public class GL implements IGL {
         glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, buffer);
     }
 
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        glBindBuffer(target, buffer);
+    }
+
+    @Override
+    public void bindBufferRange(int target, int index, int buffer, long offset, long size) {
+        glBindBufferRange(target, index, buffer, offset, size);
+    }
+
+    @Override
+    public long mapBufferRange(int target, long offset, long size, int access) {
+        return nglMapBufferRange(target, offset, size, access);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        return glUnmapBuffer(target);
+    }
+
     @Override
     public void bindTexture(int texture, int slot) {
         glActiveTexture(GL_TEXTURE0 + slot);
         glBindTexture(GL_TEXTURE_2D, texture);
     }
+
+    @Override
+    public void deleteVAO(int array) {
+        glDeleteVertexArrays(array);
+    }
+
+    @Override
+    public void deleteBuffer(int buffer) {
+        glDeleteBuffers(buffer);
+    }
+
+    @Override
+    public void deleteTexture(int texture) {
+        glDeleteTextures(texture);
+    }
+
+    @Override
+    public int genVAO() {
+        return glGenVertexArrays();
+    }
+
+    @Override
+    public int genBuffer() {
+        return glGenBuffers();
+    }
+
+    @Override
+    public int genTexture() {
+        return glGenTextures();
+    }
+
+    @Override
+    public void bufferData(int target, long size, long data, int usage) {
+        nglBufferData(target, size, data, usage);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, long size, long data) {
+        nglBufferSubData(target, offset, size, data);
+    }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) {
+        glBufferStorage(target, size, flags);
+    }
+
+    @Override
+    public boolean isBufferStorageSupported() {
+        GLCapabilities caps = org.lwjgl.opengl.GL.getCapabilities();
+        return caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        glCopyBufferSubData(readTarget, writeTarget, readOffset, writeOffset, size);
+    }
+
+    @Override
+    public long fenceSync() {
+        return glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        return glClientWaitSync(sync, flags, timeout);
+    }
+
+    @Override
+    public void deleteSync(long sync) {
+        glDeleteSync(sync);
+    }
+
+    @Override
+    public int getInteger(int name) {
+        return glGetInteger(name);
+    }
+
+    @Override
+    public String getString(int name) {
+        return glGetString(name);
+    }
+
+    @Override
+    public void enableVertexAttrib(int index) {
+        glEnableVertexAttribArray(index);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+        glVertexAttribPointer(index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        glVertexAttribDivisor(index, divisor);
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long offset, int baseVertex) {
+        if (baseVertex == 0) glDrawElements(mode, count, type, offset);
+        else glDrawElementsBaseVertex(mode, count, type, offset, baseVertex);
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long offset, int instances, int baseVertex) {
+        if (baseVertex == 0) glDrawElementsInstanced(mode, count, type, offset, instances);
+        else glDrawElementsInstancedBaseVertex(mode, count, type, offset, instances, baseVertex);
+    }
+
+    @Override
+    public void primitiveRestart(boolean enabled, int index) {
+        if (enabled) {
+            glEnable(GL_PRIMITIVE_RESTART);
+            glPrimitiveRestartIndex(index);
+        } else {
+            glDisable(GL_PRIMITIVE_RESTART);
+        }
+    }
+
+    @Override
+    public void texParameter(int name, int value) {
+        glTexParameteri(GL_TEXTURE_2D, name, value);
+    }
+
+    @Override
+    public void pixelStore(int name, int value) {
+        glPixelStorei(name, value);
+    }
+
+    @Override
+    public void texStorage2D(int levels, int internalFormat, int width, int height) {
+        glTexStorage2D(GL_TEXTURE_2D, levels, internalFormat, width, height);
+    }
+
+    @Override
+    public void texImage2D(int level, int internalFormat, int width, int height, int format, int type, long pixels) {
+        nglTexImage2D(GL_TEXTURE_2D, level, internalFormat, width, height, 0, format, type, pixels);
+    }
+
+    @Override
+    public void texSubImage2D(int level, int x, int y, int width, int height, int format, int type, long pixels) {
+        nglTexSubImage2D(GL_TEXTURE_2D, level, x, y, width, height, format, type, pixels);
+    }
+
+    @Override
+    public void compressedTexImage2D(int level, int internalFormat, int width, int height, int size, long data) {
+        nglCompressedTexImage2D(GL_TEXTURE_2D, level, internalFormat, width, height, 0, size, data);
+    }
+
+    @Override
+    public void generateMipmap() {
+        glGenerateMipmap(GL_TEXTURE_2D);
+    }
+
+    @Override
+    public void useProgram(int program) {
+        glUseProgram(program);
+    }
+
+    @Override
+    public void uniform(int location, int v) {
+        glUniform1i(location, v);
+    }
+
+    @Override
+    public void uniform(int location, float v) {
+        glUniform1f(location, v);
+    }
+
+    @Override
+    public void uniform(int location, float x, float y) {
+        glUniform2f(location, x, y);
+    }
+
+    @Override
+    public void uniformMatrix4(int location, long matrix) {
+        nglUniformMatrix4fv(location, 1, false, matrix);
+    }
+
+    @Override
+    public int createProgram() {
+        return glCreateProgram();
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+        glDeleteProgram(program);
+    }
+
+    @Override
+    public int createShader(int type) {
+        return glCreateShader(type);
+    }
+
+    @Override
+    public void deleteShader(int shader) {
+        glDeleteShader(shader);
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        glShaderSource(shader, source);
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        glCompileShader(shader);
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        return glGetShaderi(shader, name);
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader) {
+        return glGetShaderInfoLog(shader);
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        glAttachShader(program, shader);
+    }
+
+    @Override
+    public void detachShader(int program, int shader) {
+        glDetachShader(program, shader);
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        glLinkProgram(program);
+    }
+
+    @Override
+    public void validateProgram(int program) {
+        glValidateProgram(program);
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        return glGetProgrami(program, name);
+    }
+
+    @Override
+    public String getProgramInfoLog(int program) {
+        return glGetProgramInfoLog(program);
+    }
+
+    @Override
+    public void programParameter(int program, int name, int value) {
+        glProgramParameteri(program, name, value);
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, int maxLength, IntBuffer size, IntBuffer type) {
+        return glGetActiveUniform(program, index, maxLength, size, type);
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return glGetUniformLocation(program, name);
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return glGetUniformBlockIndex(program, name);
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int index, int binding) {
+        glUniformBlockBinding(program, index, binding);
+    }
+
+    @Override
+    public int getProgramBinary(int program, IntBuffer format, ByteBuffer binary) {
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer length = stack.mallocInt(1);
+            glGetProgramBinary(program, length, format, binary);
+            return length.get(0);
+        }
+    }
+
+    @Override
+    public void programBinary(int program, int format, ByteBuffer binary) {
+        glProgramBinary(program, format, binary);
+    }
+
+    @Override
+    public void maxShaderCompilerThreads(int count) {
+        GLCapabilities caps = org.lwjgl.opengl.GL.getCapabilities();
+
+        if (caps.GL_KHR_parallel_shader_compile) glMaxShaderCompilerThreadsKHR(count);
+        else if (caps.GL_ARB_parallel_shader_compile) glMaxShaderCompilerThreadsARB(count);
+    }
+
+    @Override
+    public int genQuery() {
+        return glGenQueries();
+    }
+
+    @Override
+    public void deleteQuery(int query) {
+        glDeleteQueries(query);
+    }
+
+    @Override
+    public void queryCounter(int query, int target) {
+        glQueryCounter(query, target);
+    }
+
+    @Override
+    public int getQueryObjecti(int query, int name) {
+        return glGetQueryObjecti(query, name);
+    }
+
+    @Override
+    public long getQueryObjecti64(int query, int name) {
+        return glGetQueryObjecti64(query, name);
+    }
 }
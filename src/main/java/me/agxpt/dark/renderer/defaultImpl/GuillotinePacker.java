@@ -0,0 +1,186 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import java.util.Arrays;
+
+/**
+ * Packs rectangles into a fixed size area with the guillotine algorithm.
+ * Every rectangle goes into the free rectangle it fits best by its shorter side, the leftover space is split
+ * along the shorter axis. Freed rectangles are merged with free neighbours sharing a full edge.
+ * Pure CPU code, positions are returned packed into a long.
+ */
+public class GuillotinePacker {
+    private final int width, height;
+    private int[] free = new int[4 * 16];
+    private int freeCount;
+    private long usedArea;
+
+    /**
+     * Creates a new packer with an empty area.
+     *
+     * @param width  The width of the area.
+     * @param height The height of the area.
+     */
+    public GuillotinePacker(int width, int height) {
+        this.width = width;
+        this.height = height;
+
+        reset();
+    }
+
+    /**
+     * Gets the x of a packed position.
+     */
+    public static int x(long position) {
+        return (int) (position >>> 32);
+    }
+
+    /**
+     * Gets the y of a packed position.
+     */
+    public static int y(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Finds space for a rectangle.
+     *
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     * @return The position of the rectangle, read with {@link #x(long)} and {@link #y(long)}, or -1 if it does not fit.
+     */
+    public long insert(int w, int h) {
+        int best = -1, bestShort = Integer.MAX_VALUE, bestLong = Integer.MAX_VALUE;
+
+        for (int i = 0; i < freeCount; i++) {
+            int fw = free[i * 4 + 2], fh = free[i * 4 + 3];
+            if (w > fw || h > fh) continue;
+
+            int shortSide = Math.min(fw - w, fh - h), longSide = Math.max(fw - w, fh - h);
+            if (shortSide < bestShort || (shortSide == bestShort && longSide < bestLong)) {
+                best = i;
+                bestShort = shortSide;
+                bestLong = longSide;
+            }
+        }
+
+        if (best == -1) return -1;
+
+        int fx = free[best * 4], fy = free[best * 4 + 1], fw = free[best * 4 + 2], fh = free[best * 4 + 3];
+        remove(best);
+
+        int rightW = fw - w, bottomH = fh - h;
+
+        // Split along the shorter leftover axis so the larger leftover rectangle stays as big as possible
+        if (rightW < bottomH) {
+            add(fx + w, fy, rightW, h);
+            add(fx, fy + h, fw, bottomH);
+        } else {
+            add(fx + w, fy, rightW, fh);
+            add(fx, fy + h, w, bottomH);
+        }
+
+        usedArea += (long) w * h;
+        return ((long) fx << 32) | (fy & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the space of a rectangle obtained from {@link #insert(int, int)}.
+     *
+     * @param x The x of the rectangle.
+     * @param y The y of the rectangle.
+     * @param w The width of the rectangle.
+     * @param h The height of the rectangle.
+     */
+    public void free(int x, int y, int w, int h) {
+        usedArea -= (long) w * h;
+
+        // Merge with neighbours until nothing changes, the merged rectangle may line up with another one
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+
+            for (int i = 0; i < freeCount; i++) {
+                int fx = free[i * 4], fy = free[i * 4 + 1], fw = free[i * 4 + 2], fh = free[i * 4 + 3];
+
+                if (fy == y && fh == h && (fx + fw == x || x + w == fx)) {
+                    x = Math.min(x, fx);
+                    w += fw;
+                } else if (fx == x && fw == w && (fy + fh == y || y + h == fy)) {
+                    y = Math.min(y, fy);
+                    h += fh;
+                } else {
+                    continue;
+                }
+
+                remove(i);
+                merged = true;
+                break;
+            }
+        }
+
+        add(x, y, w, h);
+    }
+
+    /**
+     * Frees the whole area.
+     */
+    public void reset() {
+        freeCount = 0;
+        usedArea = 0;
+        add(0, 0, width, height);
+    }
+
+    private void add(int x, int y, int w, int h) {
+        if (w <= 0 || h <= 0) return;
+
+        if ((freeCount + 1) * 4 > free.length) free = Arrays.copyOf(free, free.length * 2);
+
+        int i = freeCount++ * 4;
+        free[i] = x;
+        free[i + 1] = y;
+        free[i + 2] = w;
+        free[i + 3] = h;
+    }
+
+    private void remove(int index) {
+        // Order does not matter, move the last rectangle into the hole
+        freeCount--;
+        System.arraycopy(free, freeCount * 4, free, index * 4, 4);
+    }
+
+    /**
+     * Gets the fraction of the area covered by packed rectangles.
+     *
+     * @return The occupancy between 0 and 1.
+     */
+    public double getOccupancy() {
+        return (double) usedArea / ((long) width * height);
+    }
+
+    /**
+     * Gets the number of free rectangles, a measure of fragmentation.
+     *
+     * @return The number of free rectangles.
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+
+    /**
+     * Gets the width of the area.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height of the area.
+     *
+     * @return The height.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,216 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IColor;
+import me.agxpt.dark.renderer.Renderer;
+import me.agxpt.dark.renderer.interfaces.IShader;
+
+import static org.lwjgl.opengl.GL15C.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * A {@link ShaderMesh} drawn once per instance, with a second attribute stream that advances per instance.
+ * The geometry is built with the usual {@link Mesh} methods, the instances between {@link #beginInstances()} and
+ * {@link #endInstances()}. Instance attributes use the locations after the vertex attributes.
+ */
+public class InstancedMesh extends ShaderMesh {
+    private final int instanceVbo;
+    private final int instanceStride;
+    private int instancesCapacity;
+    private long instances;
+    private long instancesI;
+    private boolean buildingInstances;
+    private int instanceI, instanceCount;
+
+    /**
+     * Creates a new instanced mesh.
+     *
+     * @param shader             The shader.
+     * @param drawMode           The draw shape.
+     * @param attributes         The per vertex shader attributes.
+     * @param instanceAttributes The per instance shader attributes.
+     */
+    public InstancedMesh(IShader shader, DrawMode drawMode, Attrib[] attributes, Attrib... instanceAttributes) {
+        super(shader, drawMode, attributes);
+
+        int stride = 0;
+        for (Attrib attrib : instanceAttributes) stride += attrib.size;
+
+        this.instanceStride = stride;
+
+        instancesCapacity = stride * 256;
+        instances = alloc(instancesCapacity);
+
+        Renderer.gl.bindVAO(getVAO());
+
+        instanceVbo = Renderer.gl.genBuffer();
+        Renderer.gl.bindVBO(instanceVbo);
+
+        int offset = 0;
+        for (int i = 0; i < instanceAttributes.length; i++) {
+            Attrib attrib = instanceAttributes[i];
+            int location = attributes.length + i;
+
+            Renderer.gl.enableVertexAttrib(location);
+            Renderer.gl.vertexAttribPointer(location, attrib.count, attrib.glEnum, attrib.normalize, stride, offset);
+            Renderer.gl.vertexAttribDivisor(location, 1);
+
+            offset += attrib.size;
+        }
+
+        Renderer.gl.bindVAO(0);
+        Renderer.gl.bindVBO(0);
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+
+        free(instances, instancesCapacity);
+        Renderer.gl.deleteBuffer(instanceVbo);
+    }
+
+    /**
+     * Resets the instance buffer and starts the instances.
+     */
+    public void beginInstances() {
+        if (buildingInstances)
+            throw new IllegalStateException("InstancedMesh.beginInstances() called while already building.");
+
+        instancesI = instances;
+        instanceI = 0;
+
+        buildingInstances = true;
+    }
+
+    /**
+     * Puts a float into the current instance.
+     *
+     * @param v The float value.
+     */
+    public InstancedMesh instanceFloat(double v) {
+        memPutFloat(instancesI, (float) v);
+
+        instancesI += 4;
+        return this;
+    }
+
+    /**
+     * Puts a 2d float vector into the current instance.
+     *
+     * @param x The x of vector.
+     * @param y The y of vector.
+     */
+    public InstancedMesh instanceVec2(double x, double y) {
+        memPutFloat(instancesI, (float) x);
+        memPutFloat(instancesI + 4, (float) y);
+
+        instancesI += 8;
+        return this;
+    }
+
+    /**
+     * Puts a 4d float vector into the current instance.
+     *
+     * @param x The x of vector.
+     * @param y The y of vector.
+     * @param z The z of vector.
+     * @param w The w of vector.
+     */
+    public InstancedMesh instanceVec4(double x, double y, double z, double w) {
+        memPutFloat(instancesI, (float) x);
+        memPutFloat(instancesI + 4, (float) y);
+        memPutFloat(instancesI + 8, (float) z);
+        memPutFloat(instancesI + 12, (float) w);
+
+        instancesI += 16;
+        return this;
+    }
+
+    /**
+     * Puts a rgba color into the current instance.
+     *
+     * @param color The color.
+     */
+    public InstancedMesh instanceColor(IColor color) {
+        return instanceVec4(color.r(), color.g(), color.b(), color.a());
+    }
+
+    /**
+     * Puts a whole instance for the {@code Vec2, Vec2, Vec4, Vec4} instance layout.
+     *
+     * @param x      The x offset.
+     * @param y      The y offset.
+     * @param scaleX The x scale.
+     * @param scaleY The y scale.
+     * @param color  The color.
+     * @param u1     The left texture coordinate.
+     * @param v1     The top texture coordinate.
+     * @param u2     The right texture coordinate.
+     * @param v2     The bottom texture coordinate.
+     * @return The instance index.
+     */
+    public int instance(double x, double y, double scaleX, double scaleY, IColor color, double u1, double v1, double u2, double v2) {
+        return instanceVec2(x, y)
+                .instanceVec2(scaleX, scaleY)
+                .instanceColor(color)
+                .instanceVec4(u1, v1, u2, v2)
+                .nextInstance();
+    }
+
+    /**
+     * End the current instance.
+     *
+     * @return The instance index.
+     */
+    public int nextInstance() {
+        if ((instanceI + 2L) * instanceStride > instancesCapacity) {
+            long newInstances = realloc(instances, instancesCapacity, instancesCapacity * 2L);
+            instancesCapacity *= 2;
+
+            instancesI = newInstances + (instancesI - instances);
+            instances = newInstances;
+        }
+
+        return instanceI++;
+    }
+
+    /**
+     * Ends the instances and uploads them.
+     */
+    public void endInstances() {
+        if (!buildingInstances)
+            throw new IllegalStateException("InstancedMesh.endInstances() called while not building.");
+
+        if (instanceI > 0) {
+            Renderer.gl.bindVBO(instanceVbo);
+            Renderer.gl.bufferData(GL_ARRAY_BUFFER, instancesI - instances, instances, GL_DYNAMIC_DRAW);
+            Renderer.gl.bindVBO(0);
+
+            if (Renderer.PROFILE) Profiler.upload(instancesI - instances);
+        }
+
+        instanceCount = instanceI;
+        buildingInstances = false;
+    }
+
+    /**
+     * Gets the number of instances drawn.
+     *
+     * @return The number of instances.
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    @Override
+    public void render() {
+        if (buildingInstances) endInstances();
+
+        super.render();
+    }
+
+    @Override
+    protected void draw() {
+        if (instanceCount > 0) drawInstanced(instanceCount);
+    }
+}
@@ -6,23 +6,51 @@ import me.agxpt.dark.common.types.IV3d;
 import me.agxpt.dark.renderer.Renderer;
 import me.agxpt.dark.renderer.interfaces.IMesh;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.lwjgl.opengl.GL15C.*;
-import static org.lwjgl.opengl.GL20C.glEnableVertexAttribArray;
-import static org.lwjgl.opengl.GL20C.glVertexAttribPointer;
-import static org.lwjgl.opengl.GL30C.glGenVertexArrays;
+import static org.lwjgl.opengl.GL30C.GL_HALF_FLOAT;
+import static org.lwjgl.opengl.GL31C.*;
+import static org.lwjgl.opengl.GL33C.GL_INT_2_10_10_10_REV;
 import static org.lwjgl.system.MemoryUtil.*;
 
 public class Mesh implements IMesh {
-    private final int primitiveVerticesSize;
-    private final int vao, vbo, ibo;
+    private static final AtomicLong allocatedBytes = new AtomicLong();
+
+    /**
+     * The index that ends the current strip, see {@link #restart()}.
+     */
+    public static final int RESTART = -1;
+
+    private static long indexScratch;
+    private static long indexScratchSize;
+
+    private final int vao;
+    private int vbo, ibo;
     private final DrawMode drawMode;
+    private final UploadMode uploadMode;
+    private final Attrib[] attributes;
+    private final int stride;
+    private final boolean streaming, retained, offline, quads;
+    private boolean byteIndices;
+    private int indexType = GL_UNSIGNED_INT;
+    private StreamBuffer vertexStream, indexStream;
+    private DirtyRanges dirtyVertices, dirtyIndices;
+    private boolean editing;
+    private long vboSize, iboSize;
+    private long vertexRangeStart, indexRangeStart;
+    private int vertexHigh, indexHigh;
+    private int baseVertex;
+    private long indicesOffset;
     private int verticesCapacity;
     private long vertices;
     private int indicesCapacity;
     private long indices;
     private long verticesI;
-    private boolean building;
+    private boolean building, disposed;
     private int vertexI, indicesCount;
+    private String name = "Mesh";
 
     /**
      * Creates a new mesh.
@@ -31,34 +59,82 @@ public class Mesh implements IMesh {
      * @param attributes The shader attributes.
      */
     public Mesh(DrawMode drawMode, Attrib... attributes) {
+        this(drawMode, UploadMode.Dynamic, attributes);
+    }
+
+    /**
+     * Creates a new mesh.
+     *
+     * @param drawMode   The draw shape.
+     * @param uploadMode The way vertices are uploaded, {@link UploadMode#Streaming} falls back to
+     *                   {@link UploadMode#Dynamic} on contexts without buffer storage.
+     * @param attributes The shader attributes.
+     */
+    public Mesh(DrawMode drawMode, UploadMode uploadMode, Attrib... attributes) {
         this.drawMode = drawMode;
+        this.uploadMode = uploadMode;
+        this.attributes = attributes;
+        this.streaming = uploadMode == UploadMode.Streaming && StreamBuffer.isSupported();
+        this.retained = uploadMode == UploadMode.Retained;
+        this.offline = uploadMode == UploadMode.Offline;
+        this.quads = drawMode == DrawMode.Quads;
 
         int stride = 0;
         for (Attrib attrib : attributes) stride += attrib.size;
 
-        this.primitiveVerticesSize = stride * 3;
+        this.stride = stride;
 
-        verticesCapacity = primitiveVerticesSize * 256 * 4;
-        vertices = nmemAllocChecked(verticesCapacity);
+        verticesCapacity = stride * 3 * 1024;
+        // Quads draw from the shared quad index buffer and never write indices
+        indicesCapacity = quads ? 0 : 3 * 512 * 4;
 
-        indicesCapacity = 3 * 512 * 4;
-        indices = nmemAllocChecked(indicesCapacity);
+        if (offline) {
+            vao = 0;
+            vertices = alloc(verticesCapacity);
+            if (!quads) indices = alloc(indicesCapacity);
+            return;
+        }
 
-        vao = glGenVertexArrays();
+        vao = Renderer.gl.genVAO();
+        name = "Mesh " + vao;
         Renderer.gl.bindVAO(vao);
 
-        vbo = glGenBuffers();
+        vbo = Renderer.gl.genBuffer();
         Renderer.gl.bindVBO(vbo);
+        if (streaming) vertexStream = new StreamBuffer(GL_ARRAY_BUFFER, verticesCapacity);
+        else vertices = alloc(verticesCapacity);
+
+        if (quads) {
+            ibo = QuadIndexBuffer.get();
+        } else {
+            ibo = Renderer.gl.genBuffer();
+            Renderer.gl.bindIBO(ibo);
+            if (streaming) indexStream = new StreamBuffer(GL_ELEMENT_ARRAY_BUFFER, indicesCapacity);
+            else indices = alloc(indicesCapacity);
+        }
+
+        if (retained) {
+            dirtyVertices = new DirtyRanges();
+            dirtyIndices = new DirtyRanges();
+        }
+
+        setupAttributes();
+    }
 
-        ibo = glGenBuffers();
+    /**
+     * Points the vertex attributes of the vertex array object at the current buffers.
+     */
+    private void setupAttributes() {
+        Renderer.gl.bindVAO(vao);
+        Renderer.gl.bindVBO(vbo);
         Renderer.gl.bindIBO(ibo);
 
         int offset = 0;
         for (int i = 0; i < attributes.length; i++) {
             Attrib attrib = attributes[i];
 
-            glEnableVertexAttribArray(i);
-            glVertexAttribPointer(i, attrib.count, attrib.glEnum, false, stride, offset);
+            Renderer.gl.enableVertexAttrib(i);
+            Renderer.gl.vertexAttribPointer(i, attrib.count, attrib.glEnum, attrib.normalize, stride, offset);
 
             offset += attrib.size;
         }
@@ -68,10 +144,87 @@ public class Mesh implements IMesh {
         Renderer.gl.bindIBO(0);
     }
 
+    /**
+     * Frees the native memory and deletes the OpenGL objects of the mesh, calling it again does nothing.
+     */
     @Override
     public void dispose() {
-        nmemFree(vertices);
-        nmemFree(indices);
+        if (disposed) return;
+        disposed = true;
+
+        if (streaming) {
+            vertexStream.dispose();
+            if (indexStream != null) indexStream.dispose();
+        } else {
+            free(vertices, verticesCapacity);
+            free(indices, indicesCapacity);
+        }
+
+        if (!offline) {
+            Renderer.gl.deleteVAO(vao);
+            Renderer.gl.deleteBuffer(vbo);
+            if (!quads) Renderer.gl.deleteBuffer(ibo);
+        }
+
+        vertices = indices = 0;
+    }
+
+    /**
+     * Allocates native memory and adds it to {@link #getAllocatedBytes()}.
+     */
+    static long alloc(long size) {
+        long address = nmemAllocChecked(size);
+        allocatedBytes.addAndGet(size);
+        return address;
+    }
+
+    /**
+     * Resizes native memory allocated with {@link #alloc(long)}.
+     */
+    static long realloc(long address, long oldSize, long newSize) {
+        long newAddress = nmemReallocChecked(address, newSize);
+        allocatedBytes.addAndGet(newSize - oldSize);
+        return newAddress;
+    }
+
+    /**
+     * Frees native memory allocated with {@link #alloc(long)}.
+     */
+    static void free(long address, long size) {
+        if (address == 0) return;
+
+        nmemFree(address);
+        allocatedBytes.addAndGet(-size);
+    }
+
+    /**
+     * Gets the native memory currently allocated by all meshes.
+     * The index conversion scratch buffer is not counted, it is shared and freed with {@link #disposeScratch()}.
+     *
+     * @return The allocated bytes.
+     */
+    public static long getAllocatedBytes() {
+        return allocatedBytes.get();
+    }
+
+    /**
+     * Frees the index conversion scratch buffer shared by all meshes, it is allocated again by the next conversion.
+     */
+    public static void disposeScratch() {
+        if (indexScratch != 0) nmemFree(indexScratch);
+
+        indexScratch = 0;
+        indexScratchSize = 0;
+    }
+
+    /**
+     * Throws if a write of the specified size would not fit into the vertex buffer, only used in debug mode.
+     */
+    private void checkVertexWrite(int bytes) {
+        if (vertices == 0 || verticesI + bytes > vertices + verticesCapacity) {
+            throw new IndexOutOfBoundsException("Vertex write of " + bytes + " bytes at " + (verticesI - vertices) +
+                    " exceeds the capacity of " + verticesCapacity + " bytes, call next() after every vertex.");
+        }
     }
 
     /**
@@ -80,6 +233,11 @@ public class Mesh implements IMesh {
     public void begin() {
         if (building) throw new IllegalStateException("Mesh.begin() called while already building.");
 
+        if (streaming) {
+            vertices = vertexStream.next();
+            if (!quads) indices = indexStream.next();
+        }
+
         verticesI = vertices;
         vertexI = 0;
         indicesCount = 0;
@@ -87,12 +245,67 @@ public class Mesh implements IMesh {
         building = true;
     }
 
+    /**
+     * Starts patching a {@link UploadMode#Retained} mesh in place.
+     * Writes continue at the end of the mesh until {@link #seekVertex(int)} or {@link #seekIndex(int)} moves them,
+     * {@link #end()} then only uploads the ranges that were written.
+     */
+    public void edit() {
+        if (!retained) throw new IllegalStateException("Mesh.edit() called on a mesh that is not retained.");
+        if (building) throw new IllegalStateException("Mesh.edit() called while already building.");
+
+        vertexRangeStart = verticesI;
+        indexRangeStart = indicesCount * 4L;
+        vertexHigh = vertexI;
+        indexHigh = indicesCount;
+
+        editing = true;
+        building = true;
+    }
+
+    /**
+     * Moves the vertex cursor while editing, following vertex writes overwrite the vertices from there on.
+     *
+     * @param vertex The index of the next vertex to write.
+     */
+    public Mesh seekVertex(int vertex) {
+        if (!editing) throw new IllegalStateException("Mesh.seekVertex() called while not editing.");
+
+        dirtyVertices.add(vertexRangeStart - vertices, verticesI - vertices);
+        vertexHigh = Math.max(vertexHigh, vertexI);
+
+        vertexI = vertex;
+        verticesI = vertices + (long) vertex * stride;
+        vertexRangeStart = verticesI;
+
+        reserveVertices(1);
+        return this;
+    }
+
+    /**
+     * Moves the index cursor while editing, following primitives overwrite the indices from there on.
+     *
+     * @param index The position of the next index to write.
+     */
+    public Mesh seekIndex(int index) {
+        if (!editing) throw new IllegalStateException("Mesh.seekIndex() called while not editing.");
+
+        dirtyIndices.add(indexRangeStart, indicesCount * 4L);
+        indexHigh = Math.max(indexHigh, indicesCount);
+
+        indicesCount = index;
+        indexRangeStart = index * 4L;
+        return this;
+    }
+
     /**
      * Puts an unsigned byte.
      *
      * @param v The unsigned byte value.
      */
     public Mesh uByte(int v) {
+        if (Renderer.DEBUG) checkVertexWrite(1);
+
         memPutByte(verticesI, (byte) v);
 
         verticesI++;
@@ -105,6 +318,8 @@ public class Mesh implements IMesh {
      * @param v The float value.
      */
     public Mesh float_(double v) {
+        if (Renderer.DEBUG) checkVertexWrite(4);
+
         memPutFloat(verticesI, (float) v);
 
         verticesI += 4;
@@ -118,6 +333,8 @@ public class Mesh implements IMesh {
      * @param y The y of vector.
      */
     public Mesh vec2(double x, double y) {
+        if (Renderer.DEBUG) checkVertexWrite(8);
+
         memPutFloat(verticesI, (float) x);
         memPutFloat(verticesI + 4, (float) y);
 
@@ -131,6 +348,8 @@ public class Mesh implements IMesh {
      * @param vec The vector.
      */
     public Mesh vec2(IV2d vec) {
+        if (Renderer.DEBUG) checkVertexWrite(8);
+
         memPutFloat(verticesI, (float) vec.x());
         memPutFloat(verticesI + 4, (float) vec.y());
 
@@ -146,6 +365,8 @@ public class Mesh implements IMesh {
      * @param z The z of vector.
      */
     public Mesh vec3(double x, double y, double z) {
+        if (Renderer.DEBUG) checkVertexWrite(12);
+
         memPutFloat(verticesI, (float) x);
         memPutFloat(verticesI + 4, (float) y);
         memPutFloat(verticesI + 8, (float) z);
@@ -160,6 +381,8 @@ public class Mesh implements IMesh {
      * @param vec The vector.
      */
     public Mesh vec3(IV3d vec) {
+        if (Renderer.DEBUG) checkVertexWrite(12);
+
         memPutFloat(verticesI, (float) vec.x());
         memPutFloat(verticesI + 4, (float) vec.y());
         memPutFloat(verticesI + 8, (float) vec.z());
@@ -177,6 +400,8 @@ public class Mesh implements IMesh {
      * @param w The w of vector.
      */
     public Mesh vec4(double x, double y, double z, double w) {
+        if (Renderer.DEBUG) checkVertexWrite(16);
+
         memPutFloat(verticesI, (float) x);
         memPutFloat(verticesI + 4, (float) y);
         memPutFloat(verticesI + 8, (float) z);
@@ -192,6 +417,8 @@ public class Mesh implements IMesh {
      * @param color The color.
      */
     public Mesh color(IColor color) {
+        if (Renderer.DEBUG) checkVertexWrite(16);
+
         memPutFloat(verticesI, (float) color.r());
         memPutFloat(verticesI + 4, (float) color.g());
         memPutFloat(verticesI + 8, (float) color.b());
@@ -201,12 +428,150 @@ public class Mesh implements IMesh {
         return this;
     }
 
+    /**
+     * Puts a rgba color as 4 normalized unsigned bytes, values are clamped to 0-1.
+     *
+     * @param color The color.
+     */
+    public Mesh color8(IColor color) {
+        if (Renderer.DEBUG) checkVertexWrite(4);
+
+        memPutByte(verticesI, unorm8(color.r()));
+        memPutByte(verticesI + 1, unorm8(color.g()));
+        memPutByte(verticesI + 2, unorm8(color.b()));
+        memPutByte(verticesI + 3, unorm8(color.a()));
+
+        verticesI += 4;
+        return this;
+    }
+
+    private static byte unorm8(double v) {
+        return (byte) (Math.min(Math.max(v, 0), 1) * 255 + 0.5);
+    }
+
+    /**
+     * Puts a 2d half float vector.
+     *
+     * @param x The x of vector.
+     * @param y The y of vector.
+     */
+    public Mesh half2(double x, double y) {
+        if (Renderer.DEBUG) checkVertexWrite(4);
+
+        memPutShort(verticesI, half(x));
+        memPutShort(verticesI + 2, half(y));
+
+        verticesI += 4;
+        return this;
+    }
+
+    /**
+     * Puts a 4d half float vector.
+     *
+     * @param x The x of vector.
+     * @param y The y of vector.
+     * @param z The z of vector.
+     * @param w The w of vector.
+     */
+    public Mesh half4(double x, double y, double z, double w) {
+        if (Renderer.DEBUG) checkVertexWrite(8);
+
+        memPutShort(verticesI, half(x));
+        memPutShort(verticesI + 2, half(y));
+        memPutShort(verticesI + 4, half(z));
+        memPutShort(verticesI + 6, half(w));
+
+        verticesI += 8;
+        return this;
+    }
+
+    /**
+     * Puts a 2d vector of normalized unsigned shorts, values are clamped to 0-1.
+     *
+     * @param u The x of vector.
+     * @param v The y of vector.
+     */
+    public Mesh unorm16(double u, double v) {
+        if (Renderer.DEBUG) checkVertexWrite(4);
+
+        memPutShort(verticesI, (short) (Math.min(Math.max(u, 0), 1) * 65535 + 0.5));
+        memPutShort(verticesI + 2, (short) (Math.min(Math.max(v, 0), 1) * 65535 + 0.5));
+
+        verticesI += 4;
+        return this;
+    }
+
+    /**
+     * Puts a normal packed as signed normalized 10 bit components, values are clamped to -1-1.
+     *
+     * @param x The x of normal.
+     * @param y The y of normal.
+     * @param z The z of normal.
+     */
+    public Mesh normal(double x, double y, double z) {
+        if (Renderer.DEBUG) checkVertexWrite(4);
+
+        memPutInt(verticesI, snorm10(x) | snorm10(y) << 10 | snorm10(z) << 20);
+
+        verticesI += 4;
+        return this;
+    }
+
+    /**
+     * Puts a normal packed as signed normalized 10 bit components, values are clamped to -1-1.
+     *
+     * @param vec The normal.
+     */
+    public Mesh normal(IV3d vec) {
+        return normal(vec.x(), vec.y(), vec.z());
+    }
+
+    private static int snorm10(double v) {
+        return (int) Math.round(Math.min(Math.max(v, -1), 1) * 511) & 0x3FF;
+    }
+
+    /**
+     * Converts a value to the bits of a half float, rounding to nearest even. Values past the half float range become
+     * infinity.
+     */
+    static short half(double v) {
+        int bits = java.lang.Float.floatToRawIntBits((float) v);
+        int sign = bits >>> 16 & 0x8000;
+        int abs = bits & 0x7FFFFFFF;
+
+        // Infinity and NaN, decided before rounding so large finite values can not carry into the NaN range
+        if (abs >= 0x7F800000) return (short) (sign | 0x7C00 | (abs > 0x7F800000 ? 0x200 | abs >>> 13 & 0x3FF : 0));
+
+        // Round the 13 dropped mantissa bits to nearest even
+        int value = abs + 0xFFF + (abs >>> 13 & 1);
+
+        // Overflow
+        if (value >= 0x47800000) return (short) (sign | 0x7C00);
+
+        // Normal
+        if (value >= 0x38800000) return (short) (sign | value - 0x38000000 >>> 13);
+
+        // Underflow
+        if (abs < 0x33000000) return (short) sign;
+
+        // Subnormal
+        int shift = 126 - (abs >>> 23);
+        int mantissa = abs & 0x7FFFFF | 0x800000;
+        return (short) (sign | mantissa + (1 << shift - 1) - 1 + (mantissa >>> shift & 1) >>> shift);
+    }
+
     /**
      * End the current vertex.
      *
      * @return The vertex index.
      */
     public int next() {
+        if (Renderer.DEBUG && verticesI - vertices != (vertexI + 1L) * stride) {
+            throw new IllegalStateException("Vertex " + vertexI + " ends at byte " + (verticesI - vertices) +
+                    " but the vertex stride is " + stride + ".");
+        }
+
+        if (verticesI - vertices + stride > verticesCapacity) reserveVertices(1);
         return vertexI++;
     }
 
@@ -217,13 +582,13 @@ public class Mesh implements IMesh {
      * @param i2 Second vertex index.
      */
     public void line(int i1, int i2) {
+        if ((indicesCount + 2) * 4L > indicesCapacity) growIndices(2);
         long p = indices + indicesCount * 4L;
 
         memPutInt(p, i1);
         memPutInt(p + 4, i2);
 
         indicesCount += 2;
-        growIfNeeded();
     }
 
     /**
@@ -234,6 +599,7 @@ public class Mesh implements IMesh {
      * @param i3 Third vertex index.
      */
     public void triangle(int i1, int i2, int i3) {
+        if ((indicesCount + 3) * 4L > indicesCapacity) growIndices(3);
         long p = indices + indicesCount * 4L;
 
         memPutInt(p, i1);
@@ -241,7 +607,6 @@ public class Mesh implements IMesh {
         memPutInt(p + 8, i3);
 
         indicesCount += 3;
-        growIfNeeded();
     }
 
     /**
@@ -253,6 +618,14 @@ public class Mesh implements IMesh {
      * @param i4 Fourth vertex index.
      */
     public void quad(int i1, int i2, int i3, int i4) {
+        if (quads) {
+            if (Renderer.DEBUG) checkQuad(i1, i2, i3, i4);
+
+            indicesCount += 6;
+            return;
+        }
+
+        if ((indicesCount + 6) * 4L > indicesCapacity) growIndices(6);
         long p = indices + indicesCount * 4L;
 
         memPutInt(p, i1);
@@ -264,36 +637,241 @@ public class Mesh implements IMesh {
         memPutInt(p + 20, i1);
 
         indicesCount += 6;
-        growIfNeeded();
+    }
+
+    /**
+     * Adds an index to the current strip of a {@link DrawMode#LineStrip} or {@link DrawMode#TriangleStrip} mesh.
+     *
+     * @param i The vertex index.
+     */
+    public void index(int i) {
+        if ((indicesCount + 1) * 4L > indicesCapacity) growIndices(1);
+        memPutInt(indices + indicesCount * 4L, i);
+
+        indicesCount++;
+    }
+
+    /**
+     * Ends the current strip, the next index starts a new one.
+     */
+    public void restart() {
+        index(RESTART);
+    }
+
+    /**
+     * Grows the index buffer, quad meshes have no index buffer to write into.
+     */
+    private void growIndices(int count) {
+        if (quads) throw new IllegalStateException("Indices written to a mesh with DrawMode.Quads, use quad().");
+
+        reserveIndices(count);
+    }
+
+    /**
+     * Throws if a quad does not use the next four vertices, only used in debug mode.
+     */
+    private void checkQuad(int i1, int i2, int i3, int i4) {
+        int first = indicesCount / 6 * 4;
+        if (i1 != first || i2 != first + 1 || i3 != first + 2 || i4 != first + 3) {
+            throw new IllegalStateException("Quad " + i1 + ", " + i2 + ", " + i3 + ", " + i4 + " does not use vertices " + first +
+                    " to " + (first + 3) + ", DrawMode.Quads requires four consecutive vertices per quad.");
+        }
+    }
+
+    /**
+     * Makes sure the specified number of vertices fit after the current one without growing.
+     *
+     * @param count The number of vertices.
+     */
+    public void reserveVertices(int count) {
+        long required = verticesI - vertices + (long) count * stride;
+        if (required <= verticesCapacity) return;
+
+        int oldCapacity = verticesCapacity;
+        verticesCapacity = grow(verticesCapacity, required, stride);
+
+        long newVertices;
+        if (streaming) {
+            newVertices = growVertexStream(verticesI - vertices);
+        } else {
+            newVertices = realloc(vertices, oldCapacity, verticesCapacity);
+        }
+
+        verticesI = newVertices + (verticesI - vertices);
+        if (editing) vertexRangeStart = newVertices + (vertexRangeStart - vertices);
+        vertices = newVertices;
+    }
+
+    /**
+     * Makes sure the specified number of indices fit after the current ones without growing.
+     *
+     * @param count The number of indices.
+     */
+    public void reserveIndices(int count) {
+        if (quads) return;
+
+        long required = (indicesCount + (long) count) * 4;
+        if (required <= indicesCapacity) return;
+
+        int oldCapacity = indicesCapacity;
+        indicesCapacity = grow(indicesCapacity, required, 4);
+
+        long newIndices;
+        if (streaming) {
+            newIndices = growIndexStream(indicesCount * 4L);
+        } else {
+            newIndices = realloc(indices, oldCapacity, indicesCapacity);
+        }
+
+        indices = newIndices;
+    }
+
+    /**
+     * Doubles a capacity until the required size fits.
+     *
+     * @param capacity  The current capacity.
+     * @param required  The required capacity.
+     * @param alignment The value the new capacity has to be a multiple of.
+     * @return The new capacity.
+     */
+    private static int grow(int capacity, long required, int alignment) {
+        long newCapacity = Math.max(capacity * 2L, required);
+        newCapacity = (newCapacity + alignment - 1) / alignment * alignment;
+
+        if (newCapacity > Integer.MAX_VALUE) throw new OutOfMemoryError("Mesh buffer larger than 2 GB.");
+        return (int) newCapacity;
     }
 
     /**
      * Increases the buffer sizes if needed.
+     *
+     * @deprecated Buffers now grow on demand, use {@link #reserveVertices(int)} and {@link #reserveIndices(int)}
+     * to grow them up front.
      */
+    @Deprecated
     public void growIfNeeded() {
-        // Vertices
-        if ((vertexI + 1) * primitiveVerticesSize >= verticesCapacity) {
-            verticesCapacity = verticesCapacity * 2;
-            if (verticesCapacity % primitiveVerticesSize != 0)
-                verticesCapacity += verticesCapacity % primitiveVerticesSize;
+        reserveVertices(1);
+        reserveIndices(drawMode.indicesCount);
+    }
 
-            long newVertices = nmemAllocChecked(verticesCapacity);
-            memCopy(vertices, newVertices, verticesI - vertices);
+    /**
+     * Gets the native memory held by this mesh.
+     *
+     * @return The capacity of the vertex and index buffers in bytes.
+     */
+    public long getCapacityBytes() {
+        return (long) verticesCapacity + indicesCapacity;
+    }
 
-            verticesI = newVertices + (verticesI - vertices);
-            vertices = newVertices;
+    /**
+     * Appends the vertices and indices of another mesh with the same attributes.
+     * The indices are rebased onto the vertices already in this mesh, appended strips start a new strip.
+     *
+     * @param mesh The mesh to copy from.
+     */
+    public void append(Mesh mesh) {
+        if (!building) throw new IllegalStateException("Mesh.append() called while not building.");
+        if (!Arrays.equals(attributes, mesh.attributes))
+            throw new IllegalArgumentException("Mesh.append() called with a mesh of different attributes.");
+        if (quads != mesh.quads)
+            throw new IllegalArgumentException("Mesh.append() called with quads on a mesh that is not a quad mesh or the other way round.");
+
+        long vertexBytes = mesh.verticesI - mesh.vertices;
+        int count = mesh.indicesCount;
+        boolean restart = drawMode.strip && indicesCount > 0 && count > 0;
+
+        // One more vertex so the next write after the appended geometry fits
+        reserveVertices(mesh.vertexI + 1);
+        reserveIndices(restart ? count + 1 : count);
+
+        memCopy(mesh.vertices, verticesI, vertexBytes);
+        verticesI += vertexBytes;
+
+        // Quads only count their indices, the shared index buffer covers the appended vertices
+        if (!quads) {
+            if (restart) memPutInt(indices + indicesCount++ * 4L, RESTART);
+
+            long src = mesh.indices;
+            long dst = indices + indicesCount * 4L;
+
+            if (drawMode.strip) {
+                for (int i = 0; i < count; i++) {
+                    int index = memGetInt(src + i * 4L);
+                    memPutInt(dst + i * 4L, index == RESTART ? RESTART : index + vertexI);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    memPutInt(dst + i * 4L, memGetInt(src + i * 4L) + vertexI);
+                }
+            }
         }
 
-        // Indices
-        if (indicesCount * 4 >= indicesCapacity) {
-            indicesCapacity = indicesCapacity * 2;
-            if (indicesCapacity % 3 != 0) indicesCapacity += indicesCapacity % (3 * 4);
+        indicesCount += count;
+        vertexI += mesh.vertexI;
+    }
 
-            long newIndices = nmemAllocChecked(indicesCapacity);
-            memCopy(indices, newIndices, indicesCount * 4L);
+    /**
+     * Replaces the vertex stream with one of the current capacity. The written vertices are copied on the GPU before
+     * the old buffer is deleted, since the stream is mapped for writing without {@code GL_MAP_READ_BIT} and reading the
+     * old mapping back on the CPU is undefined.
+     *
+     * @param bytes The number of bytes written to the current segment.
+     * @return The address of the new vertex segment.
+     */
+    private long growVertexStream(long bytes) {
+        int oldVbo = vbo;
+        long oldOffset = vertexStream.offset();
+        vertexStream.dispose();
 
-            indices = newIndices;
-        }
+        vbo = Renderer.gl.genBuffer();
+        Renderer.gl.bindVBO(vbo);
+        vertexStream = new StreamBuffer(GL_ARRAY_BUFFER, verticesCapacity);
+        setupAttributes();
+
+        long address = vertexStream.next();
+        copyBuffer(oldVbo, oldOffset, vbo, vertexStream.offset(), bytes);
+
+        Renderer.gl.deleteBuffer(oldVbo);
+        return address;
+    }
+
+    /**
+     * Replaces the index stream with one of the current capacity. The written indices are copied on the GPU before
+     * the old buffer is deleted, since the stream is mapped for writing without {@code GL_MAP_READ_BIT} and reading the
+     * old mapping back on the CPU is undefined.
+     *
+     * @param bytes The number of bytes written to the current segment.
+     * @return The address of the new index segment.
+     */
+    private long growIndexStream(long bytes) {
+        int oldIbo = ibo;
+        long oldOffset = indexStream.offset();
+        indexStream.dispose();
+
+        ibo = Renderer.gl.genBuffer();
+        Renderer.gl.bindVAO(vao);
+        Renderer.gl.bindIBO(ibo);
+        indexStream = new StreamBuffer(GL_ELEMENT_ARRAY_BUFFER, indicesCapacity);
+        setupAttributes();
+
+        long address = indexStream.next();
+        copyBuffer(oldIbo, oldOffset, ibo, indexStream.offset(), bytes);
+
+        Renderer.gl.deleteBuffer(oldIbo);
+        return address;
+    }
+
+    /**
+     * Copies a range between two buffer objects through the copy targets, which leaves the other bindings alone.
+     */
+    private static void copyBuffer(int src, long srcOffset, int dst, long dstOffset, long bytes) {
+        if (bytes == 0) return;
+
+        Renderer.gl.bindBuffer(GL_COPY_READ_BUFFER, src);
+        Renderer.gl.bindBuffer(GL_COPY_WRITE_BUFFER, dst);
+        Renderer.gl.copyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER, srcOffset, dstOffset, bytes);
+        Renderer.gl.bindBuffer(GL_COPY_READ_BUFFER, 0);
+        Renderer.gl.bindBuffer(GL_COPY_WRITE_BUFFER, 0);
     }
 
     /**
@@ -302,17 +880,178 @@ public class Mesh implements IMesh {
     public void end() {
         if (!building) throw new IllegalStateException("Mesh.end() called while not building.");
 
-        if (indicesCount > 0) {
-            Renderer.gl.bindVBO(vbo);
-            nglBufferData(GL_ARRAY_BUFFER, verticesI - vertices, vertices, GL_DYNAMIC_DRAW);
-            Renderer.gl.bindVBO(0);
+        if (editing) {
+            endEdit();
+        } else if (indicesCount > 0 && !offline) {
+            if (quads) QuadIndexBuffer.ensure(indicesCount / 6);
+
+            if (streaming) {
+                baseVertex = (int) (vertexStream.offset() / stride);
+                if (!quads) indicesOffset = indexStream.offset();
+            } else {
+                int usage = retained ? GL_STATIC_DRAW : GL_DYNAMIC_DRAW;
+
+                Renderer.gl.bindVBO(vbo);
+                Renderer.gl.bufferData(GL_ARRAY_BUFFER, verticesI - vertices, vertices, usage);
+                Renderer.gl.bindVBO(0);
+                vboSize = verticesI - vertices;
+                long uploaded = vboSize;
+
+                if (!quads) {
+                    indexType = pickIndexType();
+                    iboSize = indicesCount * (long) indexSize(indexType);
+
+                    Renderer.gl.bindIBO(ibo);
+                    Renderer.gl.bufferData(GL_ELEMENT_ARRAY_BUFFER, iboSize, convertIndices(0, indicesCount, indexType), usage);
+                    Renderer.gl.bindIBO(0);
+                    uploaded += iboSize;
+                }
+
+                // Quads draw from the shared quad index buffer, iboSize is not theirs
+                if (Renderer.PROFILE) Profiler.upload(uploaded);
+            }
+        }
+
+        building = false;
+    }
+
+    /**
+     * Closes the open ranges of an edit and uploads everything that was written.
+     */
+    private void endEdit() {
+        dirtyVertices.add(vertexRangeStart - vertices, verticesI - vertices);
+        dirtyIndices.add(indexRangeStart, indicesCount * 4L);
 
+        vertexI = Math.max(vertexI, vertexHigh);
+        verticesI = vertices + (long) vertexI * stride;
+        indicesCount = Math.max(indicesCount, indexHigh);
+
+        Renderer.gl.bindVBO(vbo);
+        vboSize = uploadDirty(GL_ARRAY_BUFFER, vertices, verticesI - vertices, vboSize, dirtyVertices);
+        Renderer.gl.bindVBO(0);
+
+        if (quads) {
+            QuadIndexBuffer.ensure(indicesCount / 6);
+            dirtyIndices.clear();
+        } else {
             Renderer.gl.bindIBO(ibo);
-            nglBufferData(GL_ELEMENT_ARRAY_BUFFER, indicesCount * 4L, indices, GL_DYNAMIC_DRAW);
+            uploadDirtyIndices();
             Renderer.gl.bindIBO(0);
         }
 
-        building = false;
+        editing = false;
+    }
+
+    /**
+     * Uploads the dirty index ranges converted to the index type, or all indices if the index type changed,
+     * the buffer grew or most of it is dirty.
+     */
+    private void uploadDirtyIndices() {
+        int type = pickIndexType();
+        int size = indexSize(type);
+        long bytes = indicesCount * (long) size;
+
+        // Ranges are tracked in bytes of the 32-bit indices
+        long dirty = dirtyIndices.merge();
+
+        if (type != indexType || bytes > iboSize || dirty * 2 > indicesCount * 4L) {
+            Renderer.gl.bufferData(GL_ELEMENT_ARRAY_BUFFER, bytes, convertIndices(0, indicesCount, type), GL_STATIC_DRAW);
+            iboSize = bytes;
+            if (Renderer.PROFILE) Profiler.upload(bytes);
+        } else {
+            if (Renderer.PROFILE) Profiler.upload(dirty / 4 * size);
+            for (int i = 0; i < dirtyIndices.size(); i++) {
+                int first = (int) (dirtyIndices.start(i) / 4);
+                int count = (int) ((dirtyIndices.end(i) - dirtyIndices.start(i)) / 4);
+                Renderer.gl.bufferSubData(GL_ELEMENT_ARRAY_BUFFER, (long) first * size, (long) count * size, convertIndices(first, count, type));
+            }
+        }
+
+        dirtyIndices.clear();
+        indexType = type;
+    }
+
+    /**
+     * Picks the smallest index type that can address every vertex.
+     * The largest value of the type stays free because it is the primitive restart index of strips.
+     */
+    private int pickIndexType() {
+        if (byteIndices && vertexI <= 0xFF) return GL_UNSIGNED_BYTE;
+        if (vertexI <= 0xFFFF) return GL_UNSIGNED_SHORT;
+        return GL_UNSIGNED_INT;
+    }
+
+    private static int indexSize(int type) {
+        switch (type) {
+            case GL_UNSIGNED_BYTE:
+                return 1;
+            case GL_UNSIGNED_SHORT:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    /**
+     * Converts a range of the 32-bit indices to a smaller type in a scratch buffer shared by all meshes.
+     * {@link #RESTART} becomes the largest value of the type.
+     *
+     * @return The address of the converted indices, valid until the next conversion.
+     */
+    private long convertIndices(int first, int count, int type) {
+        long src = indices + first * 4L;
+        if (type == GL_UNSIGNED_INT) return src;
+
+        long size = (long) count * indexSize(type);
+        if (size > indexScratchSize) {
+            long newSize = Math.max(size, indexScratchSize * 2);
+            indexScratch = nmemReallocChecked(indexScratch, newSize);
+            indexScratchSize = newSize;
+        }
+
+        long dst = indexScratch;
+        if (type == GL_UNSIGNED_SHORT) {
+            for (int i = 0; i < count; i++) memPutShort(dst + i * 2L, (short) memGetInt(src + i * 4L));
+        } else {
+            for (int i = 0; i < count; i++) memPutByte(dst + i, (byte) memGetInt(src + i * 4L));
+        }
+
+        return dst;
+    }
+
+    /**
+     * Sets whether meshes with at most 255 vertices may use 8-bit indices instead of 16-bit ones.
+     * Off by default since some drivers convert 8-bit indices on the CPU. Streaming meshes always use 32-bit indices.
+     *
+     * @param byteIndices True to allow 8-bit indices.
+     * @return This mesh.
+     */
+    public Mesh setByteIndices(boolean byteIndices) {
+        this.byteIndices = byteIndices;
+        return this;
+    }
+
+    /**
+     * Uploads the dirty ranges of a buffer, or the whole buffer if it grew or most of it is dirty.
+     *
+     * @return The new size of the buffer object.
+     */
+    private static long uploadDirty(int target, long data, long bytes, long size, DirtyRanges ranges) {
+        long dirty = ranges.merge();
+
+        if (bytes > size || dirty * 2 > bytes) {
+            Renderer.gl.bufferData(target, bytes, data, GL_STATIC_DRAW);
+            size = bytes;
+            if (Renderer.PROFILE) Profiler.upload(bytes);
+        } else {
+            if (Renderer.PROFILE) Profiler.upload(dirty);
+            for (int i = 0; i < ranges.size(); i++) {
+                Renderer.gl.bufferSubData(target, ranges.start(i), ranges.end(i) - ranges.start(i), data + ranges.start(i));
+            }
+        }
+
+        ranges.clear();
+        return size;
     }
 
     protected void beforeRender() {
@@ -323,17 +1062,151 @@ public class Mesh implements IMesh {
 
     @Override
     public void render() {
+        if (offline) throw new IllegalStateException("Mesh.render() called on an offline mesh.");
         if (building) end();
 
         if (indicesCount > 0) {
+            boolean scope = Renderer.PROFILE && Profiler.isDrawScopes();
+            if (scope) Profiler.push(name);
+
             beforeRender();
             Renderer.gl.bindVAO(vao);
-            glDrawElements(drawMode.gl, indicesCount, GL_UNSIGNED_INT, 0);
+            draw();
             Renderer.gl.bindVAO(0);
             afterRender();
+
+            if (scope) Profiler.pop();
         }
     }
 
+    /**
+     * Issues the draw call, the vertex array object has to be bound.
+     */
+    protected void draw() {
+        if (Renderer.PROFILE) Profiler.draw(indicesCount);
+
+        int type = quads ? QuadIndexBuffer.type() : indexType;
+        if (drawMode.strip) Renderer.gl.primitiveRestart(true, restartIndex(type));
+        Renderer.gl.drawElements(drawMode.gl, indicesCount, type, indicesOffset, baseVertex);
+        if (drawMode.strip) Renderer.gl.primitiveRestart(false, 0);
+    }
+
+    /**
+     * Issues an instanced draw call, the vertex array object has to be bound.
+     *
+     * @param instances The number of instances.
+     */
+    protected void drawInstanced(int instances) {
+        if (Renderer.PROFILE) Profiler.draw((long) indicesCount * instances);
+
+        int type = quads ? QuadIndexBuffer.type() : indexType;
+        if (drawMode.strip) Renderer.gl.primitiveRestart(true, restartIndex(type));
+        Renderer.gl.drawElementsInstanced(drawMode.gl, indicesCount, type, indicesOffset, instances, baseVertex);
+        if (drawMode.strip) Renderer.gl.primitiveRestart(false, 0);
+    }
+
+    private static int restartIndex(int type) {
+        switch (type) {
+            case GL_UNSIGNED_BYTE:
+                return 0xFF;
+            case GL_UNSIGNED_SHORT:
+                return 0xFFFF;
+            default:
+                return RESTART;
+        }
+    }
+
+    /**
+     * Sets the name of the profiler scope of this mesh.
+     *
+     * @param name The name, {@code Mesh} followed by the vertex array object by default.
+     * @return This mesh.
+     */
+    public Mesh setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Gets the name of the profiler scope of this mesh.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the vertex array object.
+     *
+     * @return The vertex array object.
+     */
+    int getVAO() {
+        return vao;
+    }
+
+    /**
+     * Gets the draw mode.
+     *
+     * @return The draw mode.
+     */
+    public DrawMode getDrawMode() {
+        return drawMode;
+    }
+
+    /**
+     * Gets the upload mode the mesh was created with, {@link UploadMode#Streaming} even if it fell back to
+     * {@link UploadMode#Dynamic}.
+     *
+     * @return The upload mode.
+     */
+    public UploadMode getUploadMode() {
+        return uploadMode;
+    }
+
+    /**
+     * Gets the vertex attributes, the returned array must not be modified.
+     *
+     * @return The vertex attributes.
+     */
+    Attrib[] getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Gets the number of vertices written.
+     *
+     * @return The number of vertices.
+     */
+    public int getVertexCount() {
+        return vertexI;
+    }
+
+    /**
+     * Gets the number of indices written.
+     *
+     * @return The number of indices.
+     */
+    public int getIndicesCount() {
+        return indicesCount;
+    }
+
+    /**
+     * Stops building without uploading, for meshes whose geometry was consumed by {@link #append(Mesh)}.
+     */
+    void finish() {
+        building = false;
+    }
+
+    /**
+     * Checks whether the mesh is between {@link #begin()} and {@link #end()}.
+     *
+     * @return True if the mesh is building.
+     */
+    public boolean isBuilding() {
+        return building;
+    }
+
     /**
      * Shader vertex attributes.
      */
@@ -342,14 +1215,35 @@ public class Mesh implements IMesh {
         Float(1, GLType.Float, false),
         Vec2(2, GLType.Float, false),
         Vec3(3, GLType.Float, false),
-        Vec4(4, GLType.Float, false);
+        Vec4(4, GLType.Float, false),
+
+        /**
+         * Normalized rgba color in 4 bytes, written with {@link Mesh#color8(IColor)}.
+         */
+        Color8(4, GLType.UByte, true),
+        /**
+         * Half float 2d vector, written with {@link Mesh#half2(double, double)}.
+         */
+        HalfVec2(2, GLType.Half, false),
+        /**
+         * Half float 4d vector, written with {@link Mesh#half4(double, double, double, double)}.
+         */
+        HalfVec4(4, GLType.Half, false),
+        /**
+         * Normalized unsigned short 2d vector for texture coordinates, written with {@link Mesh#unorm16(double, double)}.
+         */
+        UNorm16Vec2(2, GLType.UShort, true),
+        /**
+         * Normalized signed 10 bit normal in 4 bytes, written with {@link Mesh#normal(double, double, double)}.
+         */
+        Normal(4, GLType.Int2101010Rev, true);
 
         public final int count, size, glEnum;
         public final boolean normalize;
 
         Attrib(int count, GLType type, boolean normalize) {
             this.count = count;
-            this.size = count * type.size;
+            this.size = type.packed ? type.size : count * type.size;
             this.glEnum = type.glEnum;
             this.normalize = normalize;
         }
@@ -365,28 +1259,79 @@ public class Mesh implements IMesh {
             Int(4, GL_INT),
             UInt(4, GL_UNSIGNED_INT),
             Float(4, GL_FLOAT),
-            Double(8, GL_DOUBLE);
+            Double(8, GL_DOUBLE),
+            Half(2, GL_HALF_FLOAT),
+            Int2101010Rev(4, GL_INT_2_10_10_10_REV, true);
             public final int size, glEnum;
+            public final boolean packed;
 
             GLType(int size, int glEnum) {
+                this(size, glEnum, false);
+            }
+
+            /**
+             * @param packed Whether all components are packed into a single value of the size.
+             */
+            GLType(int size, int glEnum, boolean packed) {
                 this.size = size;
                 this.glEnum = glEnum;
+                this.packed = packed;
             }
         }
     }
 
+    /**
+     * Vertex upload strategies.
+     */
+    public enum UploadMode {
+        /**
+         * Vertices are built in native memory and copied into a re-specified buffer on {@link #end()}.
+         */
+        Dynamic,
+        /**
+         * Vertices are written straight into a persistently mapped ring buffer, {@link #end()} does not copy.
+         * Requires OpenGL 4.4 or ARB_buffer_storage.
+         */
+        Streaming,
+        /**
+         * Vertices are uploaded once as static data and can then be patched in place with {@link #edit()},
+         * only the written ranges are uploaded again.
+         */
+        Retained,
+        /**
+         * Vertices stay in native memory and are never uploaded. Offline meshes do not touch OpenGL,
+         * so they can be built on any thread and then be merged into another mesh with {@link #append(Mesh)}.
+         */
+        Offline
+    }
+
     /**
      * OpenGL draw modes.
      */
     public enum DrawMode {
-        Lines(GL_LINES, 2),
-        Triangles(GL_TRIANGLES, 3);
+        Lines(GL_LINES, 2, false),
+        Triangles(GL_TRIANGLES, 3, false),
+        /**
+         * Triangles written only with {@link Mesh#quad(int, int, int, int)}, every quad using the next four vertices.
+         * No indices are written, all quad meshes draw from the shared {@link QuadIndexBuffer}.
+         */
+        Quads(GL_TRIANGLES, 6, false),
+        /**
+         * Connected lines written with {@link Mesh#index(int)}, {@link Mesh#restart()} starts a new strip.
+         */
+        LineStrip(GL_LINE_STRIP, 1, true),
+        /**
+         * Connected triangles written with {@link Mesh#index(int)}, {@link Mesh#restart()} starts a new strip.
+         */
+        TriangleStrip(GL_TRIANGLE_STRIP, 1, true);
 
         public final int gl, indicesCount;
+        public final boolean strip;
 
-        DrawMode(int gl, int indicesCount) {
+        DrawMode(int gl, int indicesCount, boolean strip) {
             this.gl = gl;
             this.indicesCount = indicesCount;
+            this.strip = strip;
         }
     }
 }
@@ -0,0 +1,155 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.renderer.interfaces.IShader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merges the geometry of many small {@link ShaderMesh}es into shared pages and draws every page with a single call.
+ * Meshes are merged when they have the same shader, draw mode and attributes.
+ * Groups are drawn in the order they were first used.
+ */
+public class MeshBatcher implements IDisposable {
+    private final List<Group> groups = new ArrayList<>();
+    private final int pageVertices;
+    private Metrics metrics;
+    private int meshes;
+
+    /**
+     * Creates a new batcher.
+     *
+     * @param pageVertices The number of vertices after which a new page is started.
+     */
+    public MeshBatcher(int pageVertices) {
+        this.pageVertices = pageVertices;
+    }
+
+    /**
+     * Creates a new batcher with pages of 65535 vertices, the most that still use 16-bit indices.
+     */
+    public MeshBatcher() {
+        this(65535);
+    }
+
+    /**
+     * Sets the hook that receives the batching results of every flush.
+     *
+     * @param metrics The metrics hook, or null.
+     */
+    public void setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Copies the geometry of a mesh into its batch.
+     * A mesh that is still building is finished without being uploaded.
+     *
+     * @param mesh The mesh.
+     */
+    public void add(ShaderMesh mesh) {
+        if (mesh.getIndicesCount() == 0) {
+            if (mesh.isBuilding()) mesh.finish();
+            return;
+        }
+
+        Group group = group(mesh.shader, mesh.getDrawMode(), mesh.getAttributes());
+        ShaderMesh page = group.page(mesh.getVertexCount());
+
+        page.append(mesh);
+        if (mesh.isBuilding()) mesh.finish();
+
+        meshes++;
+    }
+
+    private Group group(IShader shader, Mesh.DrawMode drawMode, Mesh.Attrib[] attributes) {
+        for (int i = 0; i < groups.size(); i++) {
+            Group group = groups.get(i);
+            if (group.shader == shader && group.drawMode == drawMode && Arrays.equals(group.attributes, attributes))
+                return group;
+        }
+
+        Group group = new Group(shader, drawMode, attributes);
+        groups.add(group);
+        return group;
+    }
+
+    /**
+     * Uploads and draws every page that received geometry since the last flush.
+     */
+    public void flush() {
+        int batches = 0;
+
+        for (int i = 0; i < groups.size(); i++) {
+            batches += groups.get(i).flush();
+        }
+
+        if (metrics != null) metrics.onFlush(batches, meshes - batches);
+        meshes = 0;
+    }
+
+    @Override
+    public void dispose() {
+        for (Group group : groups) {
+            for (ShaderMesh page : group.pages) page.dispose();
+        }
+
+        groups.clear();
+    }
+
+    /**
+     * Receives the results of a {@link #flush()}.
+     */
+    @FunctionalInterface
+    public interface Metrics {
+        /**
+         * Called after every flush.
+         *
+         * @param batches    The number of draw calls issued.
+         * @param drawsSaved The number of draw calls the added meshes would have issued on their own minus the batches.
+         */
+        void onFlush(int batches, int drawsSaved);
+    }
+
+    private class Group {
+        private final IShader shader;
+        private final Mesh.DrawMode drawMode;
+        private final Mesh.Attrib[] attributes;
+        private final List<ShaderMesh> pages = new ArrayList<>();
+        private int used;
+
+        private Group(IShader shader, Mesh.DrawMode drawMode, Mesh.Attrib[] attributes) {
+            this.shader = shader;
+            this.drawMode = drawMode;
+            this.attributes = attributes;
+        }
+
+        /**
+         * Gets the page the next mesh goes into, starting a new one when the current page is full.
+         */
+        private ShaderMesh page(int vertices) {
+            if (used > 0) {
+                ShaderMesh page = pages.get(used - 1);
+                if (page.getVertexCount() + vertices <= pageVertices || page.getVertexCount() == 0) return page;
+            }
+
+            if (used == pages.size()) pages.add(new ShaderMesh(shader, drawMode, attributes));
+
+            ShaderMesh page = pages.get(used++);
+            page.begin();
+            return page;
+        }
+
+        private int flush() {
+            for (int i = 0; i < used; i++) {
+                pages.get(i).render();
+            }
+
+            int batches = used;
+            used = 0;
+            return batches;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.renderer.interfaces.IShader;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recycles meshes with the same shader, draw mode, upload mode and attributes, keeping their grown native buffers and
+ * OpenGL objects alive between uses. Released meshes are disposed least recently released first once
+ * their native memory exceeds the budget.
+ */
+public class MeshPool implements IDisposable {
+    private final Map<Key, ArrayDeque<Mesh>> free = new HashMap<>();
+    private final LinkedHashMap<Mesh, ArrayDeque<Mesh>> idle = new LinkedHashMap<>();
+    private final Key lookup = new Key();
+    private long budget;
+    private long retainedBytes;
+    private long hits, misses;
+
+    /**
+     * Creates a new mesh pool.
+     *
+     * @param budget The maximum native memory of released meshes in bytes.
+     */
+    public MeshPool(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Gets a mesh, reusing a released one if possible.
+     *
+     * @param drawMode   The draw shape.
+     * @param attributes The shader attributes.
+     * @return The mesh, not building.
+     */
+    public Mesh acquire(Mesh.DrawMode drawMode, Mesh.Attrib... attributes) {
+        return acquire(drawMode, Mesh.UploadMode.Dynamic, attributes);
+    }
+
+    /**
+     * Gets a mesh, reusing a released one with the same upload mode if possible.
+     *
+     * @param drawMode   The draw shape.
+     * @param uploadMode The way vertices are uploaded.
+     * @param attributes The shader attributes.
+     * @return The mesh, not building.
+     */
+    public Mesh acquire(Mesh.DrawMode drawMode, Mesh.UploadMode uploadMode, Mesh.Attrib... attributes) {
+        Mesh mesh = take(lookup.set(null, drawMode, uploadMode, attributes));
+        return mesh != null ? mesh : new Mesh(drawMode, uploadMode, attributes);
+    }
+
+    /**
+     * Gets a shader mesh, reusing a released one if possible.
+     *
+     * @param shader     The shader.
+     * @param drawMode   The draw shape.
+     * @param attributes The shader attributes.
+     * @return The mesh, not building.
+     */
+    public ShaderMesh acquire(IShader shader, Mesh.DrawMode drawMode, Mesh.Attrib... attributes) {
+        return acquire(shader, drawMode, Mesh.UploadMode.Dynamic, attributes);
+    }
+
+    /**
+     * Gets a shader mesh, reusing a released one with the same upload mode if possible.
+     *
+     * @param shader     The shader.
+     * @param drawMode   The draw shape.
+     * @param uploadMode The way vertices are uploaded.
+     * @param attributes The shader attributes.
+     * @return The mesh, not building.
+     */
+    public ShaderMesh acquire(IShader shader, Mesh.DrawMode drawMode, Mesh.UploadMode uploadMode, Mesh.Attrib... attributes) {
+        Mesh mesh = take(lookup.set(shader, drawMode, uploadMode, attributes));
+        return mesh != null ? (ShaderMesh) mesh : new ShaderMesh(shader, drawMode, uploadMode, attributes);
+    }
+
+    private Mesh take(Key key) {
+        ArrayDeque<Mesh> meshes = free.get(key);
+
+        if (meshes == null) {
+            misses++;
+            return null;
+        }
+
+        Mesh mesh = meshes.pollLast();
+        if (meshes.isEmpty()) free.remove(key);
+
+        idle.remove(mesh);
+        retainedBytes -= mesh.getCapacityBytes();
+        hits++;
+        return mesh;
+    }
+
+    /**
+     * Returns a mesh obtained from {@link #acquire} to the pool. A mesh that is still building is finished.
+     *
+     * @param mesh The mesh.
+     * @throws IllegalStateException If the mesh was already released and not acquired again.
+     */
+    public void release(Mesh mesh) {
+        if (idle.containsKey(mesh)) throw new IllegalStateException("MeshPool.release() called with a mesh that is already released.");
+        if (mesh.isBuilding()) mesh.finish();
+
+        ArrayDeque<Mesh> meshes = free.get(key(mesh));
+        if (meshes == null) {
+            meshes = new ArrayDeque<>();
+            free.put(key(mesh, new Key()), meshes);
+        }
+
+        meshes.addLast(mesh);
+        idle.put(mesh, meshes);
+        retainedBytes += mesh.getCapacityBytes();
+
+        trim(budget);
+    }
+
+    /**
+     * Disposes released meshes, least recently released first, until their native memory fits into the budget.
+     *
+     * @param budget The maximum native memory of released meshes in bytes.
+     */
+    public void trim(long budget) {
+        Iterator<Map.Entry<Mesh, ArrayDeque<Mesh>>> it = idle.entrySet().iterator();
+
+        while (retainedBytes > budget && it.hasNext()) {
+            Map.Entry<Mesh, ArrayDeque<Mesh>> entry = it.next();
+            Mesh mesh = entry.getKey();
+
+            // The least recently released mesh of a key is always the first one in its deque
+            ArrayDeque<Mesh> meshes = entry.getValue();
+            meshes.pollFirst();
+            if (meshes.isEmpty()) free.remove(key(mesh));
+            it.remove();
+
+            retainedBytes -= mesh.getCapacityBytes();
+            mesh.dispose();
+        }
+    }
+
+    /**
+     * Sets the budget and trims the pool to it.
+     *
+     * @param budget The maximum native memory of released meshes in bytes.
+     */
+    public void setBudget(long budget) {
+        this.budget = budget;
+        trim(budget);
+    }
+
+    @Override
+    public void dispose() {
+        trim(-1);
+        free.clear();
+    }
+
+    /**
+     * Gets the number of acquires served by a released mesh.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of acquires that had to create a new mesh.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the native memory held by released meshes.
+     *
+     * @return The retained bytes.
+     */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Gets the number of released meshes waiting to be reused.
+     *
+     * @return The number of idle meshes.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Gets the number of keys with released meshes.
+     *
+     * @return The number of keys.
+     */
+    int getKeyCount() {
+        return free.size();
+    }
+
+    private Key key(Mesh mesh) {
+        return key(mesh, lookup);
+    }
+
+    private static Key key(Mesh mesh, Key key) {
+        IShader shader = mesh instanceof ShaderMesh ? ((ShaderMesh) mesh).shader : null;
+        return key.set(shader, mesh.getDrawMode(), mesh.getUploadMode(), mesh.getAttributes());
+    }
+
+    private static final class Key {
+        private IShader shader;
+        private Mesh.DrawMode drawMode;
+        private Mesh.UploadMode uploadMode;
+        private Mesh.Attrib[] attributes;
+        private int hash;
+
+        private Key set(IShader shader, Mesh.DrawMode drawMode, Mesh.UploadMode uploadMode, Mesh.Attrib[] attributes) {
+            this.shader = shader;
+            this.drawMode = drawMode;
+            this.uploadMode = uploadMode;
+            this.attributes = attributes;
+            this.hash = ((System.identityHashCode(shader) * 31 + drawMode.hashCode()) * 31 + uploadMode.hashCode()) * 31 + Arrays.hashCode(attributes);
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+
+            Key key = (Key) o;
+            return shader == key.shader && drawMode == key.drawMode && uploadMode == key.uploadMode && Arrays.equals(attributes, key.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
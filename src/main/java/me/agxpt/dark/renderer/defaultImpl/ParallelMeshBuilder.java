@@ -0,0 +1,113 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Builds the geometry of a mesh on several threads.
+ * Every part is written into its own {@link Mesh.UploadMode#Offline} arena with the usual {@link Mesh} methods,
+ * the arenas are then appended to the target mesh in part order and uploaded once on the calling thread.
+ */
+public class ParallelMeshBuilder implements IDisposable {
+    private final ExecutorService executor;
+    private final Mesh.DrawMode drawMode;
+    private final Mesh.Attrib[] attributes;
+    private final List<Mesh> arenas = new ArrayList<>();
+    private final List<Callable<Void>> parts = new ArrayList<>();
+    private volatile Task task;
+
+    /**
+     * Creates a new parallel builder.
+     *
+     * @param executor   The executor the parts are built on.
+     * @param drawMode   The draw shape of the target meshes.
+     * @param attributes The shader attributes of the target meshes.
+     */
+    public ParallelMeshBuilder(ExecutorService executor, Mesh.DrawMode drawMode, Mesh.Attrib... attributes) {
+        this.executor = executor;
+        this.drawMode = drawMode;
+        this.attributes = attributes;
+    }
+
+    /**
+     * Creates a new parallel builder running on the common fork join pool.
+     *
+     * @param drawMode   The draw shape of the target meshes.
+     * @param attributes The shader attributes of the target meshes.
+     */
+    public ParallelMeshBuilder(Mesh.DrawMode drawMode, Mesh.Attrib... attributes) {
+        this(ForkJoinPool.commonPool(), drawMode, attributes);
+    }
+
+    /**
+     * Builds all parts in parallel and replaces the geometry of the target with them.
+     * Must be called on the thread that owns the OpenGL context.
+     *
+     * @param target The mesh to build, must not be building.
+     * @param count  The number of parts.
+     * @param task   Builds a single part, vertex indices start at 0 in every part.
+     */
+    public void build(Mesh target, int count, Task task) {
+        while (arenas.size() < count) {
+            Mesh arena = new Mesh(drawMode, Mesh.UploadMode.Offline, attributes);
+            int part = arenas.size();
+
+            arenas.add(arena);
+            parts.add(() -> {
+                arena.begin();
+                try {
+                    this.task.build(arena, part);
+                } finally {
+                    arena.end();
+                }
+                return null;
+            });
+        }
+
+        this.task = task;
+
+        try {
+            for (Future<Void> future : executor.invokeAll(parts.subList(0, count))) future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building mesh parts.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error building mesh part.", e.getCause());
+        } finally {
+            this.task = null;
+        }
+
+        target.begin();
+        for (int i = 0; i < count; i++) target.append(arenas.get(i));
+        target.end();
+    }
+
+    @Override
+    public void dispose() {
+        for (Mesh arena : arenas) arena.dispose();
+
+        arenas.clear();
+        parts.clear();
+    }
+
+    /**
+     * Builds one part of a mesh.
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * Writes the geometry of a part.
+         *
+         * @param arena The mesh to write into, already begun.
+         * @param part  The index of the part.
+         */
+        void build(Mesh arena, int part);
+    }
+}
@@ -0,0 +1,175 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IM4f;
+import me.agxpt.dark.common.types.IV2d;
+import me.agxpt.dark.renderer.Renderer;
+import me.agxpt.dark.renderer.interfaces.IShader;
+import me.agxpt.dark.renderer.interfaces.ITexture;
+import me.agxpt.dark.renderer.interfaces.UniformHandle;
+
+/**
+ * A shader submitted to a {@link ShaderCompiler}.
+ * Every method waits for the shader to finish compiling, so check {@link #isReady()} first to avoid blocking.
+ */
+public class PendingShader implements IShader {
+    private final ShaderCompiler compiler;
+    private final int program;
+    private final String key;
+    private final long start;
+    private int vert, frag;
+    private Shader shader;
+    private RuntimeException error;
+
+    PendingShader(ShaderCompiler compiler, int program, int vert, int frag, String key, long start) {
+        this.compiler = compiler;
+        this.program = program;
+        this.vert = vert;
+        this.frag = frag;
+        this.key = key;
+        this.start = start;
+    }
+
+    /**
+     * Checks if the shader can be used without blocking.
+     *
+     * @return True if the shader finished compiling, successfully or not.
+     */
+    public boolean isReady() {
+        return shader != null || error != null || compiler.isComplete(program);
+    }
+
+    /**
+     * Gets the compiled shader, waiting for the driver if needed.
+     *
+     * @return The shader.
+     * @throws RuntimeException If compiling or linking failed.
+     */
+    public Shader get() {
+        if (shader == null && error == null) resolve(false);
+        if (error != null) throw error;
+
+        return shader;
+    }
+
+    void resolve(boolean cached) {
+        if (!cached) {
+            boolean linked = compiler.finish(this, program, key);
+            if (!linked) error = new RuntimeException(ShaderCompiler.error(program, vert, frag));
+
+            Renderer.gl.detachShader(program, vert);
+            Renderer.gl.deleteShader(vert);
+
+            Renderer.gl.detachShader(program, frag);
+            Renderer.gl.deleteShader(frag);
+
+            vert = frag = 0;
+
+            if (!linked) {
+                Renderer.gl.deleteProgram(program);
+                return;
+            }
+
+            if (Renderer.DEBUG) Shader.validateProgram(program);
+        }
+
+        shader = new Shader(program, cached, System.nanoTime() - start);
+    }
+
+    @Override
+    public void dispose() {
+        if (shader != null) {
+            // Forget the shader so disposing again does not delete the program a second time
+            shader.dispose();
+            shader = null;
+            error = new RuntimeException("Shader was disposed.");
+        } else if (error == null) {
+            compiler.cancel(this);
+
+            Renderer.gl.deleteShader(vert);
+            Renderer.gl.deleteShader(frag);
+            Renderer.gl.deleteProgram(program);
+
+            error = new RuntimeException("Shader was disposed before it finished compiling.");
+        }
+    }
+
+    @Override
+    public void bind() {
+        get().bind();
+    }
+
+    @Override
+    public UniformHandle uniform(String name) {
+        return get().uniform(name);
+    }
+
+    @Override
+    public void set(String name, int v) {
+        get().set(name, v);
+    }
+
+    @Override
+    public void set(String name, double v) {
+        get().set(name, v);
+    }
+
+    @Override
+    public void set(String name, double x, double y) {
+        get().set(name, x, y);
+    }
+
+    @Override
+    public void set(String name, IV2d v) {
+        get().set(name, v);
+    }
+
+    @Override
+    public void set(String name, IM4f mat) {
+        get().set(name, mat);
+    }
+
+    @Override
+    public void set(String name, ITexture texture) {
+        get().set(name, texture);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, int v) {
+        get().set(uniform, v);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, double v) {
+        get().set(uniform, v);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, double x, double y) {
+        get().set(uniform, x, y);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, IV2d v) {
+        get().set(uniform, v);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, IM4f mat) {
+        get().set(uniform, mat);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, ITexture texture) {
+        get().set(uniform, texture);
+    }
+
+    @Override
+    public void setBlock(String name, int binding) {
+        get().setBlock(name, binding);
+    }
+
+    @Override
+    public void setDefaults() {
+        get().setDefaults();
+    }
+}
@@ -0,0 +1,414 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL33C.*;
+
+/**
+ * Measures GPU and CPU time of named scopes together with the draw calls, indices and bytes uploaded inside them.
+ * GPU time comes from {@code GL_TIMESTAMP} queries that are read after {@link #LATENCY} more frames, so the profiler never
+ * waits for the GPU. The renderer only calls into the profiler behind {@link Renderer#PROFILE}, which is constant,
+ * so without the {@code dark.renderer.profile} system property the calls are removed by the JIT.
+ * Must only be used on the thread that owns the OpenGL context.
+ */
+public class Profiler {
+    /**
+     * The number of frames recorded after a frame before its queries are read.
+     */
+    public static final int LATENCY = 2;
+
+    /**
+     * The number of frames kept in the history of every scope.
+     */
+    public static final int HISTORY = 120;
+
+    private static final Frame[] frames = new Frame[LATENCY + 1];
+    private static final Map<String, float[]> gpuHistory = new HashMap<>();
+    private static final Map<String, float[]> cpuHistory = new HashMap<>();
+    private static Frame current;
+    private static int frame = -1;
+    private static int resolved = -1;
+    private static Scope last;
+    private static boolean drawScopes;
+    private static String shader;
+
+    static {
+        for (int i = 0; i < frames.length; i++) frames[i] = new Frame();
+    }
+
+    /**
+     * Starts recording a frame, reading the queries of the frame recorded {@link #LATENCY} + 1 frames ago.
+     */
+    public static void beginFrame() {
+        if (current != null) endFrame();
+
+        frame++;
+        current = frames[frame % frames.length];
+
+        // The slot about to be reused holds the oldest frame, LATENCY frames were recorded since it ended
+        if (current.count > 0) {
+            last = current.resolve();
+            resolved = current.number;
+            record(last, "");
+        }
+
+        current.reset();
+        current.number = frame;
+        push("Frame");
+    }
+
+    /**
+     * Stops recording the current frame.
+     */
+    public static void endFrame() {
+        if (current == null) return;
+
+        while (current.depth > 0) pop();
+        current = null;
+    }
+
+    /**
+     * Opens a scope inside the current scope.
+     *
+     * @param name The name of the scope.
+     */
+    public static void push(String name) {
+        if (current == null) return;
+
+        current.push(name);
+    }
+
+    /**
+     * Closes the innermost open scope.
+     */
+    public static void pop() {
+        if (current == null || current.depth == 0) return;
+
+        current.pop();
+    }
+
+    /**
+     * Counts a draw call in the current scope.
+     *
+     * @param indices The number of indices drawn.
+     */
+    public static void draw(long indices) {
+        if (current == null || current.depth == 0) return;
+
+        Node node = current.nodes.get(current.stack[current.depth - 1]);
+        // A scope drawing with several shaders has no single one to blame
+        if (node.draws == 0) node.shader = shader;
+        else if (node.shader != null && !node.shader.equals(shader)) node.shader = null;
+
+        node.draws++;
+        node.indices += indices;
+    }
+
+    /**
+     * Tags the following draw calls with a shader, called by {@link Shader#bind()}.
+     *
+     * @param name The name of the bound shader.
+     */
+    public static void shader(String name) {
+        shader = name;
+    }
+
+    /**
+     * Counts uploaded bytes in the current scope.
+     *
+     * @param bytes The number of bytes uploaded.
+     */
+    public static void upload(long bytes) {
+        if (current == null || current.depth == 0) return;
+
+        current.nodes.get(current.stack[current.depth - 1]).bytes += bytes;
+    }
+
+    /**
+     * Sets whether every rendered mesh gets its own scope, named after {@link Mesh#setName(String)}.
+     * Costs two queries per draw call.
+     *
+     * @param drawScopes True to profile every mesh separately.
+     */
+    public static void setDrawScopes(boolean drawScopes) {
+        Profiler.drawScopes = drawScopes;
+    }
+
+    /**
+     * Checks whether every rendered mesh gets its own scope.
+     *
+     * @return True if meshes are profiled separately.
+     */
+    public static boolean isDrawScopes() {
+        return drawScopes;
+    }
+
+    /**
+     * Deletes the queries and forgets all recorded frames.
+     */
+    public static void dispose() {
+        for (Frame f : frames) {
+            for (int query : f.queries) Renderer.gl.deleteQuery(query);
+
+            f.queries = new int[0];
+            f.reset();
+        }
+
+        current = null;
+        last = null;
+        shader = null;
+        gpuHistory.clear();
+        cpuHistory.clear();
+    }
+
+    /**
+     * Gets the most recent frame whose queries were read.
+     *
+     * @return The root scope of the frame, null until {@link #LATENCY} frames were recorded.
+     */
+    public static Scope getLastFrame() {
+        return last;
+    }
+
+    /**
+     * Sums the GPU time of the last frame by shader, over the innermost scopes that drew with a single shader.
+     * With {@link #setDrawScopes(boolean)} every draw call is attributed to its shader.
+     *
+     * @return The GPU times in milliseconds by shader name, empty until a frame was read.
+     */
+    public static Map<String, Double> getShaderTimes() {
+        Map<String, Double> times = new HashMap<>();
+        if (last != null) shaderTimes(last, times);
+        return times;
+    }
+
+    private static void shaderTimes(Scope scope, Map<String, Double> times) {
+        if (scope.children.isEmpty()) {
+            if (scope.shader != null && !Double.isNaN(scope.gpuMs)) times.merge(scope.shader, scope.gpuMs, Double::sum);
+            return;
+        }
+
+        for (Scope child : scope.children) shaderTimes(child, times);
+    }
+
+    /**
+     * Gets the GPU times of a scope over the last {@link #HISTORY} frames, oldest first.
+     *
+     * @param path The scope names from the root separated by {@code /}, like {@code Frame/World}.
+     * @return The times in milliseconds, NaN for frames without the scope.
+     */
+    public static float[] getGpuHistory(String path) {
+        return ordered(gpuHistory.get(path));
+    }
+
+    /**
+     * Gets the CPU times of a scope over the last {@link #HISTORY} frames, oldest first.
+     *
+     * @param path The scope names from the root separated by {@code /}, like {@code Frame/World}.
+     * @return The times in milliseconds, NaN for frames without the scope.
+     */
+    public static float[] getCpuHistory(String path) {
+        return ordered(cpuHistory.get(path));
+    }
+
+    private static float[] ordered(float[] ring) {
+        float[] history = new float[HISTORY];
+        if (ring == null) {
+            Arrays.fill(history, Float.NaN);
+            return history;
+        }
+
+        int start = (resolved + 1) % HISTORY;
+        for (int i = 0; i < HISTORY; i++) history[i] = ring[(start + i) % HISTORY];
+        return history;
+    }
+
+    private static void record(Scope scope, String parent) {
+        String path = parent.isEmpty() ? scope.name : parent + "/" + scope.name;
+        int i = resolved % HISTORY;
+
+        // Scopes missing in a frame stay NaN, recorded scopes overwrite their slot
+        if (scope.parent == null) {
+            for (float[] ring : gpuHistory.values()) ring[i] = Float.NaN;
+            for (float[] ring : cpuHistory.values()) ring[i] = Float.NaN;
+        }
+
+        gpuHistory.computeIfAbsent(path, p -> nanRing())[i] = (float) scope.gpuMs;
+        cpuHistory.computeIfAbsent(path, p -> nanRing())[i] = (float) scope.cpuMs;
+
+        for (Scope child : scope.children) record(child, path);
+    }
+
+    private static float[] nanRing() {
+        float[] ring = new float[HISTORY];
+        Arrays.fill(ring, Float.NaN);
+        return ring;
+    }
+
+    /**
+     * Formats the last frame as a tree with a bar of the recent GPU times of every scope.
+     *
+     * @return The formatted frame, empty if no frame was read yet.
+     */
+    public static String format() {
+        StringBuilder sb = new StringBuilder();
+        if (last != null) format(sb, last, "", 0);
+        return sb.toString();
+    }
+
+    private static void format(StringBuilder sb, Scope scope, String parent, int depth) {
+        String path = parent.isEmpty() ? scope.name : parent + "/" + scope.name;
+
+        for (int i = 0; i < depth; i++) sb.append("  ");
+        sb.append(String.format("%-24s gpu %7.3f ms  cpu %7.3f ms  %5d draws  %8d indices  %9d bytes  ",
+                scope.shader != null ? scope.name + " [" + scope.shader + "]" : scope.name, scope.gpuMs, scope.cpuMs, scope.draws, scope.indices, scope.bytes));
+        histogram(sb, getGpuHistory(path), 32);
+        sb.append('\n');
+
+        for (Scope child : scope.children) format(sb, child, path, depth + 1);
+    }
+
+    private static void histogram(StringBuilder sb, float[] history, int width) {
+        final String bars = " .:-=+*#";
+
+        float max = 0;
+        for (float v : history) if (v > max) max = v;
+
+        for (int i = history.length - width; i < history.length; i++) {
+            float v = history[i];
+            sb.append(Float.isNaN(v) || max == 0 ? ' ' : bars.charAt(Math.min(bars.length() - 1, (int) (v / max * (bars.length() - 1) + 0.5f))));
+        }
+    }
+
+    /**
+     * The measurements of a scope in a single frame.
+     */
+    public static final class Scope {
+        public final String name;
+        public final Scope parent;
+        public final List<Scope> children = new ArrayList<>();
+
+        /**
+         * GPU time in milliseconds, NaN if the queries were not ready in time.
+         */
+        public double gpuMs;
+
+        /**
+         * CPU time in milliseconds.
+         */
+        public double cpuMs;
+
+        /**
+         * Draw calls, indices drawn and bytes uploaded, including child scopes.
+         */
+        public long draws, indices, bytes;
+
+        /**
+         * The name of the shader of the draw calls directly inside the scope, null if there were none or several.
+         */
+        public String shader;
+
+        private Scope(String name, Scope parent) {
+            this.name = name;
+            this.parent = parent;
+        }
+    }
+
+    private static final class Node {
+        private String name, shader;
+        private int parent;
+        private long cpuStart, cpuNanos;
+        private int queryStart, queryEnd;
+        private long draws, indices, bytes;
+    }
+
+    private static final class Frame {
+        private final List<Node> nodes = new ArrayList<>();
+        private int[] queries = new int[0];
+        private int queryCount;
+        private int count;
+        private int number;
+        private final int[] stack = new int[64];
+        private int depth;
+
+        private void reset() {
+            count = 0;
+            queryCount = 0;
+            depth = 0;
+        }
+
+        private int query() {
+            if (queryCount == queries.length) {
+                int old = queries.length;
+                queries = Arrays.copyOf(queries, Math.max(32, old * 2));
+                for (int i = old; i < queries.length; i++) queries[i] = Renderer.gl.genQuery();
+            }
+
+            int query = queries[queryCount];
+            Renderer.gl.queryCounter(query, GL_TIMESTAMP);
+            return queryCount++;
+        }
+
+        private void push(String name) {
+            if (depth == stack.length) throw new IllegalStateException("Profiler.push() called with too many open scopes.");
+
+            if (count == nodes.size()) nodes.add(new Node());
+            Node node = nodes.get(count);
+
+            node.name = name;
+            node.parent = depth > 0 ? stack[depth - 1] : -1;
+            node.draws = node.indices = node.bytes = 0;
+            node.shader = null;
+            node.queryStart = query();
+            node.cpuStart = System.nanoTime();
+
+            stack[depth++] = count++;
+        }
+
+        private void pop() {
+            Node node = nodes.get(stack[--depth]);
+
+            node.cpuNanos = System.nanoTime() - node.cpuStart;
+            node.queryEnd = query();
+
+            // Children count towards their parents
+            if (node.parent != -1) {
+                Node parent = nodes.get(node.parent);
+                parent.draws += node.draws;
+                parent.indices += node.indices;
+                parent.bytes += node.bytes;
+            }
+        }
+
+        private Scope resolve() {
+            boolean available = Renderer.gl.getQueryObjecti(queries[queryCount - 1], GL_QUERY_RESULT_AVAILABLE) != 0;
+            Scope[] scopes = new Scope[count];
+
+            for (int i = 0; i < count; i++) {
+                Node node = nodes.get(i);
+                Scope scope = new Scope(node.name, node.parent != -1 ? scopes[node.parent] : null);
+
+                // Queries finish in order, if the last one is available all of them are
+                scope.gpuMs = available
+                        ? (Renderer.gl.getQueryObjecti64(queries[node.queryEnd], GL_QUERY_RESULT) - Renderer.gl.getQueryObjecti64(queries[node.queryStart], GL_QUERY_RESULT)) / 1e6
+                        : Double.NaN;
+                scope.cpuMs = node.cpuNanos / 1e6;
+                scope.draws = node.draws;
+                scope.indices = node.indices;
+                scope.bytes = node.bytes;
+                scope.shader = node.shader;
+
+                if (scope.parent != null) scope.parent.children.add(scope);
+                scopes[i] = scope;
+            }
+
+            return scopes[0];
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.lwjgl.opengl.GLCapabilities;
+import org.lwjgl.system.MemoryStack;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import static org.lwjgl.opengl.GL41C.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Stores linked shader programs on disk with {@code glGetProgramBinary} so later launches can skip compiling.
+ * Programs are keyed by a hash of their sources and the driver, a binary the driver rejects is deleted and
+ * the shader is compiled from source again.
+ */
+public class ProgramCache {
+    private final Path directory;
+    private final boolean supported;
+    private String driver;
+    private long hits, misses, rejected;
+
+    /**
+     * Creates a new program cache.
+     *
+     * @param directory The directory the binaries are stored in, created when needed.
+     */
+    public ProgramCache(Path directory) {
+        this.directory = directory;
+
+        GLCapabilities caps = org.lwjgl.opengl.GL.getCapabilities();
+        supported = (caps.OpenGL41 || caps.GL_ARB_get_program_binary) && Renderer.gl.getInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    /**
+     * Computes the cache key of a program.
+     *
+     * @param vertexSrc   The vertex shader source.
+     * @param fragmentSrc The fragment shader source.
+     * @return The key, null if the driver can't retrieve program binaries.
+     */
+    public String key(String vertexSrc, String fragmentSrc) {
+        if (!supported) return null;
+        if (driver == null) driver = Renderer.gl.getString(GL_VENDOR) + '\0' + Renderer.gl.getString(GL_RENDERER) + '\0' + Renderer.gl.getString(GL_VERSION);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available.", e);
+        }
+
+        digest.update(driver.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(vertexSrc.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(fragmentSrc.getBytes(StandardCharsets.UTF_8));
+
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : digest.digest()) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    /**
+     * Prepares a program before linking so its binary can be retrieved afterwards.
+     *
+     * @param program The program id.
+     */
+    public void prepare(int program) {
+        if (supported) Renderer.gl.programParameter(program, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+    }
+
+    /**
+     * Loads a cached binary into a program.
+     *
+     * @param program The program id.
+     * @param key     The key from {@link #key(String, String)}.
+     * @return True if the program was loaded and linked, false if it has to be compiled from source.
+     */
+    public boolean load(int program, String key) {
+        if (key == null) return false;
+
+        Path file = directory.resolve(key + ".bin");
+        if (!Files.isRegularFile(file)) {
+            misses++;
+            return false;
+        }
+
+        ByteBuffer buffer = null;
+        try {
+            byte[] data = Files.readAllBytes(file);
+            if (data.length <= 4) throw new IOException("Truncated program binary.");
+
+            buffer = memAlloc(data.length);
+            buffer.put(data).flip();
+
+            int format = buffer.getInt(0);
+            Renderer.gl.programBinary(program, format, memSlice(buffer, 4, data.length - 4));
+        } catch (IOException e) {
+            System.err.println("Warning reading program binary " + file + ": " + e.getMessage());
+            misses++;
+            return false;
+        } finally {
+            if (buffer != null) memFree(buffer);
+        }
+
+        // Drivers reject binaries after updates or hardware changes
+        if (Renderer.gl.getProgrami(program, GL_LINK_STATUS) == 0) {
+            delete(file);
+            rejected++;
+            misses++;
+            return false;
+        }
+
+        hits++;
+        return true;
+    }
+
+    /**
+     * Stores the binary of a linked program.
+     *
+     * @param program The program id, linked after {@link #prepare(int)}.
+     * @param key     The key from {@link #key(String, String)}.
+     */
+    public void store(int program, String key) {
+        if (key == null) return;
+
+        int length = Renderer.gl.getProgrami(program, GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) return;
+
+        ByteBuffer buffer = memAlloc(4 + length);
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer format = stack.mallocInt(1);
+
+            int written = Renderer.gl.getProgramBinary(program, format, memSlice(buffer, 4, length));
+            buffer.putInt(0, format.get(0));
+
+            byte[] data = new byte[4 + written];
+            buffer.get(data);
+
+            // Write to a temporary file first so a crash never leaves a truncated binary behind
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            Files.write(tmp, data);
+            Files.move(tmp, directory.resolve(key + ".bin"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Warning writing program binary " + key + ": " + e.getMessage());
+        } finally {
+            memFree(buffer);
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Gets the number of programs loaded from the cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of programs that had to be compiled from source, including rejected binaries.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of cached binaries the driver refused to load.
+     *
+     * @return The number of rejected binaries.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+}
@@ -0,0 +1,108 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+
+import static org.lwjgl.opengl.GL15C.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * The index buffer shared by all {@link Mesh.DrawMode#Quads} meshes, holding {@code 0 1 2 2 3 0} for every quad.
+ * Grows on demand by re-specifying the same buffer object, so vertex array objects referencing it stay valid.
+ * Uses 16-bit indices up to 16384 quads. Must only be used on the thread that owns the OpenGL context.
+ */
+public class QuadIndexBuffer {
+    private static final int MAX_SHORT_QUADS = 65536 / 4;
+
+    private static int buffer;
+    private static int quads;
+    private static int type = GL_UNSIGNED_SHORT;
+
+    /**
+     * Gets the buffer object, creating an empty one on first use.
+     *
+     * @return The buffer object.
+     */
+    static int get() {
+        if (buffer == 0) buffer = Renderer.gl.genBuffer();
+        return buffer;
+    }
+
+    /**
+     * Makes sure the buffer holds indices for the specified number of quads. Binds the element array buffer,
+     * so no vertex array object may be bound.
+     *
+     * @param count The number of quads.
+     */
+    static void ensure(int count) {
+        if (count <= quads) return;
+
+        int capacity = Math.max(1024, Integer.highestOneBit(count - 1) << 1);
+        boolean shorts = capacity <= MAX_SHORT_QUADS;
+        long size = capacity * 6L * (shorts ? 2 : 4);
+
+        long data = nmemAllocChecked(size);
+        try {
+            for (int i = 0; i < capacity; i++) {
+                int v = i * 4;
+
+                if (shorts) {
+                    long p = data + i * 12L;
+                    memPutShort(p, (short) v);
+                    memPutShort(p + 2, (short) (v + 1));
+                    memPutShort(p + 4, (short) (v + 2));
+                    memPutShort(p + 6, (short) (v + 2));
+                    memPutShort(p + 8, (short) (v + 3));
+                    memPutShort(p + 10, (short) v);
+                } else {
+                    long p = data + i * 24L;
+                    memPutInt(p, v);
+                    memPutInt(p + 4, v + 1);
+                    memPutInt(p + 8, v + 2);
+                    memPutInt(p + 12, v + 2);
+                    memPutInt(p + 16, v + 3);
+                    memPutInt(p + 20, v);
+                }
+            }
+
+            Renderer.gl.bindIBO(get());
+            Renderer.gl.bufferData(GL_ELEMENT_ARRAY_BUFFER, size, data, GL_STATIC_DRAW);
+            Renderer.gl.bindIBO(0);
+
+            if (Renderer.PROFILE) Profiler.upload(size);
+        } finally {
+            nmemFree(data);
+        }
+
+        quads = capacity;
+        type = shorts ? GL_UNSIGNED_SHORT : GL_UNSIGNED_INT;
+    }
+
+    /**
+     * Gets the index type of the buffer.
+     *
+     * @return {@code GL_UNSIGNED_SHORT} or {@code GL_UNSIGNED_INT}.
+     */
+    static int type() {
+        return type;
+    }
+
+    /**
+     * Gets the number of quads the buffer holds indices for.
+     *
+     * @return The number of quads.
+     */
+    public static int getCapacity() {
+        return quads;
+    }
+
+    /**
+     * Deletes the buffer. Must only be called once all quad meshes were disposed.
+     */
+    public static void dispose() {
+        if (buffer != 0) Renderer.gl.deleteBuffer(buffer);
+
+        buffer = 0;
+        quads = 0;
+        type = GL_UNSIGNED_SHORT;
+    }
+}
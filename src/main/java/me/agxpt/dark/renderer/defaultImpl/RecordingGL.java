@@ -0,0 +1,1076 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.renderer.interfaces.IGL;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL44C.*;
+import static org.lwjgl.opengl.KHRParallelShaderCompile.GL_COMPLETION_STATUS_KHR;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Implementation of {@link IGL} that records every call into a compact binary log.
+ * Without a wrapped implementation no OpenGL context is needed and object names are made up, so the renderer can
+ * run headless. The log can be saved, loaded and replayed against another implementation, objects created in the
+ * log get new names there, uniform locations are used as recorded. Data passed by address is copied into the log.
+ * Mapped buffer ranges are backed by a staging allocation that is recorded as a {@link #bufferSubData} when unmapped,
+ * except persistent mappings, which are forwarded and whose contents are not recorded. Only {@link #texSubImage2D}
+ * reads from a bound pixel unpack buffer, the other pixel transfers assume that none is bound. Headless, shaders
+ * compile and link without errors and programs have no uniforms.
+ */
+public class RecordingGL implements IGL, IDisposable {
+    private static final int MAGIC = 0x52474C44; // DLGR
+    private static final int VERSION = 2;
+
+    private static final byte BIND_VAO = 1, BIND_VBO = 2, BIND_IBO = 3, BIND_TEXTURE = 4;
+    private static final byte DELETE_VAO = 5, DELETE_BUFFER = 6, DELETE_TEXTURE = 7;
+    private static final byte GEN_VAO = 8, GEN_BUFFER = 9, GEN_TEXTURE = 10;
+    private static final byte BUFFER_DATA = 11, BUFFER_SUB_DATA = 12;
+    private static final byte ENABLE_VERTEX_ATTRIB = 13, VERTEX_ATTRIB_POINTER = 14, VERTEX_ATTRIB_DIVISOR = 15;
+    private static final byte DRAW_ELEMENTS = 16, DRAW_ELEMENTS_INSTANCED = 17;
+    private static final byte TEX_PARAMETER = 18, PIXEL_STORE = 19, TEX_IMAGE_2D = 20, TEX_SUB_IMAGE_2D = 21;
+    private static final byte COMPRESSED_TEX_IMAGE_2D = 22, GENERATE_MIPMAP = 23;
+    private static final byte USE_PROGRAM = 24, UNIFORM_I = 25, UNIFORM_F = 26, UNIFORM_2F = 27, UNIFORM_MATRIX_4 = 28;
+    private static final byte PRIMITIVE_RESTART = 29;
+    private static final byte BIND_BUFFER = 30, TEX_STORAGE_2D = 31, TEX_SUB_IMAGE_2D_UNPACK_BUFFER = 32;
+    private static final byte BIND_BUFFER_RANGE = 33, BUFFER_STORAGE = 34, COPY_BUFFER_SUB_DATA = 35;
+    private static final byte FENCE_SYNC = 36, DELETE_SYNC = 37;
+    private static final byte CREATE_PROGRAM = 38, DELETE_PROGRAM = 39, CREATE_SHADER = 40, DELETE_SHADER = 41;
+    private static final byte SHADER_SOURCE = 42, COMPILE_SHADER = 43, ATTACH_SHADER = 44, DETACH_SHADER = 45;
+    private static final byte LINK_PROGRAM = 46, VALIDATE_PROGRAM = 47, PROGRAM_PARAMETER = 48;
+    private static final byte UNIFORM_BLOCK_BINDING = 49, PROGRAM_BINARY = 50, MAX_SHADER_COMPILER_THREADS = 51;
+    private static final byte GEN_QUERY = 52, DELETE_QUERY = 53, QUERY_COUNTER = 54;
+
+    private final IGL gl;
+    private long data;
+    private long size, capacity;
+    private int commands;
+    private int nextName = 1;
+    private int unpackAlignment = 4, unpackRowLength, unpackBuffer;
+    private long staging, stagingCapacity;
+    private int mapTarget;
+    private long mapOffset, mapSize;
+    private boolean mapForwarded;
+
+    /**
+     * Creates a new recording implementation.
+     *
+     * @param gl The implementation the calls are forwarded to, null to only record.
+     */
+    public RecordingGL(IGL gl) {
+        this.gl = gl;
+
+        capacity = 64 * 1024;
+        data = nmemAllocChecked(capacity);
+    }
+
+    /**
+     * Creates a new recording implementation that only records, without an OpenGL context.
+     */
+    public RecordingGL() {
+        this(null);
+    }
+
+    /**
+     * Forgets the recorded commands, usually at the start of a frame.
+     */
+    public void clear() {
+        size = 0;
+        commands = 0;
+    }
+
+    /**
+     * Gets the number of recorded commands.
+     *
+     * @return The number of commands.
+     */
+    public int getCommandCount() {
+        return commands;
+    }
+
+    /**
+     * Gets the size of the log.
+     *
+     * @return The size in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void dispose() {
+        nmemFree(data);
+        data = NULL;
+
+        nmemFree(staging);
+        staging = NULL;
+        stagingCapacity = 0;
+    }
+
+    // Writing
+
+    private long reserve(byte op, long bytes) {
+        long required = size + 1 + bytes;
+        if (required > capacity) {
+            capacity = Math.max(capacity * 2, required);
+            data = nmemReallocChecked(data, capacity);
+        }
+
+        long p = data + size;
+        memPutByte(p, op);
+        size = required;
+        commands++;
+        return p + 1;
+    }
+
+    private void command(byte op, int a) {
+        memPutInt(reserve(op, 4), a);
+    }
+
+    private void command(byte op, int a, int b) {
+        long p = reserve(op, 8);
+        memPutInt(p, a);
+        memPutInt(p + 4, b);
+    }
+
+    private void command(byte op, int a, int b, int c) {
+        long p = reserve(op, 12);
+        memPutInt(p, a);
+        memPutInt(p + 4, b);
+        memPutInt(p + 8, c);
+    }
+
+    private void command(byte op, long a) {
+        memPutLong(reserve(op, 8), a);
+    }
+
+    private void payload(long p, long src, long bytes) {
+        memPutLong(p, bytes);
+        if (bytes > 0) memCopy(src, p + 8, bytes);
+    }
+
+    private int name(int created) {
+        return gl != null ? created : nextName++;
+    }
+
+    @Override
+    public void bindVAO(int array) {
+        if (gl != null) gl.bindVAO(array);
+        command(BIND_VAO, array);
+    }
+
+    @Override
+    public void bindVBO(int buffer) {
+        if (gl != null) gl.bindVBO(buffer);
+        command(BIND_VBO, buffer);
+    }
+
+    @Override
+    public void bindIBO(int buffer) {
+        if (gl != null) gl.bindIBO(buffer);
+        command(BIND_IBO, buffer);
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        if (gl != null) gl.bindBuffer(target, buffer);
+        command(BIND_BUFFER, target, buffer);
+
+        if (target == GL_PIXEL_UNPACK_BUFFER) unpackBuffer = buffer;
+    }
+
+    @Override
+    public void bindBufferRange(int target, int index, int buffer, long offset, long size) {
+        if (gl != null) gl.bindBufferRange(target, index, buffer, offset, size);
+
+        long p = reserve(BIND_BUFFER_RANGE, 28);
+        memPutInt(p, target);
+        memPutInt(p + 4, index);
+        memPutInt(p + 8, buffer);
+        memPutLong(p + 12, offset);
+        memPutLong(p + 20, size);
+    }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) {
+        if (gl != null) gl.bufferStorage(target, size, flags);
+
+        long p = reserve(BUFFER_STORAGE, 16);
+        memPutInt(p, target);
+        memPutLong(p + 4, size);
+        memPutInt(p + 12, flags);
+    }
+
+    @Override
+    public boolean isBufferStorageSupported() {
+        // Headless recordings stick to plain buffers so they replay on any context
+        return gl != null && gl.isBufferStorageSupported();
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        if (gl != null) gl.copyBufferSubData(readTarget, writeTarget, readOffset, writeOffset, size);
+
+        long p = reserve(COPY_BUFFER_SUB_DATA, 32);
+        memPutInt(p, readTarget);
+        memPutInt(p + 4, writeTarget);
+        memPutLong(p + 8, readOffset);
+        memPutLong(p + 16, writeOffset);
+        memPutLong(p + 24, size);
+    }
+
+    @Override
+    public long mapBufferRange(int target, long offset, long size, int access) {
+        // Persistent mappings stay in use while drawing, so they have to be the real ones
+        if (gl != null && (access & GL_MAP_PERSISTENT_BIT) != 0) {
+            mapForwarded = true;
+            return gl.mapBufferRange(target, offset, size, access);
+        }
+
+        if (size > stagingCapacity) {
+            staging = nmemReallocChecked(staging, size);
+            stagingCapacity = size;
+        }
+
+        mapTarget = target;
+        mapOffset = offset;
+        mapSize = size;
+        return staging;
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        if (mapForwarded) {
+            mapForwarded = false;
+            return gl.unmapBuffer(target);
+        }
+
+        bufferSubData(mapTarget, mapOffset, mapSize, staging);
+        mapSize = 0;
+        return true;
+    }
+
+    @Override
+    public void bindTexture(int texture, int slot) {
+        if (gl != null) gl.bindTexture(texture, slot);
+        command(BIND_TEXTURE, texture, slot);
+    }
+
+    @Override
+    public void deleteVAO(int array) {
+        if (gl != null) gl.deleteVAO(array);
+        command(DELETE_VAO, array);
+    }
+
+    @Override
+    public void deleteBuffer(int buffer) {
+        if (gl != null) gl.deleteBuffer(buffer);
+        command(DELETE_BUFFER, buffer);
+    }
+
+    @Override
+    public void deleteTexture(int texture) {
+        if (gl != null) gl.deleteTexture(texture);
+        command(DELETE_TEXTURE, texture);
+    }
+
+    @Override
+    public int genVAO() {
+        int name = name(gl != null ? gl.genVAO() : 0);
+        command(GEN_VAO, name);
+        return name;
+    }
+
+    @Override
+    public int genBuffer() {
+        int name = name(gl != null ? gl.genBuffer() : 0);
+        command(GEN_BUFFER, name);
+        return name;
+    }
+
+    @Override
+    public int genTexture() {
+        int name = name(gl != null ? gl.genTexture() : 0);
+        command(GEN_TEXTURE, name);
+        return name;
+    }
+
+    @Override
+    public void bufferData(int target, long size, long data, int usage) {
+        if (gl != null) gl.bufferData(target, size, data, usage);
+
+        long bytes = data != NULL ? size : 0;
+        long p = reserve(BUFFER_DATA, 16 + 8 + bytes);
+        memPutInt(p, target);
+        memPutLong(p + 4, size);
+        memPutInt(p + 12, usage);
+        payload(p + 16, data, bytes);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, long size, long data) {
+        if (gl != null) gl.bufferSubData(target, offset, size, data);
+
+        long p = reserve(BUFFER_SUB_DATA, 12 + 8 + size);
+        memPutInt(p, target);
+        memPutLong(p + 4, offset);
+        payload(p + 12, data, size);
+    }
+
+    @Override
+    public long fenceSync() {
+        long sync = gl != null ? gl.fenceSync() : nextName++;
+        command(FENCE_SYNC, sync);
+        return sync;
+    }
+
+    @Override
+    public void deleteSync(long sync) {
+        if (gl != null) gl.deleteSync(sync);
+        command(DELETE_SYNC, sync);
+    }
+
+    @Override
+    public void enableVertexAttrib(int index) {
+        if (gl != null) gl.enableVertexAttrib(index);
+        command(ENABLE_VERTEX_ATTRIB, index);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+        if (gl != null) gl.vertexAttribPointer(index, size, type, normalized, stride, offset);
+
+        long p = reserve(VERTEX_ATTRIB_POINTER, 25);
+        memPutInt(p, index);
+        memPutInt(p + 4, size);
+        memPutInt(p + 8, type);
+        memPutByte(p + 12, (byte) (normalized ? 1 : 0));
+        memPutInt(p + 13, stride);
+        memPutLong(p + 17, offset);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        if (gl != null) gl.vertexAttribDivisor(index, divisor);
+        command(VERTEX_ATTRIB_DIVISOR, index, divisor);
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long offset, int baseVertex) {
+        if (gl != null) gl.drawElements(mode, count, type, offset, baseVertex);
+
+        long p = reserve(DRAW_ELEMENTS, 24);
+        memPutInt(p, mode);
+        memPutInt(p + 4, count);
+        memPutInt(p + 8, type);
+        memPutLong(p + 12, offset);
+        memPutInt(p + 20, baseVertex);
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long offset, int instances, int baseVertex) {
+        if (gl != null) gl.drawElementsInstanced(mode, count, type, offset, instances, baseVertex);
+
+        long p = reserve(DRAW_ELEMENTS_INSTANCED, 28);
+        memPutInt(p, mode);
+        memPutInt(p + 4, count);
+        memPutInt(p + 8, type);
+        memPutLong(p + 12, offset);
+        memPutInt(p + 20, instances);
+        memPutInt(p + 24, baseVertex);
+    }
+
+    @Override
+    public void primitiveRestart(boolean enabled, int index) {
+        if (gl != null) gl.primitiveRestart(enabled, index);
+        command(PRIMITIVE_RESTART, enabled ? 1 : 0, index);
+    }
+
+    @Override
+    public void texParameter(int name, int value) {
+        if (gl != null) gl.texParameter(name, value);
+        command(TEX_PARAMETER, name, value);
+    }
+
+    @Override
+    public void pixelStore(int name, int value) {
+        if (gl != null) gl.pixelStore(name, value);
+        command(PIXEL_STORE, name, value);
+
+        if (name == GL_UNPACK_ALIGNMENT) unpackAlignment = value;
+        else if (name == GL_UNPACK_ROW_LENGTH) unpackRowLength = value;
+    }
+
+    @Override
+    public void texImage2D(int level, int internalFormat, int width, int height, int format, int type, long pixels) {
+        if (gl != null) gl.texImage2D(level, internalFormat, width, height, format, type, pixels);
+
+        long bytes = pixels != NULL ? imageSize(width, height, format, type) : 0;
+        long p = reserve(TEX_IMAGE_2D, 24 + 8 + bytes);
+        memPutInt(p, level);
+        memPutInt(p + 4, internalFormat);
+        memPutInt(p + 8, width);
+        memPutInt(p + 12, height);
+        memPutInt(p + 16, format);
+        memPutInt(p + 20, type);
+        payload(p + 24, pixels, bytes);
+    }
+
+    @Override
+    public void texStorage2D(int levels, int internalFormat, int width, int height) {
+        if (gl != null) gl.texStorage2D(levels, internalFormat, width, height);
+
+        long p = reserve(TEX_STORAGE_2D, 16);
+        memPutInt(p, levels);
+        memPutInt(p + 4, internalFormat);
+        memPutInt(p + 8, width);
+        memPutInt(p + 12, height);
+    }
+
+    @Override
+    public void texSubImage2D(int level, int x, int y, int width, int height, int format, int type, long pixels) {
+        if (gl != null) gl.texSubImage2D(level, x, y, width, height, format, type, pixels);
+
+        // The pixels are an offset into the bound pixel unpack buffer, whose contents are already in the log
+        if (unpackBuffer != 0) {
+            long p = reserve(TEX_SUB_IMAGE_2D_UNPACK_BUFFER, 28 + 8);
+            memPutInt(p, level);
+            memPutInt(p + 4, x);
+            memPutInt(p + 8, y);
+            memPutInt(p + 12, width);
+            memPutInt(p + 16, height);
+            memPutInt(p + 20, format);
+            memPutInt(p + 24, type);
+            memPutLong(p + 28, pixels);
+            return;
+        }
+
+        long bytes = pixels != NULL ? imageSize(width, height, format, type) : 0;
+        long p = reserve(TEX_SUB_IMAGE_2D, 28 + 8 + bytes);
+        memPutInt(p, level);
+        memPutInt(p + 4, x);
+        memPutInt(p + 8, y);
+        memPutInt(p + 12, width);
+        memPutInt(p + 16, height);
+        memPutInt(p + 20, format);
+        memPutInt(p + 24, type);
+        payload(p + 28, pixels, bytes);
+    }
+
+    @Override
+    public void compressedTexImage2D(int level, int internalFormat, int width, int height, int size, long data) {
+        if (gl != null) gl.compressedTexImage2D(level, internalFormat, width, height, size, data);
+
+        long p = reserve(COMPRESSED_TEX_IMAGE_2D, 16 + 8 + size);
+        memPutInt(p, level);
+        memPutInt(p + 4, internalFormat);
+        memPutInt(p + 8, width);
+        memPutInt(p + 12, height);
+        payload(p + 16, data, size);
+    }
+
+    @Override
+    public void generateMipmap() {
+        if (gl != null) gl.generateMipmap();
+        command(GENERATE_MIPMAP, 0);
+    }
+
+    @Override
+    public void useProgram(int program) {
+        if (gl != null) gl.useProgram(program);
+        command(USE_PROGRAM, program);
+    }
+
+    @Override
+    public void uniform(int location, int v) {
+        if (gl != null) gl.uniform(location, v);
+        command(UNIFORM_I, location, v);
+    }
+
+    @Override
+    public void uniform(int location, float v) {
+        if (gl != null) gl.uniform(location, v);
+        command(UNIFORM_F, location, Float.floatToRawIntBits(v));
+    }
+
+    @Override
+    public void uniform(int location, float x, float y) {
+        if (gl != null) gl.uniform(location, x, y);
+
+        long p = reserve(UNIFORM_2F, 12);
+        memPutInt(p, location);
+        memPutFloat(p + 4, x);
+        memPutFloat(p + 8, y);
+    }
+
+    @Override
+    public void uniformMatrix4(int location, long matrix) {
+        if (gl != null) gl.uniformMatrix4(location, matrix);
+
+        long p = reserve(UNIFORM_MATRIX_4, 4 + 64);
+        memPutInt(p, location);
+        memCopy(matrix, p + 4, 64);
+    }
+
+    @Override
+    public int createProgram() {
+        int name = name(gl != null ? gl.createProgram() : 0);
+        command(CREATE_PROGRAM, name);
+        return name;
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+        if (gl != null) gl.deleteProgram(program);
+        command(DELETE_PROGRAM, program);
+    }
+
+    @Override
+    public int createShader(int type) {
+        int name = name(gl != null ? gl.createShader(type) : 0);
+        command(CREATE_SHADER, name, type);
+        return name;
+    }
+
+    @Override
+    public void deleteShader(int shader) {
+        if (gl != null) gl.deleteShader(shader);
+        command(DELETE_SHADER, shader);
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        if (gl != null) gl.shaderSource(shader, source);
+
+        byte[] bytes = source.toString().getBytes(StandardCharsets.UTF_8);
+        long p = reserve(SHADER_SOURCE, 4 + 8 + bytes.length);
+        memPutInt(p, shader);
+        memPutLong(p + 4, bytes.length);
+        memByteBuffer(p + 12, bytes.length).put(bytes);
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        if (gl != null) gl.compileShader(shader);
+        command(COMPILE_SHADER, shader);
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        if (gl != null) gl.attachShader(program, shader);
+        command(ATTACH_SHADER, program, shader);
+    }
+
+    @Override
+    public void detachShader(int program, int shader) {
+        if (gl != null) gl.detachShader(program, shader);
+        command(DETACH_SHADER, program, shader);
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        if (gl != null) gl.linkProgram(program);
+        command(LINK_PROGRAM, program);
+    }
+
+    @Override
+    public void validateProgram(int program) {
+        if (gl != null) gl.validateProgram(program);
+        command(VALIDATE_PROGRAM, program);
+    }
+
+    @Override
+    public void programParameter(int program, int name, int value) {
+        if (gl != null) gl.programParameter(program, name, value);
+        command(PROGRAM_PARAMETER, program, name, value);
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int index, int binding) {
+        if (gl != null) gl.uniformBlockBinding(program, index, binding);
+        command(UNIFORM_BLOCK_BINDING, program, index, binding);
+    }
+
+    @Override
+    public void programBinary(int program, int format, ByteBuffer binary) {
+        if (gl != null) gl.programBinary(program, format, binary);
+
+        long p = reserve(PROGRAM_BINARY, 8 + 8 + binary.remaining());
+        memPutInt(p, program);
+        memPutInt(p + 4, format);
+        payload(p + 8, memAddress(binary), binary.remaining());
+    }
+
+    @Override
+    public void maxShaderCompilerThreads(int count) {
+        if (gl != null) gl.maxShaderCompilerThreads(count);
+        command(MAX_SHADER_COMPILER_THREADS, count);
+    }
+
+    @Override
+    public int genQuery() {
+        int name = name(gl != null ? gl.genQuery() : 0);
+        command(GEN_QUERY, name);
+        return name;
+    }
+
+    @Override
+    public void deleteQuery(int query) {
+        if (gl != null) gl.deleteQuery(query);
+        command(DELETE_QUERY, query);
+    }
+
+    @Override
+    public void queryCounter(int query, int target) {
+        if (gl != null) gl.queryCounter(query, target);
+        command(QUERY_COUNTER, query, target);
+    }
+
+    // Queries are answered by the wrapped implementation and not recorded
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        return gl != null ? gl.clientWaitSync(sync, flags, timeout) : GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public int getInteger(int name) {
+        if (gl != null) return gl.getInteger(name);
+
+        // The largest alignment implementations require
+        return name == GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT ? 256 : 0;
+    }
+
+    @Override
+    public String getString(int name) {
+        return gl != null ? gl.getString(name) : "";
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        if (gl != null) return gl.getShaderi(shader, name);
+        return name == GL_COMPILE_STATUS || name == GL_COMPLETION_STATUS_KHR ? 1 : 0;
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader) {
+        return gl != null ? gl.getShaderInfoLog(shader) : "";
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        if (gl != null) return gl.getProgrami(program, name);
+        return name == GL_LINK_STATUS || name == GL_VALIDATE_STATUS || name == GL_COMPLETION_STATUS_KHR ? 1 : 0;
+    }
+
+    @Override
+    public String getProgramInfoLog(int program) {
+        return gl != null ? gl.getProgramInfoLog(program) : "";
+    }
+
+    @Override
+    public int getProgramBinary(int program, IntBuffer format, ByteBuffer binary) {
+        return gl != null ? gl.getProgramBinary(program, format, binary) : 0;
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return gl != null ? gl.getUniformBlockIndex(program, name) : GL_INVALID_INDEX;
+    }
+
+    @Override
+    public int getQueryObjecti(int query, int name) {
+        if (gl != null) return gl.getQueryObjecti(query, name);
+        return name == GL_QUERY_RESULT_AVAILABLE ? 1 : 0;
+    }
+
+    @Override
+    public long getQueryObjecti64(int query, int name) {
+        return gl != null ? gl.getQueryObjecti64(query, name) : 0;
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, int maxLength, IntBuffer size, IntBuffer type) {
+        return gl != null ? gl.getActiveUniform(program, index, maxLength, size, type) : "";
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return gl != null ? gl.getUniformLocation(program, name) : -1;
+    }
+
+    /**
+     * Calculates the size of the client pixel data read by a pixel transfer with the current unpack state.
+     */
+    private long imageSize(int width, int height, int format, int type) {
+        int components;
+        switch (format) {
+            case GL_RED:
+                components = 1;
+                break;
+            case GL_RG:
+                components = 2;
+                break;
+            case GL_RGB:
+                components = 3;
+                break;
+            default:
+                components = 4;
+                break;
+        }
+
+        int componentSize;
+        switch (type) {
+            case GL_FLOAT:
+                componentSize = 4;
+                break;
+            case GL_HALF_FLOAT:
+                componentSize = 2;
+                break;
+            default:
+                componentSize = 1;
+                break;
+        }
+
+        long pixel = (long) components * componentSize;
+        long row = (unpackRowLength > 0 ? unpackRowLength : width) * pixel;
+        row = (row + unpackAlignment - 1) / unpackAlignment * unpackAlignment;
+
+        return height > 0 ? row * (height - 1) + width * pixel : 0;
+    }
+
+    // Replaying
+
+    /**
+     * Issues the recorded commands on another implementation.
+     * Objects and sync objects created in the log are created again and their names translated, other names are used
+     * as recorded.
+     *
+     * @param target The implementation to replay on.
+     */
+    public void replay(IGL target) {
+        Map<Integer, Integer> vaos = new HashMap<>(), buffers = new HashMap<>(), textures = new HashMap<>();
+        Map<Integer, Integer> programs = new HashMap<>(), shaders = new HashMap<>(), queries = new HashMap<>();
+        Map<Long, Long> syncs = new HashMap<>();
+
+        long p = data, end = data + size;
+        while (p < end) {
+            byte op = memGetByte(p++);
+
+            switch (op) {
+                case BIND_VAO:
+                    target.bindVAO(vaos.getOrDefault(memGetInt(p), memGetInt(p)));
+                    p += 4;
+                    break;
+                case BIND_VBO:
+                    target.bindVBO(buffers.getOrDefault(memGetInt(p), memGetInt(p)));
+                    p += 4;
+                    break;
+                case BIND_IBO:
+                    target.bindIBO(buffers.getOrDefault(memGetInt(p), memGetInt(p)));
+                    p += 4;
+                    break;
+                case BIND_BUFFER:
+                    target.bindBuffer(memGetInt(p), buffers.getOrDefault(memGetInt(p + 4), memGetInt(p + 4)));
+                    p += 8;
+                    break;
+                case BIND_TEXTURE:
+                    target.bindTexture(textures.getOrDefault(memGetInt(p), memGetInt(p)), memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case DELETE_VAO:
+                    target.deleteVAO(remove(vaos, memGetInt(p)));
+                    p += 4;
+                    break;
+                case DELETE_BUFFER:
+                    target.deleteBuffer(remove(buffers, memGetInt(p)));
+                    p += 4;
+                    break;
+                case DELETE_TEXTURE:
+                    target.deleteTexture(remove(textures, memGetInt(p)));
+                    p += 4;
+                    break;
+                case GEN_VAO:
+                    vaos.put(memGetInt(p), target.genVAO());
+                    p += 4;
+                    break;
+                case GEN_BUFFER:
+                    buffers.put(memGetInt(p), target.genBuffer());
+                    p += 4;
+                    break;
+                case GEN_TEXTURE:
+                    textures.put(memGetInt(p), target.genTexture());
+                    p += 4;
+                    break;
+                case BUFFER_DATA: {
+                    long bytes = memGetLong(p + 16);
+                    target.bufferData(memGetInt(p), memGetLong(p + 4), bytes > 0 ? p + 24 : NULL, memGetInt(p + 12));
+                    p += 24 + bytes;
+                    break;
+                }
+                case BUFFER_SUB_DATA: {
+                    long bytes = memGetLong(p + 12);
+                    target.bufferSubData(memGetInt(p), memGetLong(p + 4), bytes, p + 20);
+                    p += 20 + bytes;
+                    break;
+                }
+                case ENABLE_VERTEX_ATTRIB:
+                    target.enableVertexAttrib(memGetInt(p));
+                    p += 4;
+                    break;
+                case VERTEX_ATTRIB_POINTER:
+                    target.vertexAttribPointer(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetByte(p + 12) != 0, memGetInt(p + 13), memGetLong(p + 17));
+                    p += 25;
+                    break;
+                case VERTEX_ATTRIB_DIVISOR:
+                    target.vertexAttribDivisor(memGetInt(p), memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case DRAW_ELEMENTS:
+                    target.drawElements(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetLong(p + 12), memGetInt(p + 20));
+                    p += 24;
+                    break;
+                case DRAW_ELEMENTS_INSTANCED:
+                    target.drawElementsInstanced(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetLong(p + 12), memGetInt(p + 20), memGetInt(p + 24));
+                    p += 28;
+                    break;
+                case PRIMITIVE_RESTART:
+                    target.primitiveRestart(memGetInt(p) != 0, memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case TEX_PARAMETER:
+                    target.texParameter(memGetInt(p), memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case PIXEL_STORE:
+                    target.pixelStore(memGetInt(p), memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case TEX_IMAGE_2D: {
+                    long bytes = memGetLong(p + 24);
+                    target.texImage2D(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetInt(p + 12), memGetInt(p + 16), memGetInt(p + 20), bytes > 0 ? p + 32 : NULL);
+                    p += 32 + bytes;
+                    break;
+                }
+                case TEX_SUB_IMAGE_2D: {
+                    long bytes = memGetLong(p + 28);
+                    target.texSubImage2D(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetInt(p + 12), memGetInt(p + 16), memGetInt(p + 20), memGetInt(p + 24), bytes > 0 ? p + 36 : NULL);
+                    p += 36 + bytes;
+                    break;
+                }
+                case TEX_STORAGE_2D:
+                    target.texStorage2D(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetInt(p + 12));
+                    p += 16;
+                    break;
+                case TEX_SUB_IMAGE_2D_UNPACK_BUFFER:
+                    target.texSubImage2D(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetInt(p + 12), memGetInt(p + 16), memGetInt(p + 20), memGetInt(p + 24), memGetLong(p + 28));
+                    p += 36;
+                    break;
+                case COMPRESSED_TEX_IMAGE_2D: {
+                    long bytes = memGetLong(p + 16);
+                    target.compressedTexImage2D(memGetInt(p), memGetInt(p + 4), memGetInt(p + 8), memGetInt(p + 12), (int) bytes, p + 24);
+                    p += 24 + bytes;
+                    break;
+                }
+                case GENERATE_MIPMAP:
+                    target.generateMipmap();
+                    p += 4;
+                    break;
+                case USE_PROGRAM:
+                    target.useProgram(programs.getOrDefault(memGetInt(p), memGetInt(p)));
+                    p += 4;
+                    break;
+                case UNIFORM_I:
+                    target.uniform(memGetInt(p), memGetInt(p + 4));
+                    p += 8;
+                    break;
+                case UNIFORM_F:
+                    target.uniform(memGetInt(p), memGetFloat(p + 4));
+                    p += 8;
+                    break;
+                case UNIFORM_2F:
+                    target.uniform(memGetInt(p), memGetFloat(p + 4), memGetFloat(p + 8));
+                    p += 12;
+                    break;
+                case UNIFORM_MATRIX_4:
+                    target.uniformMatrix4(memGetInt(p), p + 4);
+                    p += 68;
+                    break;
+                case BIND_BUFFER_RANGE:
+                    target.bindBufferRange(memGetInt(p), memGetInt(p + 4), buffers.getOrDefault(memGetInt(p + 8), memGetInt(p + 8)), memGetLong(p + 12), memGetLong(p + 20));
+                    p += 28;
+                    break;
+                case BUFFER_STORAGE:
+                    target.bufferStorage(memGetInt(p), memGetLong(p + 4), memGetInt(p + 12));
+                    p += 16;
+                    break;
+                case COPY_BUFFER_SUB_DATA:
+                    target.copyBufferSubData(memGetInt(p), memGetInt(p + 4), memGetLong(p + 8), memGetLong(p + 16), memGetLong(p + 24));
+                    p += 32;
+                    break;
+                case FENCE_SYNC:
+                    syncs.put(memGetLong(p), target.fenceSync());
+                    p += 8;
+                    break;
+                case DELETE_SYNC: {
+                    Long mapped = syncs.remove(memGetLong(p));
+                    target.deleteSync(mapped != null ? mapped : memGetLong(p));
+                    p += 8;
+                    break;
+                }
+                case CREATE_PROGRAM:
+                    programs.put(memGetInt(p), target.createProgram());
+                    p += 4;
+                    break;
+                case DELETE_PROGRAM:
+                    target.deleteProgram(remove(programs, memGetInt(p)));
+                    p += 4;
+                    break;
+                case CREATE_SHADER:
+                    shaders.put(memGetInt(p), target.createShader(memGetInt(p + 4)));
+                    p += 8;
+                    break;
+                case DELETE_SHADER:
+                    target.deleteShader(remove(shaders, memGetInt(p)));
+                    p += 4;
+                    break;
+                case SHADER_SOURCE: {
+                    int bytes = (int) memGetLong(p + 4);
+                    byte[] source = new byte[bytes];
+                    memByteBuffer(p + 12, bytes).get(source);
+                    target.shaderSource(shaders.getOrDefault(memGetInt(p), memGetInt(p)), new String(source, StandardCharsets.UTF_8));
+                    p += 12 + bytes;
+                    break;
+                }
+                case COMPILE_SHADER:
+                    target.compileShader(shaders.getOrDefault(memGetInt(p), memGetInt(p)));
+                    p += 4;
+                    break;
+                case ATTACH_SHADER:
+                    target.attachShader(programs.getOrDefault(memGetInt(p), memGetInt(p)), shaders.getOrDefault(memGetInt(p + 4), memGetInt(p + 4)));
+                    p += 8;
+                    break;
+                case DETACH_SHADER:
+                    target.detachShader(programs.getOrDefault(memGetInt(p), memGetInt(p)), shaders.getOrDefault(memGetInt(p + 4), memGetInt(p + 4)));
+                    p += 8;
+                    break;
+                case LINK_PROGRAM:
+                    target.linkProgram(programs.getOrDefault(memGetInt(p), memGetInt(p)));
+                    p += 4;
+                    break;
+                case VALIDATE_PROGRAM:
+                    target.validateProgram(programs.getOrDefault(memGetInt(p), memGetInt(p)));
+                    p += 4;
+                    break;
+                case PROGRAM_PARAMETER:
+                    target.programParameter(programs.getOrDefault(memGetInt(p), memGetInt(p)), memGetInt(p + 4), memGetInt(p + 8));
+                    p += 12;
+                    break;
+                case UNIFORM_BLOCK_BINDING:
+                    target.uniformBlockBinding(programs.getOrDefault(memGetInt(p), memGetInt(p)), memGetInt(p + 4), memGetInt(p + 8));
+                    p += 12;
+                    break;
+                case PROGRAM_BINARY: {
+                    long bytes = memGetLong(p + 8);
+                    target.programBinary(programs.getOrDefault(memGetInt(p), memGetInt(p)), memGetInt(p + 4), memByteBuffer(p + 16, (int) bytes));
+                    p += 16 + bytes;
+                    break;
+                }
+                case MAX_SHADER_COMPILER_THREADS:
+                    target.maxShaderCompilerThreads(memGetInt(p));
+                    p += 4;
+                    break;
+                case GEN_QUERY:
+                    queries.put(memGetInt(p), target.genQuery());
+                    p += 4;
+                    break;
+                case DELETE_QUERY:
+                    target.deleteQuery(remove(queries, memGetInt(p)));
+                    p += 4;
+                    break;
+                case QUERY_COUNTER:
+                    target.queryCounter(queries.getOrDefault(memGetInt(p), memGetInt(p)), memGetInt(p + 4));
+                    p += 8;
+                    break;
+                default:
+                    throw new IllegalStateException("Corrupted command log, unknown command " + op + ".");
+            }
+        }
+    }
+
+    private static int remove(Map<Integer, Integer> names, int name) {
+        Integer mapped = names.remove(name);
+        return mapped != null ? mapped : name;
+    }
+
+    // Files
+
+    /**
+     * Writes the log to a file.
+     *
+     * @param file The file.
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(commands).putLong(size).flip();
+
+            while (header.hasRemaining()) channel.write(header);
+
+            // Written in chunks since a buffer view is limited to 2 GB
+            for (long offset = 0; offset < size; offset += Integer.MAX_VALUE) {
+                ByteBuffer chunk = memByteBuffer(data + offset, (int) Math.min(Integer.MAX_VALUE, size - offset));
+                while (chunk.hasRemaining()) channel.write(chunk);
+            }
+        }
+    }
+
+    /**
+     * Reads a log written with {@link #save(Path)}. The returned instance only records.
+     *
+     * @param file The file.
+     * @return The log.
+     */
+    public static RecordingGL load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header) == -1) throw new IOException("Truncated command log.");
+            }
+            header.flip();
+
+            // Newer versions only added commands, so older logs replay as they are
+            int magic = header.getInt(), version = header.getInt();
+            if (magic != MAGIC || version < 1 || version > VERSION) throw new IOException("Not a command log or unsupported version.");
+            int commands = header.getInt();
+            long size = header.getLong();
+
+            RecordingGL log = new RecordingGL();
+            if (size > log.capacity) {
+                log.capacity = size;
+                log.data = nmemReallocChecked(log.data, size);
+            }
+
+            for (long offset = 0; offset < size; offset += Integer.MAX_VALUE) {
+                ByteBuffer chunk = memByteBuffer(log.data + offset, (int) Math.min(Integer.MAX_VALUE, size - offset));
+                while (chunk.hasRemaining()) {
+                    if (channel.read(chunk) == -1) throw new IOException("Truncated command log.");
+                }
+            }
+
+            log.size = size;
+            log.commands = commands;
+            return log;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import me.agxpt.dark.renderer.interfaces.IShader;
+import me.agxpt.dark.renderer.interfaces.ITexture;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Collects draws and submits them sorted by a 64-bit key so shader, texture and vertex array changes are minimized.
+ * <p>
+ * Key layout from the most to the least significant bits: layer (8), shader (12), texture (12), vertex array (16),
+ * depth (16). Layers are always drawn in ascending order, inside a layer draws are grouped by state.
+ * <p>
+ * The queue binds the shader and calls {@link IShader#setDefaults()} once per shader change instead of calling
+ * {@link Mesh#beforeRender()} for every draw, so state set by a {@code beforeRender()} override is not applied.
+ * Render such meshes with {@link Mesh#render()} instead. {@link Mesh#afterRender()} is still called after every draw.
+ */
+public class RenderQueue {
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int PASSES = Long.SIZE / RADIX_BITS;
+
+    private final Map<Object, Integer> ids = new IdentityHashMap<>();
+    private final int[] histogram = new int[PASSES * RADIX];
+
+    private long[] keys, keysScratch;
+    private int[] draws, drawsScratch;
+    private ShaderMesh[] meshes;
+    private ITexture[] textures;
+    private int count;
+
+    private int shaderBinds, textureBinds, vaoBinds, drawCalls;
+
+    /**
+     * Creates a new render queue.
+     *
+     * @param capacity The initial number of draws.
+     */
+    public RenderQueue(int capacity) {
+        keys = new long[capacity];
+        keysScratch = new long[capacity];
+        draws = new int[capacity];
+        drawsScratch = new int[capacity];
+        meshes = new ShaderMesh[capacity];
+        textures = new ITexture[capacity];
+    }
+
+    /**
+     * Creates a new render queue.
+     */
+    public RenderQueue() {
+        this(1024);
+    }
+
+    /**
+     * Queues a mesh without texture, see {@link #submit(ShaderMesh, ITexture, int, int)}.
+     *
+     * @param mesh  The mesh.
+     * @param layer The layer, 0 to 255.
+     */
+    public void submit(ShaderMesh mesh, int layer) {
+        submit(mesh, null, layer, 0);
+    }
+
+    /**
+     * Queues a mesh. Ends the mesh if it is still building.
+     * Its {@link Mesh#beforeRender()} is not called when the queue is flushed.
+     *
+     * @param mesh    The mesh.
+     * @param texture The texture bound to the default slot, or null.
+     * @param layer   The layer, 0 to 255.
+     * @param depth   The order inside equal state, 0 to 65535.
+     */
+    public void submit(ShaderMesh mesh, ITexture texture, int layer, int depth) {
+        if (mesh.isBuilding()) mesh.end();
+        if (mesh.getIndicesCount() == 0) return;
+
+        if (count == keys.length) grow();
+
+        long key = (long) (layer & 0xFF) << 56
+                | (long) (id(mesh.shader) & 0xFFF) << 44
+                | (long) (id(texture) & 0xFFF) << 32
+                | (long) (mesh.getVAO() & 0xFFFF) << 16
+                | depth & 0xFFFF;
+
+        keys[count] = key;
+        draws[count] = count;
+        meshes[count] = mesh;
+        textures[count] = texture;
+        count++;
+    }
+
+    /**
+     * Gets the dense id of a shader or texture for the current frame, 0 is reserved for null.
+     */
+    private int id(Object o) {
+        if (o == null) return 0;
+
+        Integer id = ids.get(o);
+        if (id == null) {
+            id = ids.size() + 1;
+            ids.put(o, id);
+        }
+
+        return id;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+
+        keys = Arrays.copyOf(keys, capacity);
+        keysScratch = new long[capacity];
+        draws = Arrays.copyOf(draws, capacity);
+        drawsScratch = new int[capacity];
+        meshes = Arrays.copyOf(meshes, capacity);
+        textures = Arrays.copyOf(textures, capacity);
+    }
+
+    /**
+     * Sorts the queued draws, issues them and clears the queue.
+     */
+    public void flush() {
+        shaderBinds = textureBinds = vaoBinds = drawCalls = 0;
+        if (count == 0) return;
+
+        sort();
+
+        IShader shader = null;
+        ITexture texture = null;
+        int vao = 0;
+
+        for (int i = 0; i < count; i++) {
+            int draw = draws[i];
+            ShaderMesh mesh = meshes[draw];
+
+            if (mesh.shader != shader) {
+                shader = mesh.shader;
+                shader.bind();
+                shader.setDefaults();
+                shaderBinds++;
+            }
+
+            if (textures[draw] != null && textures[draw] != texture) {
+                texture = textures[draw].bind();
+                textureBinds++;
+            }
+
+            if (mesh.getVAO() != vao) {
+                vao = mesh.getVAO();
+                Renderer.gl.bindVAO(vao);
+                vaoBinds++;
+            }
+
+            mesh.draw();
+            mesh.afterRender();
+            drawCalls++;
+        }
+
+        Renderer.gl.bindVAO(0);
+
+        Arrays.fill(meshes, 0, count, null);
+        Arrays.fill(textures, 0, count, null);
+        ids.clear();
+        count = 0;
+    }
+
+    /**
+     * Least significant digit radix sort of the keys together with their draw indices.
+     * Passes where every key has the same digit are skipped.
+     */
+    private void sort() {
+        Arrays.fill(histogram, 0);
+
+        for (int i = 0; i < count; i++) {
+            long key = keys[i];
+            for (int pass = 0; pass < PASSES; pass++) {
+                histogram[pass * RADIX + (int) (key >>> (pass * RADIX_BITS) & (RADIX - 1))]++;
+            }
+        }
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            int base = pass * RADIX;
+            int shift = pass * RADIX_BITS;
+
+            if (histogram[base + (int) (keys[0] >>> shift & (RADIX - 1))] == count) continue;
+
+            int offset = 0;
+            for (int digit = 0; digit < RADIX; digit++) {
+                int n = histogram[base + digit];
+                histogram[base + digit] = offset;
+                offset += n;
+            }
+
+            for (int i = 0; i < count; i++) {
+                long key = keys[i];
+                int dst = histogram[base + (int) (key >>> shift & (RADIX - 1))]++;
+
+                keysScratch[dst] = key;
+                drawsScratch[dst] = draws[i];
+            }
+
+            long[] k = keys;
+            keys = keysScratch;
+            keysScratch = k;
+
+            int[] d = draws;
+            draws = drawsScratch;
+            drawsScratch = d;
+        }
+    }
+
+    /**
+     * Gets the number of queued draws.
+     *
+     * @return The number of queued draws.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the number of shader binds issued by the last flush.
+     *
+     * @return The number of shader binds.
+     */
+    public int getShaderBinds() {
+        return shaderBinds;
+    }
+
+    /**
+     * Gets the number of texture binds issued by the last flush.
+     *
+     * @return The number of texture binds.
+     */
+    public int getTextureBinds() {
+        return textureBinds;
+    }
+
+    /**
+     * Gets the number of vertex array binds issued by the last flush.
+     *
+     * @return The number of vertex array binds.
+     */
+    public int getVAOBinds() {
+        return vaoBinds;
+    }
+
+    /**
+     * Gets the number of draw calls issued by the last flush.
+     *
+     * @return The number of draw calls.
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+}
@@ -2,37 +2,132 @@ package me.agxpt.dark.renderer.defaultImpl;
 
 import me.agxpt.dark.common.types.IM4f;
 import me.agxpt.dark.common.types.IV2d;
+import me.agxpt.dark.renderer.Renderer;
 import me.agxpt.dark.renderer.interfaces.IShader;
 import me.agxpt.dark.renderer.interfaces.ITexture;
+import me.agxpt.dark.renderer.interfaces.UniformHandle;
+import org.lwjgl.system.MemoryStack;
 
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.lwjgl.opengl.GL20C.*;
+import static org.lwjgl.opengl.GL31C.*;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+import static org.lwjgl.system.MemoryUtil.memGetInt;
 
 /**
  * Default implementation of {@link IShader}
  */
 public class Shader implements IShader {
+    private static final int SHADOW_STRIDE = 16;
+
     protected final int id;
-    protected final Map<String, Integer> uniformLocations = new HashMap<>();
+    protected final Map<String, UniformHandle> uniformHandles = new HashMap<>();
+    private UniformHandle[] uniforms = new UniformHandle[0];
+    private int[] shadow = new int[0];
+    private boolean[] shadowValid = new boolean[0];
+    private long uniformWrites, uniformUploads;
+    private final boolean cached;
+    private final long loadTime;
+    private String name;
 
     public Shader(String vertexSrc, String fragmentSrc) {
-        int vert = createShader(vertexSrc, ShaderType.Vertex);
-        int frag = createShader(fragmentSrc, ShaderType.Fragment);
+        this(vertexSrc, fragmentSrc, null);
+    }
+
+    /**
+     * Creates a new shader, loading the linked program from a cache if possible.
+     *
+     * @param vertexSrc   The vertex shader source.
+     * @param fragmentSrc The fragment shader source.
+     * @param cache       The program cache, may be null.
+     */
+    public Shader(String vertexSrc, String fragmentSrc, ProgramCache cache) {
+        long start = System.nanoTime();
+
+        id = Renderer.gl.createProgram();
+        name = "Shader " + id;
+
+        String key = cache != null ? cache.key(vertexSrc, fragmentSrc) : null;
+        cached = key != null && cache.load(id, key);
+
+        if (!cached) {
+            int vert = createShader(vertexSrc, ShaderType.Vertex);
+            int frag = createShader(fragmentSrc, ShaderType.Fragment);
+
+            Renderer.gl.attachShader(id, vert);
+            Renderer.gl.attachShader(id, frag);
+
+            if (key != null) cache.prepare(id);
+            linkProgram();
+
+            Renderer.gl.detachShader(id, vert);
+            Renderer.gl.deleteShader(vert);
+
+            Renderer.gl.detachShader(id, frag);
+            Renderer.gl.deleteShader(frag);
+
+            if (key != null) cache.store(id, key);
+        }
+
+        loadTime = System.nanoTime() - start;
 
-        id = glCreateProgram();
+        enumerateUniforms();
+    }
+
+    /**
+     * Wraps an already linked program, used by {@link ShaderCompiler}.
+     *
+     * @param id       The linked program id.
+     * @param cached   If the program was loaded from a {@link ProgramCache}.
+     * @param loadTime The time it took to compile and link or load the program in nanoseconds.
+     */
+    Shader(int id, boolean cached, long loadTime) {
+        this.id = id;
+        this.name = "Shader " + id;
+        this.cached = cached;
+        this.loadTime = loadTime;
+
+        enumerateUniforms();
+    }
+
+    /**
+     * Creates a handle for every active uniform of the linked program.
+     */
+    private void enumerateUniforms() {
+        int count = Renderer.gl.getProgrami(id, GL_ACTIVE_UNIFORMS);
+        int maxLength = Renderer.gl.getProgrami(id, GL_ACTIVE_UNIFORM_MAX_LENGTH);
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer size = stack.mallocInt(1);
+            IntBuffer type = stack.mallocInt(1);
+
+            for (int i = 0; i < count; i++) {
+                String name = Renderer.gl.getActiveUniform(id, i, maxLength, size, type);
 
-        glAttachShader(id, vert);
-        glAttachShader(id, frag);
+                // Members of uniform blocks have no location
+                int location = Renderer.gl.getUniformLocation(id, name);
+                if (location < 0) continue;
 
-        linkProgram();
+                UniformHandle handle = addUniform(name, location, type.get(0));
+                if (name.endsWith("[0]")) uniformHandles.put(name.substring(0, name.length() - 3), handle);
+            }
+        }
+    }
 
-        glDetachShader(id, vert);
-        glDeleteShader(vert);
+    private UniformHandle addUniform(String name, int location, int type) {
+        UniformHandle handle = new UniformHandle(name, uniforms.length, location, type);
 
-        glDetachShader(id, frag);
-        glDeleteShader(frag);
+        uniforms = Arrays.copyOf(uniforms, uniforms.length + 1);
+        uniforms[handle.index] = handle;
+        uniformHandles.put(name, handle);
+
+        shadowValid = Arrays.copyOf(shadowValid, uniforms.length);
+        shadow = Arrays.copyOf(shadow, uniforms.length * SHADOW_STRIDE);
+        return handle;
     }
 
     /**
@@ -43,44 +138,67 @@ public class Shader implements IShader {
      * @return The shader id.
      */
     private int createShader(String src, ShaderType type) {
-        int sid = glCreateShader(type.gl);
+        int sid = Renderer.gl.createShader(type.gl);
         if (sid == 0) {
             throw new RuntimeException("Error creating " + type.name + " shader.");
         }
 
-        glShaderSource(sid, src);
-        glCompileShader(sid);
+        Renderer.gl.shaderSource(sid, src);
+        Renderer.gl.compileShader(sid);
 
-        if (glGetShaderi(sid, GL_COMPILE_STATUS) == 0) {
-            throw new RuntimeException("Error compiling " + type.name + " shader: " + glGetShaderInfoLog(sid, 1024));
+        if (Renderer.gl.getShaderi(sid, GL_COMPILE_STATUS) == 0) {
+            throw new RuntimeException("Error compiling " + type.name + " shader: " + Renderer.gl.getShaderInfoLog(sid));
         }
 
         return sid;
     }
 
     /**
-     * Links the shader program and checks for errors.
+     * Links the shader program and checks for errors, validation only runs in debug mode.
      */
     private void linkProgram() {
-        glLinkProgram(id);
-        if (glGetProgrami(id, GL_LINK_STATUS) == 0) {
-            throw new RuntimeException("Error linking Shader code: " + glGetProgramInfoLog(id, 1024));
+        Renderer.gl.linkProgram(id);
+        if (Renderer.gl.getProgrami(id, GL_LINK_STATUS) == 0) {
+            throw new RuntimeException("Error linking Shader code: " + Renderer.gl.getProgramInfoLog(id));
         }
 
-        glValidateProgram(id);
-        if (glGetProgrami(id, GL_VALIDATE_STATUS) == 0) {
-            System.err.println("Warning validating Shader code: " + glGetProgramInfoLog(id, 1024));
+        if (Renderer.DEBUG) validateProgram(id);
+    }
+
+    /**
+     * Validates a linked program and prints a warning if it is not valid.
+     *
+     * @param id The program id.
+     */
+    static void validateProgram(int id) {
+        Renderer.gl.validateProgram(id);
+        if (Renderer.gl.getProgrami(id, GL_VALIDATE_STATUS) == 0) {
+            System.err.println("Warning validating Shader code: " + Renderer.gl.getProgramInfoLog(id));
         }
     }
 
     @Override
     public void dispose() {
-        glDeleteProgram(id);
+        Renderer.gl.deleteProgram(id);
     }
 
     @Override
     public void bind() {
-        glUseProgram(id);
+        Renderer.gl.useProgram(id);
+        if (Renderer.PROFILE) Profiler.shader(name);
+    }
+
+    @Override
+    public UniformHandle uniform(String name) {
+        UniformHandle handle = uniformHandles.get(name);
+        if (handle != null) return handle;
+
+        // Array elements past the first, e.g. u_Arr[1] or u_Lights[1].color, are not enumerated, so ask the program.
+        // Unknown names are cached as well, setting them does nothing like it would in OpenGL.
+        int location = Renderer.gl.getUniformLocation(id, name);
+        if (location < 0) System.err.println("Warning: Shader has no active uniform named " + name + ".");
+
+        return addUniform(name, location, 0);
     }
 
     /**
@@ -90,43 +208,214 @@ public class Shader implements IShader {
      * @return The location of the uniform with the specified name.
      */
     protected int getLocation(String name) {
-        if (uniformLocations.containsKey(name)) return uniformLocations.get(name);
-
-        int location = glGetUniformLocation(id, name);
-        uniformLocations.put(name, location);
-        return location;
+        return uniform(name).location;
     }
 
     @Override
     public void set(String name, int v) {
-        glUniform1i(getLocation(name), v);
+        set(uniform(name), v);
     }
 
     @Override
     public void set(String name, double v) {
-        glUniform1f(getLocation(name), (float) v);
+        set(uniform(name), v);
     }
 
     @Override
     public void set(String name, double x, double y) {
-        glUniform2f(getLocation(name), (float) x, (float) y);
+        set(uniform(name), x, y);
     }
 
     @Override
     public void set(String name, IV2d v) {
-        glUniform2f(getLocation(name), (float) v.x(), (float) v.y());
+        set(uniform(name), v.x(), v.y());
     }
 
     @Override
     public void set(String name, IM4f mat) {
-        glUniformMatrix4fv(getLocation(name), false, mat.getAsBuffer());
+        set(uniform(name), mat);
     }
 
     @Override
     public void set(String name, ITexture texture) {
-        glUniform1i(getLocation(name), texture.getSlot());
+        set(uniform(name), texture.getSlot());
+    }
+
+    @Override
+    public void set(UniformHandle uniform, int v) {
+        if (update(uniform, v, 0, 1)) Renderer.gl.uniform(uniform.location, v);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, double v) {
+        int bits = Float.floatToRawIntBits((float) v);
+        if (update(uniform, bits, 0, 1)) Renderer.gl.uniform(uniform.location, (float) v);
     }
 
+    @Override
+    public void set(UniformHandle uniform, double x, double y) {
+        int xBits = Float.floatToRawIntBits((float) x), yBits = Float.floatToRawIntBits((float) y);
+        if (update(uniform, xBits, yBits, 2)) Renderer.gl.uniform(uniform.location, (float) x, (float) y);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, IV2d v) {
+        set(uniform, v.x(), v.y());
+    }
+
+    @Override
+    public void set(UniformHandle uniform, IM4f mat) {
+        FloatBuffer buffer = mat.getAsBuffer();
+
+        // Absolute reads leave the position alone and also work for heap buffers
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            FloatBuffer matrix = stack.mallocFloat(16);
+
+            int offset = buffer.position();
+            for (int i = 0; i < 16; i++) matrix.put(i, buffer.get(offset + i));
+
+            setMatrix(uniform, memAddress(matrix));
+        }
+    }
+
+    /**
+     * Sets a 4x4 matrix uniform from native memory, used to replay matrices recorded by {@link CommandList}.
+     *
+     * @param uniform The uniform.
+     * @param matrix  The address of 16 floats in column major order.
+     */
+    void setMatrix(UniformHandle uniform, long matrix) {
+        if (update(uniform, matrix)) Renderer.gl.uniformMatrix4(uniform.location, matrix);
+    }
+
+    @Override
+    public void set(UniformHandle uniform, ITexture texture) {
+        set(uniform, texture.getSlot());
+    }
+
+    /**
+     * Compares up to two values with the last values set for a uniform and stores them if they differ.
+     *
+     * @return True if the values changed and have to be sent.
+     */
+    private boolean update(UniformHandle uniform, int x, int y, int count) {
+        uniformWrites++;
+        if (uniform.location < 0) return false;
+        if (Renderer.DEBUG) checkHandle(uniform);
+
+        int i = uniform.index * SHADOW_STRIDE;
+        if (shadowValid[uniform.index] && shadow[i] == x && (count < 2 || shadow[i + 1] == y)) return false;
+
+        shadow[i] = x;
+        shadow[i + 1] = y;
+        shadowValid[uniform.index] = true;
+        uniformUploads++;
+        return true;
+    }
+
+    /**
+     * Compares a 4x4 matrix with the last matrix set for a uniform and stores it if it differs.
+     *
+     * @return True if the matrix changed and has to be sent.
+     */
+    private boolean update(UniformHandle uniform, long mat) {
+        uniformWrites++;
+        if (uniform.location < 0) return false;
+        if (Renderer.DEBUG) checkHandle(uniform);
+
+        int i = uniform.index * SHADOW_STRIDE;
+        boolean changed = !shadowValid[uniform.index];
+
+        for (int j = 0; j < 16; j++) {
+            int bits = memGetInt(mat + j * 4L);
+            if (shadow[i + j] != bits) {
+                shadow[i + j] = bits;
+                changed = true;
+            }
+        }
+
+        if (!changed) return false;
+
+        shadowValid[uniform.index] = true;
+        uniformUploads++;
+        return true;
+    }
+
+    private void checkHandle(UniformHandle uniform) {
+        if (uniform.index >= uniforms.length || uniforms[uniform.index] != uniform) {
+            throw new IllegalArgumentException("Uniform handle " + uniform.name + " belongs to a different shader.");
+        }
+    }
+
+    /**
+     * Forgets the cached uniform values, the next set of every uniform is always sent.
+     * Needed after code outside of this class changed uniforms of the program.
+     */
+    public void invalidateUniforms() {
+        Arrays.fill(shadowValid, false);
+    }
+
+    /**
+     * Gets the number of uniform sets, including those that were skipped.
+     *
+     * @return The number of uniform writes.
+     */
+    public long getUniformWrites() {
+        return uniformWrites;
+    }
+
+    /**
+     * Gets the number of uniform sets that were sent to OpenGL because the value changed.
+     *
+     * @return The number of uniform uploads.
+     */
+    public long getUniformUploads() {
+        return uniformUploads;
+    }
+
+    /**
+     * Checks if the program was loaded from a {@link ProgramCache} instead of compiled from source.
+     *
+     * @return True if the program was loaded from the cache.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    /**
+     * Gets the time it took to compile and link or load the program.
+     *
+     * @return The load time in nanoseconds.
+     */
+    public long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * Sets the name the profiler tags draw scopes using this shader with.
+     *
+     * @param name The name, {@code Shader} followed by the program id by default.
+     * @return This shader.
+     */
+    public Shader setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    /**
+     * Gets the name the profiler tags draw scopes using this shader with.
+     *
+     * @return The name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void setBlock(String name, int binding) {
+        int index = Renderer.gl.getUniformBlockIndex(id, name);
+        if (index != GL_INVALID_INDEX) Renderer.gl.uniformBlockBinding(id, index, binding);
+    }
 
     @Override
     public void setDefaults() {
@@ -0,0 +1,178 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.renderer.Renderer;
+import org.lwjgl.opengl.GLCapabilities;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL20C.GL_COMPILE_STATUS;
+import static org.lwjgl.opengl.GL20C.GL_LINK_STATUS;
+import static org.lwjgl.opengl.KHRParallelShaderCompile.GL_COMPLETION_STATUS_KHR;
+
+/**
+ * Compiles many shaders without waiting for each of them.
+ * {@link #submit(String, String)} only issues the compile and link commands, the status is queried once the
+ * shader is needed. With {@code KHR_parallel_shader_compile} or {@code ARB_parallel_shader_compile} the driver
+ * compiles on its own threads and {@link PendingShader#isReady()} tells when a shader can be used without blocking.
+ */
+public class ShaderCompiler implements IDisposable {
+    private static final int ALL_THREADS = 0xFFFFFFFF;
+
+    private final ProgramCache cache;
+    private final boolean parallel;
+    private final List<PendingShader> pending = new ArrayList<>();
+
+    /**
+     * Creates a new shader compiler.
+     *
+     * @param cache The program cache, may be null.
+     */
+    public ShaderCompiler(ProgramCache cache) {
+        this.cache = cache;
+
+        GLCapabilities caps = org.lwjgl.opengl.GL.getCapabilities();
+        parallel = caps.GL_KHR_parallel_shader_compile || caps.GL_ARB_parallel_shader_compile;
+
+        // Let the driver pick as many threads as it supports
+        if (parallel) Renderer.gl.maxShaderCompilerThreads(ALL_THREADS);
+    }
+
+    /**
+     * Creates a new shader compiler without a program cache.
+     */
+    public ShaderCompiler() {
+        this(null);
+    }
+
+    /**
+     * Starts compiling and linking a shader.
+     *
+     * @param vertexSrc   The vertex shader source.
+     * @param fragmentSrc The fragment shader source.
+     * @return The shader, usable right away but only without blocking once {@link PendingShader#isReady()}.
+     */
+    public PendingShader submit(String vertexSrc, String fragmentSrc) {
+        long start = System.nanoTime();
+        int program = Renderer.gl.createProgram();
+
+        String key = cache != null ? cache.key(vertexSrc, fragmentSrc) : null;
+        if (key != null && cache.load(program, key)) {
+            PendingShader shader = new PendingShader(this, program, 0, 0, null, start);
+            shader.resolve(true);
+            return shader;
+        }
+
+        int vert = compile(vertexSrc, Shader.ShaderType.Vertex);
+        int frag = compile(fragmentSrc, Shader.ShaderType.Fragment);
+
+        Renderer.gl.attachShader(program, vert);
+        Renderer.gl.attachShader(program, frag);
+
+        if (key != null) cache.prepare(program);
+        Renderer.gl.linkProgram(program);
+
+        PendingShader shader = new PendingShader(this, program, vert, frag, key, start);
+        pending.add(shader);
+        return shader;
+    }
+
+    private static int compile(String src, Shader.ShaderType type) {
+        int sid = Renderer.gl.createShader(type.gl);
+        if (sid == 0) {
+            throw new RuntimeException("Error creating " + type.name + " shader.");
+        }
+
+        Renderer.gl.shaderSource(sid, src);
+        Renderer.gl.compileShader(sid);
+        return sid;
+    }
+
+    /**
+     * Finishes every shader the driver is done with, without blocking on the others.
+     * Errors are thrown by {@link PendingShader#get()} of the failed shader.
+     *
+     * @return The number of shaders still compiling.
+     */
+    public int poll() {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            PendingShader shader = pending.get(i);
+            if (shader.isReady()) shader.resolve(false);
+        }
+
+        return pending.size();
+    }
+
+    /**
+     * Waits for every submitted shader, errors are thrown by {@link PendingShader#get()} of the failed shader.
+     */
+    public void finishAll() {
+        while (!pending.isEmpty()) pending.get(pending.size() - 1).resolve(false);
+    }
+
+    /**
+     * Gets the number of shaders that were submitted but not finished yet.
+     *
+     * @return The number of pending shaders.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Checks if the driver compiles shaders on its own threads.
+     *
+     * @return True if {@code KHR_parallel_shader_compile} or {@code ARB_parallel_shader_compile} is available.
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Checks if the driver finished linking a program, only meaningful if {@link #isParallel()}.
+     */
+    boolean isComplete(int program) {
+        return !parallel || Renderer.gl.getProgrami(program, GL_COMPLETION_STATUS_KHR) != 0;
+    }
+
+    /**
+     * Checks the status of a finished program and stores it in the cache.
+     *
+     * @return False if linking failed.
+     */
+    boolean finish(PendingShader shader, int program, String key) {
+        pending.remove(shader);
+
+        boolean linked = Renderer.gl.getProgrami(program, GL_LINK_STATUS) != 0;
+        if (linked && key != null) cache.store(program, key);
+
+        return linked;
+    }
+
+    /**
+     * Builds the error message of a program that failed to link.
+     */
+    static String error(int program, int vert, int frag) {
+        if (Renderer.gl.getShaderi(vert, GL_COMPILE_STATUS) == 0) {
+            return "Error compiling " + Shader.ShaderType.Vertex.name + " shader: " + Renderer.gl.getShaderInfoLog(vert);
+        }
+        if (Renderer.gl.getShaderi(frag, GL_COMPILE_STATUS) == 0) {
+            return "Error compiling " + Shader.ShaderType.Fragment.name + " shader: " + Renderer.gl.getShaderInfoLog(frag);
+        }
+
+        return "Error linking Shader code: " + Renderer.gl.getProgramInfoLog(program);
+    }
+
+    /**
+     * Forgets a shader that was disposed before it finished.
+     */
+    void cancel(PendingShader shader) {
+        pending.remove(shader);
+    }
+
+    @Override
+    public void dispose() {
+        while (!pending.isEmpty()) pending.get(pending.size() - 1).dispose();
+    }
+}
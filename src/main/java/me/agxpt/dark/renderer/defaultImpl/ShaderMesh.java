@@ -10,6 +10,11 @@ public class ShaderMesh extends Mesh {
         this.shader = shader;
     }
 
+    public ShaderMesh(IShader shader, DrawMode drawMode, UploadMode uploadMode, Attrib... attributes) {
+        super(drawMode, uploadMode, attributes);
+        this.shader = shader;
+    }
+
     @Override
     protected void beforeRender() {
         shader.bind();
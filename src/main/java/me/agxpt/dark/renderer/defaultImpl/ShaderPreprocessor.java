@@ -0,0 +1,201 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves {@code #include "path"} directives and injects {@code #define}s into shader sources.
+ * Include paths are relative to the including file unless they start with {@code /}, every file is included
+ * at most once per shader.
+ * <p>
+ * {@code #line} directives keep compiler errors pointing at the original files. Every file gets a source string number
+ * in the order it is first included, 0 being the processed file, and the directive starting a file names its path in a
+ * comment. Line numbers follow GLSL 3.30 and later, where the line after {@code #line n} is line {@code n}.
+ */
+public class ShaderPreprocessor {
+    private final Loader loader;
+
+    /**
+     * Creates a new preprocessor.
+     *
+     * @param loader Reads the source files.
+     */
+    public ShaderPreprocessor(Loader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Creates a new preprocessor reading the source files from the classpath.
+     *
+     * @param root The classpath directory the paths are relative to, without trailing slash.
+     * @return The preprocessor.
+     */
+    public static ShaderPreprocessor classpath(String root) {
+        return new ShaderPreprocessor(path -> {
+            try (InputStream in = ShaderPreprocessor.class.getResourceAsStream(root + "/" + path)) {
+                if (in == null) return null;
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read; (read = in.read(buffer)) != -1; ) out.write(buffer, 0, read);
+
+                return new String(out.toByteArray(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading shader source " + path + ".", e);
+            }
+        });
+    }
+
+    /**
+     * Reads a source file without processing it.
+     *
+     * @param path The path of the file.
+     * @return The source.
+     */
+    public String read(String path) {
+        String src = loader.load(path);
+        if (src == null) throw new RuntimeException("Shader source " + path + " not found.");
+
+        return src;
+    }
+
+    /**
+     * Processes a source file.
+     *
+     * @param path    The path of the file.
+     * @param defines The defines to inject, a null or empty value only defines the name.
+     * @return The processed source.
+     */
+    public String process(String path, Map<String, String> defines) {
+        return process(read(path), path, defines);
+    }
+
+    /**
+     * Processes a source.
+     *
+     * @param src     The source.
+     * @param path    The path includes are relative to.
+     * @param defines The defines to inject, a null or empty value only defines the name.
+     * @return The processed source.
+     */
+    public String process(String src, String path, Map<String, String> defines) {
+        StringBuilder out = new StringBuilder(src.length() + 256);
+        Set<String> included = new HashSet<>();
+        included.add(normalize(path));
+
+        include(src, path, out, included, new ArrayDeque<>());
+        return inject(out, defines);
+    }
+
+    private void include(String src, String path, StringBuilder out, Set<String> included, ArrayDeque<String> stack) {
+        stack.push(path);
+        int source = included.size() - 1;
+
+        int start = 0, lineNumber = 1;
+        while (start < src.length()) {
+            int end = src.indexOf('\n', start);
+            if (end == -1) end = src.length();
+
+            String line = src.substring(start, end);
+            String trimmed = line.trim();
+
+            if (trimmed.startsWith("#include")) {
+                String target = resolve(path, parseInclude(trimmed, path));
+
+                if (stack.contains(target)) throw new RuntimeException("Circular shader include " + target + " in " + path + ".");
+                if (included.add(target)) {
+                    out.append("#line 1 ").append(included.size() - 1).append(" // ").append(target).append('\n');
+                    include(read(target), target, out, included, stack);
+                    out.append("#line ").append(lineNumber + 1).append(' ').append(source).append('\n');
+                } else {
+                    // Keep the line so the following line numbers stay right
+                    out.append('\n');
+                }
+            } else {
+                out.append(line).append('\n');
+            }
+
+            start = end + 1;
+            lineNumber++;
+        }
+
+        stack.pop();
+    }
+
+    private static String parseInclude(String line, String path) {
+        int first = line.indexOf('"');
+        int last = line.lastIndexOf('"');
+        if (first == -1 || last <= first) throw new RuntimeException("Malformed include in " + path + ": " + line);
+
+        return line.substring(first + 1, last);
+    }
+
+    private static String resolve(String from, String path) {
+        if (path.startsWith("/")) return normalize(path.substring(1));
+
+        int slash = from.lastIndexOf('/');
+        return normalize(slash == -1 ? path : from.substring(0, slash + 1) + path);
+    }
+
+    private static String normalize(String path) {
+        ArrayDeque<String> parts = new ArrayDeque<>();
+
+        for (String part : path.split("/")) {
+            if (part.isEmpty() || part.equals(".")) continue;
+            if (part.equals("..")) parts.pollLast();
+            else parts.addLast(part);
+        }
+
+        return String.join("/", parts);
+    }
+
+    /**
+     * Inserts the defines after the {@code #version} line, which has to stay the first statement, followed by a
+     * {@code #line} directive so the lines after them keep their numbers.
+     */
+    private static String inject(StringBuilder src, Map<String, String> defines) {
+        if (defines == null || defines.isEmpty()) return src.toString();
+
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, String> define : defines.entrySet()) {
+            lines.append("#define ").append(define.getKey());
+            if (define.getValue() != null && !define.getValue().isEmpty()) lines.append(' ').append(define.getValue());
+            lines.append('\n');
+        }
+
+        int version = src.indexOf("#version");
+        int at = version == -1 ? 0 : src.indexOf("\n", version) + 1;
+        if (at == 0 && version != -1) {
+            src.append('\n');
+            at = src.length();
+        }
+
+        int lineNumber = 1;
+        for (int i = 0; i < at; i++) {
+            if (src.charAt(i) == '\n') lineNumber++;
+        }
+        lines.append("#line ").append(lineNumber).append(" 0\n");
+
+        return src.insert(at, lines).toString();
+    }
+
+    /**
+     * Reads shader source files.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        /**
+         * Reads a source file.
+         *
+         * @param path The path of the file.
+         * @return The source, null if the file does not exist.
+         */
+        String load(String path);
+    }
+}
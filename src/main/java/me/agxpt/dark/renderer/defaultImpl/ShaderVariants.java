@@ -0,0 +1,162 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The permutations of a shader, each compiled with its own set of defines the first time it is requested.
+ * At most {@code capacity} permutations stay compiled, the least recently used one is disposed to make room,
+ * so get the shader every frame instead of keeping it.
+ */
+public class ShaderVariants implements IDisposable {
+    private final ShaderPreprocessor preprocessor;
+    private final String vertexPath, fragmentPath;
+    private final String vertexSrc, fragmentSrc;
+    private final ProgramCache cache;
+    private final LinkedHashMap<String, Shader> variants = new LinkedHashMap<>(16, 0.75f, true);
+    private int capacity;
+    private long hits, compiles, evictions;
+
+    /**
+     * Creates a new set of shader permutations, nothing is compiled until requested.
+     *
+     * @param preprocessor The preprocessor reading the sources.
+     * @param vertexPath   The path of the vertex shader.
+     * @param fragmentPath The path of the fragment shader.
+     * @param capacity     The maximum number of compiled permutations.
+     * @param cache        The program cache, may be null.
+     */
+    public ShaderVariants(ShaderPreprocessor preprocessor, String vertexPath, String fragmentPath, int capacity, ProgramCache cache) {
+        this.preprocessor = preprocessor;
+        this.vertexPath = vertexPath;
+        this.fragmentPath = fragmentPath;
+        this.capacity = capacity;
+        this.cache = cache;
+
+        vertexSrc = preprocessor.read(vertexPath);
+        fragmentSrc = preprocessor.read(fragmentPath);
+    }
+
+    /**
+     * Creates a new set of shader permutations without a program cache.
+     *
+     * @param preprocessor The preprocessor reading the sources.
+     * @param vertexPath   The path of the vertex shader.
+     * @param fragmentPath The path of the fragment shader.
+     * @param capacity     The maximum number of compiled permutations.
+     */
+    public ShaderVariants(ShaderPreprocessor preprocessor, String vertexPath, String fragmentPath, int capacity) {
+        this(preprocessor, vertexPath, fragmentPath, capacity, null);
+    }
+
+    /**
+     * Gets the permutation with the specified defines, compiling it if needed.
+     *
+     * @param defines The defines, either {@code NAME} or {@code NAME=VALUE}. The order does not matter.
+     * @return The shader, valid until it is evicted.
+     */
+    public Shader get(String... defines) {
+        String key = key(defines);
+
+        Shader shader = variants.get(key);
+        if (shader != null) {
+            hits++;
+            return shader;
+        }
+
+        Map<String, String> map = new TreeMap<>();
+        for (String define : defines) {
+            int equals = define.indexOf('=');
+            if (equals == -1) map.put(define, null);
+            else map.put(define.substring(0, equals), define.substring(equals + 1));
+        }
+
+        shader = new Shader(preprocessor.process(vertexSrc, vertexPath, map), preprocessor.process(fragmentSrc, fragmentPath, map), cache);
+        compiles++;
+
+        variants.put(key, shader);
+        evict(capacity);
+        return shader;
+    }
+
+    /**
+     * The defines are sorted so permutations requested in a different order share a program.
+     */
+    private static String key(String[] defines) {
+        if (defines.length == 0) return "";
+        if (defines.length == 1) return defines[0];
+
+        String[] sorted = defines.clone();
+        Arrays.sort(sorted);
+        return String.join(";", sorted);
+    }
+
+    private void evict(int capacity) {
+        Iterator<Shader> it = variants.values().iterator();
+
+        while (variants.size() > capacity && it.hasNext()) {
+            Shader shader = it.next();
+            it.remove();
+
+            shader.dispose();
+            evictions++;
+        }
+    }
+
+    /**
+     * Sets the maximum number of compiled permutations and evicts the least recently used ones over it.
+     *
+     * @param capacity The maximum number of compiled permutations.
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+        evict(capacity);
+    }
+
+    @Override
+    public void dispose() {
+        for (Shader shader : variants.values()) shader.dispose();
+        variants.clear();
+    }
+
+    /**
+     * Gets the number of requests served by an already compiled permutation.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of permutations that were compiled.
+     *
+     * @return The number of compiles.
+     */
+    public long getCompiles() {
+        return compiles;
+    }
+
+    /**
+     * Gets the number of permutations disposed to stay within the capacity.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the number of compiled permutations.
+     *
+     * @return The number of resident permutations.
+     */
+    public int getResidentCount() {
+        return variants.size();
+    }
+}
@@ -0,0 +1,102 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.renderer.Renderer;
+
+import static org.lwjgl.opengl.GL44C.*;
+
+/**
+ * A persistently mapped ring buffer split into {@link #SEGMENTS} segments.
+ * Each segment is guarded by a fence so the CPU never writes into memory the GPU may still be reading.
+ */
+public class StreamBuffer implements IDisposable {
+    /**
+     * The number of segments, one being written while the others are in flight.
+     */
+    public static final int SEGMENTS = 3;
+
+    private static final int FLAGS = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+    private static final long TIMEOUT = 1_000_000_000L;
+
+    private final long segmentSize;
+    private final long address;
+    private final long[] fences = new long[SEGMENTS];
+    private int segment = -1;
+
+    /**
+     * Creates immutable storage for the buffer currently bound to the target and maps it.
+     *
+     * @param target      The buffer target the buffer is bound to.
+     * @param segmentSize The size of a single segment in bytes.
+     */
+    public StreamBuffer(int target, long segmentSize) {
+        this.segmentSize = segmentSize;
+
+        Renderer.gl.bufferStorage(target, segmentSize * SEGMENTS, FLAGS);
+        address = Renderer.gl.mapBufferRange(target, 0, segmentSize * SEGMENTS, FLAGS);
+        if (address == 0) throw new RuntimeException("Error mapping stream buffer.");
+    }
+
+    /**
+     * Checks whether the current context supports persistently mapped buffers.
+     *
+     * @return True if streaming is supported.
+     */
+    public static boolean isSupported() {
+        return Renderer.gl.isBufferStorageSupported();
+    }
+
+    /**
+     * Fences the current segment and moves to the next one, waiting until the GPU is done reading it.
+     *
+     * @return The address of the next segment.
+     */
+    public long next() {
+        if (segment >= 0) fences[segment] = Renderer.gl.fenceSync();
+        segment = (segment + 1) % SEGMENTS;
+
+        long fence = fences[segment];
+        if (fence != 0) {
+            int result;
+            do {
+                result = Renderer.gl.clientWaitSync(fence, GL_SYNC_FLUSH_COMMANDS_BIT, TIMEOUT);
+            } while (result == GL_TIMEOUT_EXPIRED);
+
+            Renderer.gl.deleteSync(fence);
+            fences[segment] = 0;
+
+            if (result == GL_WAIT_FAILED) throw new RuntimeException("Error waiting for stream buffer fence.");
+        }
+
+        return address();
+    }
+
+    /**
+     * Gets the address of the current segment.
+     *
+     * @return The address of the current segment.
+     */
+    public long address() {
+        return address + offset();
+    }
+
+    /**
+     * Gets the byte offset of the current segment inside the buffer.
+     *
+     * @return The offset of the current segment.
+     */
+    public long offset() {
+        return Math.max(segment, 0) * segmentSize;
+    }
+
+    /**
+     * Deletes the fences. The buffer object itself is owned by the caller.
+     */
+    @Override
+    public void dispose() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            if (fences[i] != 0) Renderer.gl.deleteSync(fences[i]);
+            fences[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL42C.*;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * A texture updated every frame, like video frames or canvases.
+ * The storage is allocated once with {@code glTexStorage2D} and updates go through two pixel unpack buffers
+ * used in turns, so the driver copies into the texture while the next update is written.
+ */
+public class StreamingTexture extends Texture {
+    private final int[] pbos = new int[2];
+    private final long pboSize;
+    private int pbo;
+    private long uploadedBytes;
+
+    /**
+     * Creates a new streaming texture with undefined contents.
+     *
+     * @param width     The texture width.
+     * @param height    The texture height.
+     * @param format    The texture format.
+     * @param minFilter The minifying filter.
+     * @param magFilter The magnifying filter.
+     */
+    public StreamingTexture(int width, int height, Format format, MinFilter minFilter, MagFilter magFilter) {
+        super(width, height, format, minFilter, magFilter);
+
+        int levels = 1;
+        if (minFilter.mipMap) levels += 31 - Integer.numberOfLeadingZeros(Math.max(width, height));
+
+        Renderer.gl.texStorage2D(levels, format.sizedFormat, width, height);
+
+        pboSize = (long) width * height * format.bytesPerPixel;
+        for (int i = 0; i < pbos.length; i++) {
+            pbos[i] = Renderer.gl.genBuffer();
+            Renderer.gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, pbos[i]);
+            Renderer.gl.bufferData(GL_PIXEL_UNPACK_BUFFER, pboSize, NULL, GL_STREAM_DRAW);
+        }
+        Renderer.gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+    }
+
+    /**
+     * Replaces the whole texture.
+     *
+     * @param data The pixels, tightly packed rows of the texture width.
+     */
+    public void update(ByteBuffer data) {
+        update(0, 0, width, height, data, width);
+    }
+
+    /**
+     * Replaces a rectangle of the texture.
+     *
+     * @param x    The x of the rectangle.
+     * @param y    The y of the rectangle.
+     * @param w    The width of the rectangle.
+     * @param h    The height of the rectangle.
+     * @param data The pixels of the rectangle, tightly packed.
+     */
+    public void update(int x, int y, int w, int h, ByteBuffer data) {
+        update(x, y, w, h, data, w);
+    }
+
+    /**
+     * Replaces a rectangle of the texture with pixels from a larger image, only the rectangle is copied.
+     *
+     * @param x         The x of the rectangle.
+     * @param y         The y of the rectangle.
+     * @param w         The width of the rectangle.
+     * @param h         The height of the rectangle.
+     * @param data      The image, starting at the first pixel of the rectangle.
+     * @param rowLength The width of the image in pixels.
+     */
+    public void update(int x, int y, int w, int h, ByteBuffer data, int rowLength) {
+        if (x < 0 || y < 0 || w <= 0 || h <= 0 || x + w > width || y + h > height) {
+            throw new IndexOutOfBoundsException("Rectangle " + x + ", " + y + ", " + w + "x" + h + " outside of " + width + "x" + height + " texture.");
+        }
+
+        int rowBytes = w * format.bytesPerPixel;
+        int strideBytes = rowLength * format.bytesPerPixel;
+        if (data.remaining() < (long) strideBytes * (h - 1) + rowBytes) {
+            throw new IndexOutOfBoundsException("Not enough pixel data for " + w + "x" + h + " rectangle.");
+        }
+
+        pbo = (pbo + 1) % pbos.length;
+        Renderer.gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, pbos[pbo]);
+
+        // Invalidating lets the driver hand out fresh memory instead of waiting for the last copy from this buffer
+        long size = (long) rowBytes * h;
+        long address = Renderer.gl.mapBufferRange(GL_PIXEL_UNPACK_BUFFER, 0, size, GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_BUFFER_BIT);
+        if (address == 0) throw new RuntimeException("Error mapping pixel unpack buffer.");
+
+        long src = memAddress(data);
+        if (strideBytes == rowBytes) {
+            memCopy(src, address, size);
+        } else {
+            for (int row = 0; row < h; row++) memCopy(src + (long) row * strideBytes, address + (long) row * rowBytes, rowBytes);
+        }
+
+        Renderer.gl.unmapBuffer(GL_PIXEL_UNPACK_BUFFER);
+
+        Renderer.gl.bindTexture(id);
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 1);
+        Renderer.gl.texSubImage2D(0, x, y, w, h, format.format, format.type, 0L);
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 4);
+        if (minFilter.mipMap) Renderer.gl.generateMipmap();
+
+        Renderer.gl.bindBuffer(GL_PIXEL_UNPACK_BUFFER, 0);
+        uploadedBytes += size;
+        if (Renderer.PROFILE) Profiler.upload(size);
+    }
+
+    /**
+     * Gets the total bytes uploaded.
+     *
+     * @return The uploaded bytes.
+     */
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    /**
+     * Gets the size of a full update.
+     *
+     * @return The size of the pixel unpack buffers in bytes.
+     */
+    public long getFrameBytes() {
+        return pboSize;
+    }
+
+    @Override
+    public void dispose() {
+        super.dispose();
+
+        for (int buffer : pbos) Renderer.gl.deleteBuffer(buffer);
+    }
+}
@@ -7,14 +7,22 @@ import org.lwjgl.BufferUtils;
 import org.lwjgl.stb.STBImage;
 import org.lwjgl.system.MemoryStack;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import static org.lwjgl.opengl.GL11C.*;
+import static org.lwjgl.opengl.EXTTextureCompressionS3TC.*;
+import static org.lwjgl.opengl.GL12C.GL_TEXTURE_MAX_LEVEL;
 import static org.lwjgl.opengl.GL12C.GL_UNPACK_IMAGE_HEIGHT;
 import static org.lwjgl.opengl.GL12C.GL_UNPACK_SKIP_IMAGES;
 import static org.lwjgl.opengl.GL30C.*;
+import static org.lwjgl.opengl.GL42C.GL_COMPRESSED_RGBA_BPTC_UNORM;
+import static org.lwjgl.opengl.GL42C.GL_COMPRESSED_SRGB_ALPHA_BPTC_UNORM;
+import static org.lwjgl.system.MemoryUtil.*;
 
 /**
  * Default implementation of {@link IShader}
@@ -22,7 +30,7 @@ import static org.lwjgl.opengl.GL30C.*;
 public class Texture implements ITexture {
     protected final int id;
     protected final int width, height;
-    protected final Format format;
+    protected final Format format; // null for compressed textures
     protected final MinFilter minFilter;
     private int lastSlot = 0;
 
@@ -41,22 +49,22 @@ public class Texture implements ITexture {
         this.format = format;
         this.minFilter = minFilter;
 
-        id = glGenTextures();
+        id = Renderer.gl.genTexture();
         Renderer.gl.bindTexture(id);
 
-        glPixelStorei(GL_UNPACK_SWAP_BYTES, GL_FALSE);
-        glPixelStorei(GL_UNPACK_LSB_FIRST, GL_FALSE);
-        glPixelStorei(GL_UNPACK_ROW_LENGTH, 0);
-        glPixelStorei(GL_UNPACK_IMAGE_HEIGHT, 0);
-        glPixelStorei(GL_UNPACK_SKIP_ROWS, 0);
-        glPixelStorei(GL_UNPACK_SKIP_PIXELS, 0);
-        glPixelStorei(GL_UNPACK_SKIP_IMAGES, 0);
-        glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+        Renderer.gl.pixelStore(GL_UNPACK_SWAP_BYTES, GL_FALSE);
+        Renderer.gl.pixelStore(GL_UNPACK_LSB_FIRST, GL_FALSE);
+        Renderer.gl.pixelStore(GL_UNPACK_ROW_LENGTH, 0);
+        Renderer.gl.pixelStore(GL_UNPACK_IMAGE_HEIGHT, 0);
+        Renderer.gl.pixelStore(GL_UNPACK_SKIP_ROWS, 0);
+        Renderer.gl.pixelStore(GL_UNPACK_SKIP_PIXELS, 0);
+        Renderer.gl.pixelStore(GL_UNPACK_SKIP_IMAGES, 0);
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 4);
 
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, minFilter.gl);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, magFilter.gl);
+        Renderer.gl.texParameter(GL_TEXTURE_WRAP_S, GL_REPEAT);
+        Renderer.gl.texParameter(GL_TEXTURE_WRAP_T, GL_REPEAT);
+        Renderer.gl.texParameter(GL_TEXTURE_MIN_FILTER, minFilter.gl);
+        Renderer.gl.texParameter(GL_TEXTURE_MAG_FILTER, magFilter.gl);
     }
 
     /**
@@ -128,50 +136,136 @@ public class Texture implements ITexture {
      */
     public static Texture fromFile(String fileName, Format format, MinFilter minFilter, MagFilter magFilter) {
         try (MemoryStack stack = MemoryStack.stackPush()) {
-            ByteBuffer file = stack.ASCII(fileName, true);
             IntBuffer width = stack.mallocInt(1);
             IntBuffer height = stack.mallocInt(1);
             IntBuffer channels = stack.mallocInt(1);
-            STBImage.stbi_set_flip_vertically_on_load(true);
-            ByteBuffer texture = STBImage.stbi_load(file, width, height, channels, format.channels);
+
+            // Only affects this thread so it can't race with a TextureLoader
+            STBImage.stbi_set_flip_vertically_on_load_thread(1);
+            ByteBuffer texture = STBImage.stbi_load(fileName, width, height, channels, format.channels);
             if (texture == null) return null;
-            Texture textureObj = new Texture(width.get(), height.get(), texture, format, minFilter, magFilter);
-            STBImage.stbi_image_free(texture);
-            return textureObj;
-        } catch (Exception e) {
-            return null;
+
+            try {
+                return new Texture(width.get(0), height.get(0), texture, format, minFilter, magFilter);
+            } finally {
+                STBImage.stbi_image_free(texture);
+            }
+        }
+    }
+
+    /**
+     * Creates a new texture from a compressed image, using its mip levels if it has any.
+     *
+     * @param image     The compressed image.
+     * @param minFilter The minifying filter, mip map filters need an image with mip levels.
+     * @param magFilter The magnifying filter.
+     */
+    public Texture(TextureContainer image, MinFilter minFilter, MagFilter magFilter) {
+        this(image.width, image.height, null, minFilter, magFilter);
+
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 1);
+        for (int level = 0; level < image.getLevelCount(); level++) {
+            int w = Math.max(1, image.width >> level), h = Math.max(1, image.height >> level);
+            ByteBuffer data = image.getLevel(level);
+            Renderer.gl.compressedTexImage2D(level, image.format.internalFormat, w, h, data.remaining(), memAddress(data));
+        }
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 4);
+
+        Renderer.gl.texParameter(GL_TEXTURE_MAX_LEVEL, image.getLevelCount() - 1);
+    }
+
+    /**
+     * Creates a new texture from a DDS or KTX file holding a block compressed image.
+     *
+     * @param fileName  The file path.
+     * @param minFilter The minifying filter, mip map filters need a file with mip levels.
+     * @param magFilter The magnifying filter.
+     * @return The created texture.
+     */
+    public static Texture fromCompressedFile(String fileName, MinFilter minFilter, MagFilter magFilter) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(Paths.get(fileName));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading texture " + fileName + ".", e);
+        }
+
+        ByteBuffer buffer = memAlloc(bytes.length);
+        try {
+            buffer.put(bytes).flip();
+            return new Texture(TextureContainer.parse(buffer), minFilter, magFilter);
+        } finally {
+            memFree(buffer);
         }
     }
 
     /**
-     * Uploads a byte texture.
+     * Uploads a texture from tightly packed 8 bit components, which OpenGL converts for float and half float formats.
      *
      * @param buffer The texture data buffer.
+     * @throws IllegalStateException    If the texture is compressed.
+     * @throws IllegalArgumentException If the buffer is too small.
      */
     protected void upload(ByteBuffer buffer) {
-        if (buffer != null) buffer.rewind();
+        upload(buffer, GL_UNSIGNED_BYTE);
+    }
+
+    /**
+     * Uploads a texture from tightly packed components of any pixel type, like half floats.
+     *
+     * @param buffer The texture data buffer.
+     * @param type   The pixel type of the data, {@code GL_UNSIGNED_BYTE}, {@code GL_HALF_FLOAT} or {@code GL_FLOAT}.
+     * @throws IllegalStateException    If the texture is compressed.
+     * @throws IllegalArgumentException If the buffer is too small.
+     */
+    protected void upload(ByteBuffer buffer, int type) {
+        checkUncompressed();
+        if (buffer != null) {
+            buffer.rewind();
+            checkSize(buffer.remaining(), type);
+        }
 
         Renderer.gl.bindTexture(id);
-        glTexImage2D(GL_TEXTURE_2D, 0, format.internalFormat, width, height, 0, format.format, GL_UNSIGNED_BYTE, buffer);
-        if (minFilter.mipMap) glGenerateMipmap(GL_TEXTURE_2D);
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 1);
+        Renderer.gl.texImage2D(0, format.internalFormat, width, height, format.format, type, buffer != null ? memAddress(buffer) : NULL);
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 4);
+        if (minFilter.mipMap) Renderer.gl.generateMipmap();
     }
 
     /**
-     * Uploads a float texture.
+     * Uploads a tightly packed float texture.
      *
      * @param buffer The texture data buffer.
+     * @throws IllegalStateException    If the texture is compressed.
+     * @throws IllegalArgumentException If the buffer is too small.
      */
     protected void upload(FloatBuffer buffer) {
-        if (buffer != null) buffer.rewind();
+        checkUncompressed();
+        if (buffer != null) {
+            buffer.rewind();
+            checkSize(buffer.remaining() * 4L, GL_FLOAT);
+        }
 
         Renderer.gl.bindTexture(id);
-        glTexImage2D(GL_TEXTURE_2D, 0, format.internalFormat, width, height, 0, format.format, GL_FLOAT, buffer);
-        if (minFilter.mipMap) glGenerateMipmap(GL_TEXTURE_2D);
+        Renderer.gl.texImage2D(0, format.internalFormat, width, height, format.format, GL_FLOAT, buffer != null ? memAddress(buffer) : NULL);
+        if (minFilter.mipMap) Renderer.gl.generateMipmap();
+    }
+
+    private void checkUncompressed() {
+        if (format == null) throw new IllegalStateException("Texture.upload() called on a compressed texture.");
+    }
+
+    private void checkSize(long bytes, int type) {
+        long required = (long) width * height * format.channels * (type == GL_FLOAT ? 4 : type == GL_HALF_FLOAT ? 2 : 1);
+
+        if (bytes < required) {
+            throw new IllegalArgumentException("Texture data of " + bytes + " bytes is too small for " + width + "x" + height + " " + format + ", " + required + " bytes are needed.");
+        }
     }
 
     @Override
     public void dispose() {
-        glDeleteTextures(id);
+        Renderer.gl.deleteTexture(id);
     }
 
     @Override
@@ -195,19 +289,71 @@ public class Texture implements ITexture {
      * Texture pixel formats.
      */
     public enum Format {
-        R(GL_RED, GL_RED, 1),
-        RGB(GL_RGB, GL_RGB, 3),
-        RGBA(GL_RGBA, GL_RGBA, 4),
+        R(GL_RED, GL_RED, GL_R8, GL_UNSIGNED_BYTE, 1),
+        RG(GL_RG, GL_RG8, GL_RG8, GL_UNSIGNED_BYTE, 2),
+        RGB(GL_RGB, GL_RGB, GL_RGB8, GL_UNSIGNED_BYTE, 3),
+        RGBA(GL_RGBA, GL_RGBA, GL_RGBA8, GL_UNSIGNED_BYTE, 4),
+
+        SRGB(GL_RGB, GL_SRGB8, GL_SRGB8, GL_UNSIGNED_BYTE, 3),
+        SRGBA(GL_RGBA, GL_SRGB8_ALPHA8, GL_SRGB8_ALPHA8, GL_UNSIGNED_BYTE, 4),
+
+        HalfR(GL_RED, GL_R16F, GL_R16F, GL_HALF_FLOAT, 1),
+        HalfRG(GL_RG, GL_RG16F, GL_RG16F, GL_HALF_FLOAT, 2),
+        HalfRGBA(GL_RGBA, GL_RGBA16F, GL_RGBA16F, GL_HALF_FLOAT, 4),
 
-        FloatR(GL_RED, GL_R32F, 1),
-        FloatRGB(GL_RGB, GL_RGB32F, 3),
-        FloatRGBA(GL_RGBA, GL_RGBA32F, 4);
-        public final int format, internalFormat, channels;
+        FloatR(GL_RED, GL_R32F, GL_R32F, GL_FLOAT, 1),
+        FloatRGB(GL_RGB, GL_RGB32F, GL_RGB32F, GL_FLOAT, 3),
+        FloatRGBA(GL_RGBA, GL_RGBA32F, GL_RGBA32F, GL_FLOAT, 4);
+        public final int format, internalFormat, sizedFormat, type, channels, bytesPerPixel;
 
-        Format(int format, int internalFormat, int channels) {
+        Format(int format, int internalFormat, int sizedFormat, int type, int channels) {
             this.internalFormat = internalFormat;
             this.format = format;
+            this.sizedFormat = sizedFormat;
+            this.type = type;
             this.channels = channels;
+            this.bytesPerPixel = channels * (type == GL_FLOAT ? 4 : type == GL_HALF_FLOAT ? 2 : 1);
+        }
+    }
+
+    /**
+     * Block compressed texture formats, each block covers 4x4 pixels.
+     */
+    public enum CompressedFormat {
+        BC1(GL_COMPRESSED_RGB_S3TC_DXT1_EXT, 8),
+        BC1A(GL_COMPRESSED_RGBA_S3TC_DXT1_EXT, 8),
+        BC3(GL_COMPRESSED_RGBA_S3TC_DXT5_EXT, 16),
+        BC7(GL_COMPRESSED_RGBA_BPTC_UNORM, 16),
+        BC7SRGB(GL_COMPRESSED_SRGB_ALPHA_BPTC_UNORM, 16);
+        public final int internalFormat, blockSize;
+
+        CompressedFormat(int internalFormat, int blockSize) {
+            this.internalFormat = internalFormat;
+            this.blockSize = blockSize;
+        }
+
+        /**
+         * Calculates the size of a mip level.
+         *
+         * @param width  The width of the level.
+         * @param height The height of the level.
+         * @return The size in bytes.
+         */
+        public int size(int width, int height) {
+            return Math.max(1, (width + 3) / 4) * Math.max(1, (height + 3) / 4) * blockSize;
+        }
+
+        /**
+         * Finds the format of an OpenGL internal format.
+         *
+         * @param internalFormat The internal format.
+         * @return The format, null if not supported.
+         */
+        public static CompressedFormat of(int internalFormat) {
+            for (CompressedFormat format : values()) {
+                if (format.internalFormat == internalFormat) return format;
+            }
+            return null;
         }
     }
 
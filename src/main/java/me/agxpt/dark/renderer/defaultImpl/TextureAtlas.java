@@ -0,0 +1,224 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.renderer.Renderer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.lwjgl.opengl.GL11C.GL_UNPACK_ALIGNMENT;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * Packs many small images into a few large textures so they can be drawn without switching textures.
+ * Pages are added until {@code maxPages} is reached, after that the least recently bound regions are evicted
+ * to make room. Images are uploaded into their page with {@code glTexSubImage2D} as they are added, together with
+ * their padding filled by repeating the edge pixels, so filtering at the edges never samples stale or undefined data.
+ */
+public class TextureAtlas implements IDisposable {
+    private final int pageSize, maxPages, padding;
+    private final Texture.Format format;
+    private final Texture.MinFilter minFilter;
+    private final Texture.MagFilter magFilter;
+    private final List<Texture> pages = new ArrayList<>();
+    private final List<GuillotinePacker> packers = new ArrayList<>();
+    private final int[] regionCounts;
+    private final LinkedHashMap<AtlasRegion, AtlasRegion> regions = new LinkedHashMap<>(64, 0.75f, true);
+    private long evictions;
+
+    /**
+     * Creates a new atlas without pages.
+     *
+     * @param pageSize  The width and height of a page.
+     * @param maxPages  The maximum number of pages.
+     * @param padding   The pixels kept around every image so filtering does not bleed into neighbours.
+     * @param format    The texture format.
+     * @param minFilter The minifying filter.
+     * @param magFilter The magnifying filter.
+     */
+    public TextureAtlas(int pageSize, int maxPages, int padding, Texture.Format format, Texture.MinFilter minFilter, Texture.MagFilter magFilter) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.padding = padding;
+        this.format = format;
+        this.minFilter = minFilter;
+        this.magFilter = magFilter;
+        this.regionCounts = new int[maxPages];
+    }
+
+    /**
+     * Packs and uploads an image.
+     *
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @param data   The pixels, tightly packed rows in the atlas format.
+     * @return The region of the image.
+     */
+    public AtlasRegion add(int width, int height, ByteBuffer data) {
+        int w = width + padding * 2, h = height + padding * 2;
+        if (w > pageSize || h > pageSize) {
+            throw new IllegalArgumentException("Image " + width + "x" + height + " does not fit into " + pageSize + "x" + pageSize + " atlas page.");
+        }
+
+        AtlasRegion region = pack(w, h);
+
+        Renderer.gl.bindTexture(pages.get(region.page).id);
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 1);
+
+        if (padding == 0 || width == 0 || height == 0) {
+            Renderer.gl.texSubImage2D(0, region.x, region.y, width, height, format.format, format.type, memAddress(data));
+        } else {
+            long padded = extrude(width, height, memAddress(data));
+            try {
+                Renderer.gl.texSubImage2D(0, region.x - padding, region.y - padding, w, h, format.format, format.type, padded);
+            } finally {
+                nmemFree(padded);
+            }
+        }
+
+        Renderer.gl.pixelStore(GL_UNPACK_ALIGNMENT, 4);
+        return region;
+    }
+
+    /**
+     * Copies an image into a new allocation with the padding on every side, filled by repeating the edge pixels.
+     *
+     * @return The address of the padded image, must be freed with {@code nmemFree}.
+     */
+    private long extrude(int width, int height, long src) {
+        int bpp = format.bytesPerPixel;
+        long row = (long) width * bpp, paddedRow = (long) (width + padding * 2) * bpp;
+        long dst = nmemAllocChecked(paddedRow * (height + padding * 2));
+
+        for (int y = 0; y < height; y++) {
+            long s = src + y * row, d = dst + (y + padding) * paddedRow;
+
+            for (int x = 0; x < padding; x++) {
+                memCopy(s, d + (long) x * bpp, bpp);
+                memCopy(s + row - bpp, d + (long) (padding + width + x) * bpp, bpp);
+            }
+            memCopy(s, d + (long) padding * bpp, row);
+        }
+
+        long first = dst + padding * paddedRow, last = dst + (padding + height - 1) * paddedRow;
+        for (int y = 0; y < padding; y++) {
+            memCopy(first, dst + y * paddedRow, paddedRow);
+            memCopy(last, dst + (padding + height + y) * paddedRow, paddedRow);
+        }
+
+        return dst;
+    }
+
+    private AtlasRegion pack(int w, int h) {
+        for (int page = 0; page < packers.size(); page++) {
+            AtlasRegion region = insert(page, w, h);
+            if (region != null) return region;
+        }
+
+        if (pages.size() < maxPages) {
+            pages.add(new Texture(pageSize, pageSize, (ByteBuffer) null, format, minFilter, magFilter));
+            packers.add(new GuillotinePacker(pageSize, pageSize));
+            return insert(pages.size() - 1, w, h);
+        }
+
+        // Evict least recently used regions, retrying the page that just gained space
+        Iterator<AtlasRegion> it = regions.keySet().iterator();
+        while (it.hasNext()) {
+            AtlasRegion evicted = it.next();
+            it.remove();
+
+            release(evicted);
+            evictions++;
+
+            AtlasRegion region = insert(evicted.page, w, h);
+            if (region != null) return region;
+        }
+
+        throw new IllegalStateException("TextureAtlas could not fit " + w + "x" + h + " region.");
+    }
+
+    private AtlasRegion insert(int page, int w, int h) {
+        long position = packers.get(page).insert(w, h);
+        if (position == -1) return null;
+
+        AtlasRegion region = new AtlasRegion(this, page, GuillotinePacker.x(position) + padding, GuillotinePacker.y(position) + padding, w - padding * 2, h - padding * 2, pageSize);
+        regions.put(region, region);
+        regionCounts[page]++;
+        return region;
+    }
+
+    private void release(AtlasRegion region) {
+        region.invalidate();
+
+        // An empty page is reset so fragmentation does not outlive its regions
+        if (--regionCounts[region.page] == 0) packers.get(region.page).reset();
+        else packers.get(region.page).free(region.x - padding, region.y - padding, region.width + padding * 2, region.height + padding * 2);
+    }
+
+    void touch(AtlasRegion region) {
+        regions.get(region);
+    }
+
+    void remove(AtlasRegion region) {
+        if (regions.remove(region) != null) release(region);
+    }
+
+    Texture getPage(int page) {
+        return pages.get(page);
+    }
+
+    /**
+     * Gets the number of pages.
+     *
+     * @return The number of pages.
+     */
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Gets the number of packed regions.
+     *
+     * @return The number of regions.
+     */
+    public int getRegionCount() {
+        return regions.size();
+    }
+
+    /**
+     * Gets the number of regions evicted to make room.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Gets the fraction of all pages covered by regions, including padding.
+     *
+     * @return The occupancy between 0 and 1.
+     */
+    public double getOccupancy() {
+        if (packers.isEmpty()) return 0;
+
+        double occupancy = 0;
+        for (GuillotinePacker packer : packers) occupancy += packer.getOccupancy();
+        return occupancy / packers.size();
+    }
+
+    @Override
+    public void dispose() {
+        for (AtlasRegion region : regions.keySet()) region.invalidate();
+        for (Texture page : pages) page.dispose();
+
+        regions.clear();
+        pages.clear();
+        packers.clear();
+        Arrays.fill(regionCounts, 0);
+    }
+}
@@ -0,0 +1,199 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A block compressed image read from a DDS or KTX 1 file.
+ * Parsing is plain Java and does not need an OpenGL context, the mip levels are views into the parsed buffer.
+ */
+public class TextureContainer {
+    private static final int DDS_MAGIC = 0x20534444;
+    private static final int DDSD_MIPMAPCOUNT = 0x20000;
+    private static final int DDPF_FOURCC = 0x4;
+    private static final int FOURCC_DXT1 = 0x31545844, FOURCC_DXT5 = 0x35545844, FOURCC_DX10 = 0x30315844;
+    private static final int DXGI_BC1_UNORM = 71, DXGI_BC3_UNORM = 77, DXGI_BC7_UNORM = 98, DXGI_BC7_UNORM_SRGB = 99;
+
+    private static final byte[] KTX_IDENTIFIER = {(byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'};
+    private static final int KTX_ENDIANNESS = 0x04030201;
+
+    public final Texture.CompressedFormat format;
+    public final int width, height;
+    private final ByteBuffer[] levels;
+
+    private TextureContainer(Texture.CompressedFormat format, int width, int height, ByteBuffer[] levels) {
+        this.format = format;
+        this.width = width;
+        this.height = height;
+        this.levels = levels;
+    }
+
+    /**
+     * Parses a DDS or KTX 1 file.
+     *
+     * @param buffer The file contents, must stay alive as long as the levels are used.
+     * @return The image.
+     * @throws IllegalArgumentException If the file is malformed or its format is not supported.
+     */
+    public static TextureContainer parse(ByteBuffer buffer) {
+        ByteBuffer b = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+
+        if (b.remaining() >= 4 && b.getInt(0) == DDS_MAGIC) return parseDDS(b);
+        if (isKTX(b)) return parseKTX(b);
+
+        throw new IllegalArgumentException("Unknown texture container.");
+    }
+
+    private static TextureContainer parseDDS(ByteBuffer b) {
+        check(b, 128);
+
+        int flags = b.getInt(8);
+        int height = b.getInt(12);
+        int width = b.getInt(16);
+        int mipMaps = (flags & DDSD_MIPMAPCOUNT) != 0 ? Math.max(1, b.getInt(28)) : 1;
+
+        int pixelFlags = b.getInt(80);
+        int fourCC = b.getInt(84);
+        checkSize(width, height, mipMaps);
+        if ((pixelFlags & DDPF_FOURCC) == 0) throw new IllegalArgumentException("Uncompressed DDS textures are not supported.");
+
+        Texture.CompressedFormat format;
+        int offset = 128;
+
+        switch (fourCC) {
+            case FOURCC_DXT1:
+                format = Texture.CompressedFormat.BC1A;
+                break;
+            case FOURCC_DXT5:
+                format = Texture.CompressedFormat.BC3;
+                break;
+            case FOURCC_DX10:
+                check(b, 148);
+                format = dxgi(b.getInt(128));
+                offset = 148;
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported DDS format " + fourCCName(fourCC) + ".");
+        }
+
+        ByteBuffer[] levels = new ByteBuffer[mipMaps];
+        for (int i = 0; i < mipMaps; i++) {
+            int size = format.size(Math.max(1, width >> i), Math.max(1, height >> i));
+            levels[i] = slice(b, offset, size);
+            offset += size;
+        }
+
+        return new TextureContainer(format, width, height, levels);
+    }
+
+    private static Texture.CompressedFormat dxgi(int format) {
+        switch (format) {
+            case DXGI_BC1_UNORM:
+                return Texture.CompressedFormat.BC1A;
+            case DXGI_BC3_UNORM:
+                return Texture.CompressedFormat.BC3;
+            case DXGI_BC7_UNORM:
+                return Texture.CompressedFormat.BC7;
+            case DXGI_BC7_UNORM_SRGB:
+                return Texture.CompressedFormat.BC7SRGB;
+            default:
+                throw new IllegalArgumentException("Unsupported DDS DXGI format " + format + ".");
+        }
+    }
+
+    private static boolean isKTX(ByteBuffer b) {
+        if (b.remaining() < KTX_IDENTIFIER.length) return false;
+
+        for (int i = 0; i < KTX_IDENTIFIER.length; i++) {
+            if (b.get(i) != KTX_IDENTIFIER[i]) return false;
+        }
+        return true;
+    }
+
+    private static TextureContainer parseKTX(ByteBuffer b) {
+        check(b, 64);
+
+        if (b.getInt(12) != KTX_ENDIANNESS) b.order(ByteOrder.BIG_ENDIAN);
+        if (b.getInt(12) != KTX_ENDIANNESS) throw new IllegalArgumentException("Malformed KTX endianness.");
+
+        int glType = b.getInt(16);
+        int internalFormat = b.getInt(28);
+        int width = b.getInt(36);
+        int height = Math.max(1, b.getInt(40));
+        int depth = b.getInt(44);
+        int arrayElements = b.getInt(48);
+        int faces = b.getInt(52);
+        int mipMaps = Math.max(1, b.getInt(56));
+        int keyValueBytes = b.getInt(60);
+
+        checkSize(width, height, mipMaps);
+        if (glType != 0) throw new IllegalArgumentException("Uncompressed KTX textures are not supported.");
+        if (depth > 1 || arrayElements > 0 || faces != 1) throw new IllegalArgumentException("Only 2D KTX textures are supported.");
+
+        Texture.CompressedFormat format = Texture.CompressedFormat.of(internalFormat);
+        if (format == null) throw new IllegalArgumentException("Unsupported KTX internal format 0x" + Integer.toHexString(internalFormat) + ".");
+
+        int offset = 64 + keyValueBytes;
+        ByteBuffer[] levels = new ByteBuffer[mipMaps];
+
+        for (int i = 0; i < mipMaps; i++) {
+            check(b, offset + 4);
+            int size = b.getInt(offset);
+            offset += 4;
+
+            levels[i] = slice(b, offset, size);
+            // Levels are padded to 4 bytes
+            offset += (size + 3) & ~3;
+        }
+
+        return new TextureContainer(format, width, height, levels);
+    }
+
+    /**
+     * Rejects empty images and more mip levels than the chain down to 1x1 has, past 32 levels the shifted size wraps.
+     */
+    private static void checkSize(int width, int height, int mipMaps) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Malformed texture size " + width + "x" + height + ".");
+
+        int maxLevels = 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+        if (mipMaps > maxLevels) throw new IllegalArgumentException("Malformed mip level count " + mipMaps + " for " + width + "x" + height + ".");
+    }
+
+    private static void check(ByteBuffer b, int size) {
+        // Negative sizes come from offsets that overflowed
+        if (size < 0 || b.remaining() < size) throw new IllegalArgumentException("Truncated texture container.");
+    }
+
+    private static ByteBuffer slice(ByteBuffer b, int offset, int size) {
+        if (offset < 0 || size < 0 || (long) offset + size > b.remaining()) throw new IllegalArgumentException("Truncated texture container.");
+
+        ByteBuffer level = b.duplicate();
+        level.position(offset).limit(offset + size);
+        return level.slice();
+    }
+
+    private static String fourCCName(int fourCC) {
+        char[] chars = new char[4];
+        for (int i = 0; i < 4; i++) chars[i] = (char) ((fourCC >> (i * 8)) & 0xFF);
+        return new String(chars);
+    }
+
+    /**
+     * Gets the number of mip levels.
+     *
+     * @return The number of levels, at least 1.
+     */
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    /**
+     * Gets the data of a mip level.
+     *
+     * @param level The level, 0 being the full size image.
+     * @return The compressed blocks of the level.
+     */
+    public ByteBuffer getLevel(int level) {
+        return levels[level];
+    }
+}
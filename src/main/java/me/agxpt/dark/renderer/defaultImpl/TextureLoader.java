@@ -0,0 +1,177 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.renderer.interfaces.ITexture;
+import org.lwjgl.stb.STBImage;
+import org.lwjgl.system.MemoryStack;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads textures from files without stalling the frame.
+ * Images are decoded on the executor, {@link #update()} uploads them on the OpenGL thread, at most
+ * a byte budget per call so many textures streaming in are spread over several frames.
+ */
+public class TextureLoader implements IDisposable {
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<Decoded> decoded = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger decoding = new AtomicInteger();
+    private long frameBudget;
+    private long uploadedBytes;
+
+    /**
+     * Creates a new texture loader.
+     *
+     * @param executor    The executor images are decoded on.
+     * @param frameBudget The maximum bytes uploaded per {@link #update()}.
+     */
+    public TextureLoader(ExecutorService executor, long frameBudget) {
+        this.executor = executor;
+        this.frameBudget = frameBudget;
+    }
+
+    /**
+     * Creates a new texture loader decoding on the common fork join pool.
+     *
+     * @param frameBudget The maximum bytes uploaded per {@link #update()}.
+     */
+    public TextureLoader(long frameBudget) {
+        this(ForkJoinPool.commonPool(), frameBudget);
+    }
+
+    /**
+     * Starts loading a texture, may be called from any thread.
+     *
+     * @param fileName    The file path.
+     * @param format      The pixel format.
+     * @param minFilter   The minifying filter.
+     * @param magFilter   The magnifying filter.
+     * @param placeholder The texture bound until the texture is ready, may be null.
+     * @return The texture, loading.
+     */
+    public AsyncTexture load(String fileName, Texture.Format format, Texture.MinFilter minFilter, Texture.MagFilter magFilter, ITexture placeholder) {
+        AsyncTexture texture = new AsyncTexture(fileName, placeholder);
+
+        decoding.incrementAndGet();
+        executor.execute(() -> {
+            try {
+                decode(texture, format, minFilter, magFilter);
+            } catch (RuntimeException e) {
+                texture.fail(e.toString());
+            } finally {
+                decoding.decrementAndGet();
+            }
+        });
+
+        return texture;
+    }
+
+    private void decode(AsyncTexture texture, Texture.Format format, Texture.MinFilter minFilter, Texture.MagFilter magFilter) {
+        if (texture.getState() != AsyncTexture.State.Loading) return;
+
+        try (MemoryStack stack = MemoryStack.stackPush()) {
+            IntBuffer width = stack.mallocInt(1);
+            IntBuffer height = stack.mallocInt(1);
+            IntBuffer channels = stack.mallocInt(1);
+
+            STBImage.stbi_set_flip_vertically_on_load_thread(1);
+            ByteBuffer data = STBImage.stbi_load(texture.getFileName(), width, height, channels, format.channels);
+
+            if (data == null) texture.fail(STBImage.stbi_failure_reason());
+            else decoded.add(new Decoded(texture, data, width.get(0), height.get(0), format, minFilter, magFilter));
+        }
+    }
+
+    /**
+     * Uploads decoded textures until the frame budget is used, must be called on the OpenGL thread.
+     * At least one texture is uploaded per call so textures larger than the budget still load.
+     *
+     * @return The number of textures still decoding or waiting for upload.
+     */
+    public int update() {
+        long bytes = 0;
+
+        Decoded next;
+        while (bytes < frameBudget && (next = decoded.poll()) != null) {
+            bytes += upload(next);
+        }
+
+        uploadedBytes += bytes;
+        return getPendingCount();
+    }
+
+    private static long upload(Decoded d) {
+        try {
+            // Disposed while decoding
+            if (d.texture.getState() != AsyncTexture.State.Loading) return 0;
+
+            d.texture.ready(new Texture(d.width, d.height, d.data, d.format, d.minFilter, d.magFilter));
+            return (long) d.width * d.height * d.format.channels;
+        } finally {
+            STBImage.stbi_image_free(d.data);
+        }
+    }
+
+    /**
+     * Sets the maximum bytes uploaded per {@link #update()}.
+     *
+     * @param frameBudget The budget in bytes.
+     */
+    public void setFrameBudget(long frameBudget) {
+        this.frameBudget = frameBudget;
+    }
+
+    /**
+     * Gets the number of textures still decoding or waiting for upload.
+     *
+     * @return The number of pending textures.
+     */
+    public int getPendingCount() {
+        return decoding.get() + decoded.size();
+    }
+
+    /**
+     * Gets the total bytes uploaded.
+     *
+     * @return The uploaded bytes.
+     */
+    public long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    /**
+     * Frees decoded images that were not uploaded yet. Textures still decoding are only freed by a later {@link #update()}.
+     */
+    @Override
+    public void dispose() {
+        Decoded next;
+        while ((next = decoded.poll()) != null) {
+            next.texture.fail("Disposed.");
+            STBImage.stbi_image_free(next.data);
+        }
+    }
+
+    private static final class Decoded {
+        private final AsyncTexture texture;
+        private final ByteBuffer data;
+        private final int width, height;
+        private final Texture.Format format;
+        private final Texture.MinFilter minFilter;
+        private final Texture.MagFilter magFilter;
+
+        private Decoded(AsyncTexture texture, ByteBuffer data, int width, int height, Texture.Format format, Texture.MinFilter minFilter, Texture.MagFilter magFilter) {
+            this.texture = texture;
+            this.data = data;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.minFilter = minFilter;
+            this.magFilter = magFilter;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.common.types.IColor;
+import me.agxpt.dark.common.types.IDisposable;
+import me.agxpt.dark.common.types.IM4f;
+import me.agxpt.dark.common.types.IV2d;
+import me.agxpt.dark.renderer.Renderer;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL31C.GL_DYNAMIC_DRAW;
+import static org.lwjgl.opengl.GL31C.GL_UNIFORM_BUFFER;
+import static org.lwjgl.opengl.GL31C.GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT;
+import static org.lwjgl.system.MemoryUtil.*;
+
+/**
+ * A uniform buffer object written with the std140 layout.
+ * The buffer holds a ring of slots, every {@link #begin()} moves to the next one so blocks of earlier draws
+ * are not overwritten. A buffer with a single slot is meant for blocks shared by all shaders, like the projection.
+ * Shaders read it after {@link me.agxpt.dark.renderer.interfaces.IShader#setBlock(String, int)}.
+ */
+public class UniformBuffer implements IDisposable {
+    private static int offsetAlignment;
+
+    private final int id;
+    private final int slotSize, slots;
+    private final long data;
+    private int slot = -1;
+    private long slotI;
+    private boolean building;
+
+    /**
+     * Creates a new uniform buffer.
+     *
+     * @param blockSize The size of the uniform block in bytes.
+     * @param slots     The number of blocks in the ring.
+     */
+    public UniformBuffer(int blockSize, int slots) {
+        if (offsetAlignment == 0) offsetAlignment = Renderer.gl.getInteger(GL_UNIFORM_BUFFER_OFFSET_ALIGNMENT);
+
+        this.slotSize = align(blockSize, offsetAlignment);
+        this.slots = slots;
+
+        data = nmemCallocChecked(1, (long) slotSize * slots);
+
+        id = Renderer.gl.genBuffer();
+        Renderer.gl.bindBuffer(GL_UNIFORM_BUFFER, id);
+        Renderer.gl.bufferData(GL_UNIFORM_BUFFER, (long) slotSize * slots, NULL, GL_DYNAMIC_DRAW);
+        Renderer.gl.bindBuffer(GL_UNIFORM_BUFFER, 0);
+    }
+
+    /**
+     * Creates a new uniform buffer with a single block.
+     *
+     * @param blockSize The size of the uniform block in bytes.
+     */
+    public UniformBuffer(int blockSize) {
+        this(blockSize, 1);
+    }
+
+    private static int align(int offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+
+    @Override
+    public void dispose() {
+        nmemFree(data);
+        Renderer.gl.deleteBuffer(id);
+    }
+
+    /**
+     * Moves to the next slot and starts writing the block from its start.
+     */
+    public void begin() {
+        if (building) throw new IllegalStateException("UniformBuffer.begin() called while already building.");
+
+        slot = (slot + 1) % slots;
+        slotI = 0;
+
+        building = true;
+    }
+
+    /**
+     * Moves the write position to the std140 alignment of the next member.
+     *
+     * @param size      The size of the member.
+     * @param alignment The base alignment of the member.
+     * @return The address to write the member to.
+     */
+    private long put(int size, int alignment) {
+        slotI = (slotI + alignment - 1) / alignment * alignment;
+        if (slotI + size > slotSize) throw new IndexOutOfBoundsException("Uniform block larger than " + slotSize + " bytes.");
+
+        long p = data + (long) slot * slotSize + slotI;
+        slotI += size;
+        return p;
+    }
+
+    /**
+     * Puts an int or bool.
+     *
+     * @param v The int value.
+     */
+    public UniformBuffer int_(int v) {
+        memPutInt(put(4, 4), v);
+        return this;
+    }
+
+    /**
+     * Puts a float.
+     *
+     * @param v The float value.
+     */
+    public UniformBuffer float_(double v) {
+        memPutFloat(put(4, 4), (float) v);
+        return this;
+    }
+
+    /**
+     * Puts a 2d float vector.
+     *
+     * @param x The x of vector.
+     * @param y The y of vector.
+     */
+    public UniformBuffer vec2(double x, double y) {
+        long p = put(8, 8);
+
+        memPutFloat(p, (float) x);
+        memPutFloat(p + 4, (float) y);
+        return this;
+    }
+
+    /**
+     * Puts a 2d float vector.
+     *
+     * @param vec The vector.
+     */
+    public UniformBuffer vec2(IV2d vec) {
+        return vec2(vec.x(), vec.y());
+    }
+
+    /**
+     * Puts a 3d float vector, aligned like a 4d vector.
+     *
+     * @param x The x of vector.
+     * @param y The y of vector.
+     * @param z The z of vector.
+     */
+    public UniformBuffer vec3(double x, double y, double z) {
+        long p = put(12, 16);
+
+        memPutFloat(p, (float) x);
+        memPutFloat(p + 4, (float) y);
+        memPutFloat(p + 8, (float) z);
+        return this;
+    }
+
+    /**
+     * Puts a 4d float vector.
+     *
+     * @param x The x of vector.
+     * @param y The y of vector.
+     * @param z The z of vector.
+     * @param w The w of vector.
+     */
+    public UniformBuffer vec4(double x, double y, double z, double w) {
+        long p = put(16, 16);
+
+        memPutFloat(p, (float) x);
+        memPutFloat(p + 4, (float) y);
+        memPutFloat(p + 8, (float) z);
+        memPutFloat(p + 12, (float) w);
+        return this;
+    }
+
+    /**
+     * Puts a rgba color as a 4d float vector.
+     *
+     * @param color The color.
+     */
+    public UniformBuffer color(IColor color) {
+        return vec4(color.r(), color.g(), color.b(), color.a());
+    }
+
+    /**
+     * Puts a 4x4 matrix in column major order.
+     *
+     * @param mat The matrix.
+     */
+    public UniformBuffer mat4(IM4f mat) {
+        FloatBuffer buffer = mat.getAsBuffer();
+        long p = put(64, 16);
+
+        // Absolute reads leave the position alone and also work for heap buffers
+        int offset = buffer.position();
+        for (int i = 0; i < 16; i++) memPutFloat(p + i * 4L, buffer.get(offset + i));
+        return this;
+    }
+
+    /**
+     * Uploads the written part of the current block.
+     */
+    public void end() {
+        if (!building) throw new IllegalStateException("UniformBuffer.end() called while not building.");
+
+        if (slotI > 0) {
+            Renderer.gl.bindBuffer(GL_UNIFORM_BUFFER, id);
+            Renderer.gl.bufferSubData(GL_UNIFORM_BUFFER, (long) slot * slotSize, slotI, data + (long) slot * slotSize);
+            Renderer.gl.bindBuffer(GL_UNIFORM_BUFFER, 0);
+        }
+
+        building = false;
+    }
+
+    /**
+     * Binds the current block to a uniform block binding point.
+     *
+     * @param binding The binding point.
+     */
+    public void bind(int binding) {
+        if (building) end();
+
+        Renderer.gl.bindBufferRange(GL_UNIFORM_BUFFER, binding, id, (long) Math.max(slot, 0) * slotSize, slotSize);
+    }
+}
@@ -1,5 +1,8 @@
 package me.agxpt.dark.renderer.interfaces;
 
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
 public interface IGL {
     /**
      * Bind a vertex array object.
@@ -22,6 +25,33 @@ public interface IGL {
      */
     void bindIBO(int buffer);
 
+    /**
+     * Binds a buffer object to any target, like the pixel unpack buffer.
+     *
+     * @param target The buffer target.
+     * @param buffer The buffer object.
+     */
+    void bindBuffer(int target, int buffer);
+
+    /**
+     * Maps a range of the buffer bound to a target.
+     *
+     * @param target The buffer target.
+     * @param offset The offset of the range in bytes.
+     * @param size   The size of the range in bytes.
+     * @param access The access flags.
+     * @return The address of the mapped range, 0 on failure.
+     */
+    long mapBufferRange(int target, long offset, long size, int access);
+
+    /**
+     * Unmaps the buffer bound to a target.
+     *
+     * @param target The buffer target.
+     * @return False if the contents were corrupted while mapped.
+     */
+    boolean unmapBuffer(int target);
+
     /**
      * Binds a texture.
      *
@@ -38,4 +68,534 @@ public interface IGL {
     default void bindTexture(int texture) {
         bindTexture(texture, 0);
     }
+
+    /**
+     * Deletes a vertex array object.
+     *
+     * @param array The vertex array object.
+     */
+    void deleteVAO(int array);
+
+    /**
+     * Deletes a buffer object.
+     *
+     * @param buffer The buffer object.
+     */
+    void deleteBuffer(int buffer);
+
+    /**
+     * Deletes a texture.
+     *
+     * @param texture The texture object.
+     */
+    void deleteTexture(int texture);
+
+    /**
+     * Creates a vertex array object.
+     *
+     * @return The vertex array object.
+     */
+    int genVAO();
+
+    /**
+     * Creates a buffer object.
+     *
+     * @return The buffer object.
+     */
+    int genBuffer();
+
+    /**
+     * Creates a texture.
+     *
+     * @return The texture object.
+     */
+    int genTexture();
+
+    /**
+     * Allocates the storage of the buffer bound to a target and fills it.
+     *
+     * @param target The buffer target.
+     * @param size   The size in bytes.
+     * @param data   The address of the data, 0 to leave the storage undefined.
+     * @param usage  The usage hint.
+     */
+    void bufferData(int target, long size, long data, int usage);
+
+    /**
+     * Replaces a range of the buffer bound to a target.
+     *
+     * @param target The buffer target.
+     * @param offset The offset in bytes.
+     * @param size   The size in bytes.
+     * @param data   The address of the data.
+     */
+    void bufferSubData(int target, long offset, long size, long data);
+
+    /**
+     * Enables a vertex attribute of the bound vertex array object.
+     *
+     * @param index The attribute index.
+     */
+    void enableVertexAttrib(int index);
+
+    /**
+     * Points a vertex attribute of the bound vertex array object at the bound array buffer.
+     *
+     * @param index      The attribute index.
+     * @param size       The number of components.
+     * @param type       The component type.
+     * @param normalized Whether integer components are normalized.
+     * @param stride     The size of a vertex in bytes.
+     * @param offset     The offset of the attribute in bytes.
+     */
+    void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset);
+
+    /**
+     * Sets the instance divisor of a vertex attribute.
+     *
+     * @param index   The attribute index.
+     * @param divisor The number of instances per attribute value, 0 for per vertex attributes.
+     */
+    void vertexAttribDivisor(int index, int divisor);
+
+    /**
+     * Draws indexed primitives from the bound vertex array object.
+     *
+     * @param mode       The primitive mode.
+     * @param count      The number of indices.
+     * @param type       The index type.
+     * @param offset     The offset of the first index in bytes.
+     * @param baseVertex The value added to every index.
+     */
+    void drawElements(int mode, int count, int type, long offset, int baseVertex);
+
+    /**
+     * Draws indexed primitives from the bound vertex array object several times.
+     *
+     * @param mode       The primitive mode.
+     * @param count      The number of indices.
+     * @param type       The index type.
+     * @param offset     The offset of the first index in bytes.
+     * @param instances  The number of instances.
+     * @param baseVertex The value added to every index.
+     */
+    void drawElementsInstanced(int mode, int count, int type, long offset, int instances, int baseVertex);
+
+    /**
+     * Enables or disables primitive restart for indexed draws.
+     *
+     * @param enabled True to enable primitive restart.
+     * @param index   The index that restarts the primitive, ignored when disabling.
+     */
+    void primitiveRestart(boolean enabled, int index);
+
+    /**
+     * Sets a parameter of the bound 2D texture.
+     *
+     * @param name  The parameter.
+     * @param value The value.
+     */
+    void texParameter(int name, int value);
+
+    /**
+     * Sets a pixel storage mode.
+     *
+     * @param name  The mode.
+     * @param value The value.
+     */
+    void pixelStore(int name, int value);
+
+    /**
+     * Allocates a level of the bound 2D texture and fills it.
+     *
+     * @param level          The mip level.
+     * @param internalFormat The internal format.
+     * @param width          The width of the level.
+     * @param height         The height of the level.
+     * @param format         The pixel format.
+     * @param type           The pixel type.
+     * @param pixels         The address of the pixels, 0 to leave the level undefined.
+     */
+    void texImage2D(int level, int internalFormat, int width, int height, int format, int type, long pixels);
+
+    /**
+     * Replaces a rectangle of a level of the bound 2D texture.
+     *
+     * @param level  The mip level.
+     * @param x      The x of the rectangle.
+     * @param y      The y of the rectangle.
+     * @param width  The width of the rectangle.
+     * @param height The height of the rectangle.
+     * @param format The pixel format.
+     * @param type   The pixel type.
+     * @param pixels The address of the pixels, or the offset into the bound pixel unpack buffer.
+     */
+    void texSubImage2D(int level, int x, int y, int width, int height, int format, int type, long pixels);
+
+    /**
+     * Allocates a level of the bound 2D texture from block compressed data.
+     *
+     * @param level          The mip level.
+     * @param internalFormat The compressed internal format.
+     * @param width          The width of the level.
+     * @param height         The height of the level.
+     * @param size           The size of the data in bytes.
+     * @param data           The address of the data.
+     */
+    void compressedTexImage2D(int level, int internalFormat, int width, int height, int size, long data);
+
+    /**
+     * Generates the mip levels of the bound 2D texture.
+     */
+    void generateMipmap();
+
+    /**
+     * Makes a program current.
+     *
+     * @param program The program object.
+     */
+    void useProgram(int program);
+
+    /**
+     * Sets an int uniform of the current program.
+     *
+     * @param location The uniform location.
+     * @param v        The value.
+     */
+    void uniform(int location, int v);
+
+    /**
+     * Sets a float uniform of the current program.
+     *
+     * @param location The uniform location.
+     * @param v        The value.
+     */
+    void uniform(int location, float v);
+
+    /**
+     * Sets a 2d float vector uniform of the current program.
+     *
+     * @param location The uniform location.
+     * @param x        The x of the vector.
+     * @param y        The y of the vector.
+     */
+    void uniform(int location, float x, float y);
+
+    /**
+     * Sets a 4x4 matrix uniform of the current program.
+     *
+     * @param location The uniform location.
+     * @param matrix   The address of the 16 floats of the matrix in column major order.
+     */
+    void uniformMatrix4(int location, long matrix);
+
+    /**
+     * Allocates immutable storage for the bound 2D texture.
+     *
+     * @param levels         The number of mipmap levels.
+     * @param internalFormat The sized internal format.
+     * @param width          The width.
+     * @param height         The height.
+     */
+    void texStorage2D(int levels, int internalFormat, int width, int height);
+
+    /**
+     * Queries a parameter of a program object.
+     *
+     * @param program The program object.
+     * @param name    The parameter name.
+     * @return The parameter value.
+     */
+    int getProgrami(int program, int name);
+
+    /**
+     * Queries the name, size and type of an active uniform.
+     *
+     * @param program   The program object.
+     * @param index     The index of the active uniform.
+     * @param maxLength The maximum name length.
+     * @param size      Receives the array size of the uniform.
+     * @param type      Receives the type of the uniform.
+     * @return The uniform name.
+     */
+    String getActiveUniform(int program, int index, int maxLength, IntBuffer size, IntBuffer type);
+
+    /**
+     * Queries the location of a uniform.
+     *
+     * @param program The program object.
+     * @param name    The uniform name.
+     * @return The uniform location, -1 if the program has no such uniform.
+     */
+    int getUniformLocation(int program, CharSequence name);
+
+    /**
+     * Binds a range of a buffer object to an indexed binding point, like a uniform block binding.
+     *
+     * @param target The buffer target.
+     * @param index  The binding point.
+     * @param buffer The buffer object.
+     * @param offset The offset of the range in bytes.
+     * @param size   The size of the range in bytes.
+     */
+    void bindBufferRange(int target, int index, int buffer, long offset, long size);
+
+    /**
+     * Allocates immutable storage for the buffer bound to a target.
+     *
+     * @param target The buffer target.
+     * @param size   The size in bytes.
+     * @param flags  The storage flags.
+     */
+    void bufferStorage(int target, long size, int flags);
+
+    /**
+     * Checks whether {@link #bufferStorage(int, long, int)} and persistent mappings are available.
+     *
+     * @return True on OpenGL 4.4 or with {@code ARB_buffer_storage}.
+     */
+    boolean isBufferStorageSupported();
+
+    /**
+     * Copies a range between the buffers bound to two targets.
+     *
+     * @param readTarget  The target of the source buffer.
+     * @param writeTarget The target of the destination buffer.
+     * @param readOffset  The offset in the source in bytes.
+     * @param writeOffset The offset in the destination in bytes.
+     * @param size        The size in bytes.
+     */
+    void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size);
+
+    /**
+     * Inserts a fence that is signaled once every previous command completed.
+     *
+     * @return The sync object.
+     */
+    long fenceSync();
+
+    /**
+     * Waits for a sync object to be signaled.
+     *
+     * @param sync    The sync object.
+     * @param flags   The wait flags.
+     * @param timeout The timeout in nanoseconds.
+     * @return The wait result, like GL_ALREADY_SIGNALED or GL_TIMEOUT_EXPIRED.
+     */
+    int clientWaitSync(long sync, int flags, long timeout);
+
+    /**
+     * Deletes a sync object.
+     *
+     * @param sync The sync object.
+     */
+    void deleteSync(long sync);
+
+    /**
+     * Queries an integer state value.
+     *
+     * @param name The state name.
+     * @return The value.
+     */
+    int getInteger(int name);
+
+    /**
+     * Queries a string describing the context, like the vendor or version.
+     *
+     * @param name The string name.
+     * @return The string, null on failure.
+     */
+    String getString(int name);
+
+    /**
+     * Creates a program object.
+     *
+     * @return The program object.
+     */
+    int createProgram();
+
+    /**
+     * Deletes a program object.
+     *
+     * @param program The program object.
+     */
+    void deleteProgram(int program);
+
+    /**
+     * Creates a shader object.
+     *
+     * @param type The shader type.
+     * @return The shader object.
+     */
+    int createShader(int type);
+
+    /**
+     * Deletes a shader object.
+     *
+     * @param shader The shader object.
+     */
+    void deleteShader(int shader);
+
+    /**
+     * Replaces the source of a shader object.
+     *
+     * @param shader The shader object.
+     * @param source The source.
+     */
+    void shaderSource(int shader, CharSequence source);
+
+    /**
+     * Compiles a shader object.
+     *
+     * @param shader The shader object.
+     */
+    void compileShader(int shader);
+
+    /**
+     * Queries a parameter of a shader object.
+     *
+     * @param shader The shader object.
+     * @param name   The parameter name.
+     * @return The parameter value.
+     */
+    int getShaderi(int shader, int name);
+
+    /**
+     * Queries the info log of a shader object.
+     *
+     * @param shader The shader object.
+     * @return The info log.
+     */
+    String getShaderInfoLog(int shader);
+
+    /**
+     * Attaches a shader object to a program object.
+     *
+     * @param program The program object.
+     * @param shader  The shader object.
+     */
+    void attachShader(int program, int shader);
+
+    /**
+     * Detaches a shader object from a program object.
+     *
+     * @param program The program object.
+     * @param shader  The shader object.
+     */
+    void detachShader(int program, int shader);
+
+    /**
+     * Links a program object.
+     *
+     * @param program The program object.
+     */
+    void linkProgram(int program);
+
+    /**
+     * Validates a program object against the current state.
+     *
+     * @param program The program object.
+     */
+    void validateProgram(int program);
+
+    /**
+     * Queries the info log of a program object.
+     *
+     * @param program The program object.
+     * @return The info log.
+     */
+    String getProgramInfoLog(int program);
+
+    /**
+     * Sets a parameter of a program object.
+     *
+     * @param program The program object.
+     * @param name    The parameter name.
+     * @param value   The value.
+     */
+    void programParameter(int program, int name, int value);
+
+    /**
+     * Queries the index of a uniform block.
+     *
+     * @param program The program object.
+     * @param name    The block name.
+     * @return The block index, GL_INVALID_INDEX if the program has no such block.
+     */
+    int getUniformBlockIndex(int program, CharSequence name);
+
+    /**
+     * Assigns a binding point to a uniform block.
+     *
+     * @param program The program object.
+     * @param index   The block index.
+     * @param binding The binding point.
+     */
+    void uniformBlockBinding(int program, int index, int binding);
+
+    /**
+     * Reads back the binary of a linked program object.
+     *
+     * @param program The program object.
+     * @param format  Receives the binary format.
+     * @param binary  Receives the binary, its remaining bytes are the maximum size.
+     * @return The number of bytes written.
+     */
+    int getProgramBinary(int program, IntBuffer format, ByteBuffer binary);
+
+    /**
+     * Loads a program object from a binary.
+     *
+     * @param program The program object.
+     * @param format  The binary format.
+     * @param binary  The binary, from its position to its limit.
+     */
+    void programBinary(int program, int format, ByteBuffer binary);
+
+    /**
+     * Sets the number of threads the driver may use to compile shaders in parallel.
+     *
+     * @param count The number of threads, 0xFFFFFFFF for as many as the driver likes.
+     */
+    void maxShaderCompilerThreads(int count);
+
+    /**
+     * Creates a query object.
+     *
+     * @return The query object.
+     */
+    int genQuery();
+
+    /**
+     * Deletes a query object.
+     *
+     * @param query The query object.
+     */
+    void deleteQuery(int query);
+
+    /**
+     * Records the GPU time into a query object once previous commands completed.
+     *
+     * @param query  The query object.
+     * @param target The counter, GL_TIMESTAMP.
+     */
+    void queryCounter(int query, int target);
+
+    /**
+     * Queries an int parameter of a query object.
+     *
+     * @param query The query object.
+     * @param name  The parameter name.
+     * @return The parameter value.
+     */
+    int getQueryObjecti(int query, int name);
+
+    /**
+     * Queries a 64 bit parameter of a query object, like its result.
+     *
+     * @param query The query object.
+     * @param name  The parameter name.
+     * @return The parameter value.
+     */
+    long getQueryObjecti64(int query, int name);
 }
@@ -59,6 +59,71 @@ public interface IShader extends IDisposable {
      */
     void set(String name, ITexture texture);
 
+    /**
+     * Resolves a uniform once so it can be set without a name lookup.
+     *
+     * @param name The uniform name.
+     * @return The handle of the uniform.
+     */
+    UniformHandle uniform(String name);
+
+    /**
+     * Sets the value of a uniform.
+     *
+     * @param uniform The uniform handle.
+     * @param v       The int value to set.
+     */
+    void set(UniformHandle uniform, int v);
+
+    /**
+     * Sets the value of a uniform.
+     *
+     * @param uniform The uniform handle.
+     * @param v       The float value to set.
+     */
+    void set(UniformHandle uniform, double v);
+
+    /**
+     * Sets the value of a uniform.
+     *
+     * @param uniform The uniform handle.
+     * @param x       The x value of the vector.
+     * @param y       The y value of the vector.
+     */
+    void set(UniformHandle uniform, double x, double y);
+
+    /**
+     * Sets the value of a uniform.
+     *
+     * @param uniform The uniform handle.
+     * @param v       The vector2 to set.
+     */
+    void set(UniformHandle uniform, IV2d v);
+
+    /**
+     * Sets the value of a uniform.
+     *
+     * @param uniform The uniform handle.
+     * @param mat     The 4x4 matrix to set.
+     */
+    void set(UniformHandle uniform, IM4f mat);
+
+    /**
+     * Sets the value of a uniform.
+     *
+     * @param uniform The uniform handle.
+     * @param texture The texture to set.
+     */
+    void set(UniformHandle uniform, ITexture texture);
+
+    /**
+     * Makes a uniform block read from a uniform buffer binding point.
+     *
+     * @param name    The uniform block name.
+     * @param binding The binding point.
+     */
+    void setBlock(String name, int binding);
+
 
     /**
      * Sets the default values of the shader uniforms.
@@ -0,0 +1,34 @@
+package me.agxpt.dark.renderer.interfaces;
+
+/**
+ * A uniform of a specific shader, resolved once with {@link IShader#uniform(String)}.
+ * Setting a uniform through its handle needs no name lookup.
+ */
+public final class UniformHandle {
+    /**
+     * The uniform name.
+     */
+    public final String name;
+
+    /**
+     * The dense index of the uniform inside its shader.
+     */
+    public final int index;
+
+    /**
+     * The uniform location, -1 if the shader has no active uniform with this name.
+     */
+    public final int location;
+
+    /**
+     * The OpenGL type of the uniform, 0 if unknown.
+     */
+    public final int type;
+
+    public UniformHandle(String name, int index, int location, int type) {
+        this.name = name;
+        this.index = index;
+        this.location = location;
+        this.type = type;
+    }
+}
@@ -0,0 +1,126 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CachingGLTest {
+    private LogGL log;
+    private CachingGL gl;
+
+    @BeforeEach
+    public void setup() {
+        log = new LogGL();
+        gl = new CachingGL(log);
+    }
+
+    @Test
+    public void repeatedBindsAreElided() {
+        gl.bindVAO(1);
+        gl.bindVAO(1);
+        gl.bindVBO(2);
+        gl.bindVBO(2);
+        gl.useProgram(3);
+        gl.useProgram(3);
+
+        assertEquals(Arrays.asList("bindVAO 1", "bindVBO 2", "useProgram 3"), log.take());
+        assertEquals(3, gl.getIssued());
+        assertEquals(3, gl.getElided());
+    }
+
+    @Test
+    public void iboIsInvalidatedOnVaoChange() {
+        gl.bindVAO(1);
+        gl.bindIBO(5);
+        gl.bindIBO(5);
+        assertEquals(Arrays.asList("bindVAO 1", "bindIBO 5"), log.take());
+
+        // Rebinding the same vertex array keeps its element array buffer
+        gl.bindVAO(1);
+        gl.bindIBO(5);
+        assertEquals(Collections.emptyList(), log.take());
+
+        // Another vertex array has its own element array buffer binding
+        gl.bindVAO(2);
+        gl.bindIBO(5);
+        assertEquals(Arrays.asList("bindVAO 2", "bindIBO 5"), log.take());
+    }
+
+    @Test
+    public void textureIsElidedOnlyOnActiveUnit() {
+        gl.bindTexture(3, 0);
+        gl.bindTexture(3, 0);
+        assertEquals(Collections.singletonList("bindTexture 3 0"), log.take());
+
+        gl.bindTexture(4, 1);
+        // Unit 0 still holds texture 3, but the bind has to make it the active unit again
+        gl.bindTexture(3, 0);
+        gl.bindTexture(3, 0);
+        assertEquals(Arrays.asList("bindTexture 4 1", "bindTexture 3 0"), log.take());
+    }
+
+    @Test
+    public void deleteVaoResetsBinding() {
+        gl.bindVAO(1);
+        gl.bindIBO(5);
+        gl.deleteVAO(1);
+        assertEquals(Arrays.asList("bindVAO 1", "bindIBO 5", "deleteVAO 1"), log.take());
+
+        // Deleting the bound vertex array binds 0, and the name may be reused
+        gl.bindVAO(0);
+        gl.bindVAO(1);
+        gl.bindIBO(5);
+        assertEquals(Arrays.asList("bindVAO 1", "bindIBO 5"), log.take());
+    }
+
+    @Test
+    public void deleteBufferResetsBinding() {
+        gl.bindVAO(1);
+        gl.bindVBO(2);
+        gl.bindIBO(3);
+        gl.deleteBuffer(2);
+        gl.deleteBuffer(3);
+        log.take();
+
+        gl.bindVBO(0);
+        gl.bindIBO(0);
+        assertEquals(Collections.emptyList(), log.take());
+
+        gl.bindVBO(2);
+        gl.bindIBO(3);
+        assertEquals(Arrays.asList("bindVBO 2", "bindIBO 3"), log.take());
+    }
+
+    @Test
+    public void deleteTextureResetsEveryUnit() {
+        gl.bindTexture(7, 1);
+        gl.bindTexture(7, 0);
+        gl.deleteTexture(7);
+        log.take();
+
+        gl.bindTexture(0, 0);
+        assertEquals(Collections.emptyList(), log.take());
+
+        gl.bindTexture(7, 0);
+        gl.bindTexture(7, 1);
+        assertEquals(Arrays.asList("bindTexture 7 0", "bindTexture 7 1"), log.take());
+    }
+
+    @Test
+    public void invalidateForgetsBindings() {
+        gl.bindVAO(1);
+        gl.bindTexture(2, 0);
+        gl.useProgram(3);
+        log.take();
+
+        gl.invalidate();
+        gl.bindVAO(1);
+        gl.bindTexture(2, 0);
+        gl.useProgram(3);
+        assertEquals(Arrays.asList("bindVAO 1", "bindTexture 2 0", "useProgram 3"), log.take());
+    }
+}
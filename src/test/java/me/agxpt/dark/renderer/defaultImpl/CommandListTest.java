@@ -0,0 +1,129 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.lwjgl.opengl.GL11C.*;
+
+public class CommandListTest {
+    private LogGL log;
+    private CommandList list;
+    private final List<Mesh> meshes = new ArrayList<>();
+
+    @BeforeEach
+    public void setup() {
+        log = new LogGL();
+        Renderer.gl = log;
+        list = new CommandList(64);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (Mesh mesh : meshes) mesh.dispose();
+        list.dispose();
+        Renderer.gl = new GL();
+    }
+
+    private <T extends Mesh> T quad(T mesh) {
+        mesh.begin();
+        mesh.quad(
+                mesh.vec2(0, 0).next(),
+                mesh.vec2(0, 1).next(),
+                mesh.vec2(1, 1).next(),
+                mesh.vec2(1, 0).next()
+        );
+        mesh.end();
+
+        meshes.add(mesh);
+        return mesh;
+    }
+
+    @Test
+    public void replayIssuesRecordedCommands() {
+        Shader a = new Shader(10, false, 0), b = new Shader(11, false, 0);
+        Mesh mesh = quad(new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2));
+        ShaderMesh first = quad(new ShaderMesh(b, Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2));
+        ShaderMesh second = quad(new ShaderMesh(b, Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2));
+
+        list.shader(a).draw(mesh).drawInstanced(mesh, 3);
+        list.draw(first).draw(second);
+        assertEquals(6, list.getCommandCount());
+
+        log.take();
+        list.replay();
+
+        String draw = "drawElements " + GL_TRIANGLES + " 6 " + GL_UNSIGNED_SHORT + " 0 0";
+        assertEquals(Arrays.asList(
+                "useProgram 10",
+                "bindVAO " + mesh.getVAO(),
+                draw,
+                "drawElementsInstanced " + GL_TRIANGLES + " 6 " + GL_UNSIGNED_SHORT + " 0 3 0",
+                // The shader mesh hooks are not called, so b is bound once for both draws
+                "useProgram 11",
+                "bindVAO " + first.getVAO(),
+                draw,
+                "bindVAO " + second.getVAO(),
+                draw,
+                "bindVAO 0"
+        ), log.take());
+    }
+
+    @Test
+    public void replayCallsNoRenderHooks() {
+        int[] hooks = new int[2];
+        Mesh mesh = quad(new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2) {
+            @Override
+            protected void beforeRender() {
+                hooks[0]++;
+            }
+
+            @Override
+            protected void afterRender() {
+                hooks[1]++;
+            }
+        });
+
+        list.draw(mesh).drawInstanced(mesh, 2);
+        list.replay();
+        assertEquals(0, hooks[0]);
+        assertEquals(0, hooks[1]);
+
+        // Rendering directly calls both
+        mesh.render();
+        assertEquals(1, hooks[0]);
+        assertEquals(1, hooks[1]);
+    }
+
+    @Test
+    public void resetAllowsRecordingAgain() {
+        Mesh mesh = quad(new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2));
+
+        list.draw(mesh);
+        list.reset();
+        assertEquals(0, list.getCommandCount());
+        assertEquals(0, list.getSize());
+
+        log.take();
+        list.replay();
+        assertEquals(0, log.take().size());
+    }
+
+    @Test
+    public void rejectsBuildingMeshes() {
+        Mesh mesh = new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+        meshes.add(mesh);
+        mesh.begin();
+
+        assertThrows(IllegalStateException.class, () -> list.draw(mesh));
+        assertThrows(IllegalStateException.class, () -> list.drawInstanced(mesh, 2));
+        mesh.end();
+    }
+}
@@ -0,0 +1,118 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GuillotinePackerTest {
+    private static int[] insert(GuillotinePacker packer, int w, int h) {
+        long position = packer.insert(w, h);
+        assertTrue(position != -1, w + "x" + h + " did not fit");
+        return new int[]{GuillotinePacker.x(position), GuillotinePacker.y(position), w, h};
+    }
+
+    private static boolean overlap(int[] a, int[] b) {
+        return a[0] < b[0] + b[2] && b[0] < a[0] + a[2] && a[1] < b[1] + b[3] && b[1] < a[1] + a[3];
+    }
+
+    private static void assertPacked(GuillotinePacker packer, List<int[]> rects) {
+        long area = 0;
+
+        for (int i = 0; i < rects.size(); i++) {
+            int[] a = rects.get(i);
+            assertTrue(a[0] >= 0 && a[1] >= 0 && a[0] + a[2] <= packer.getWidth() && a[1] + a[3] <= packer.getHeight(), "out of bounds");
+            for (int j = i + 1; j < rects.size(); j++) assertFalse(overlap(a, rects.get(j)), "rectangles " + i + " and " + j + " overlap");
+
+            area += (long) a[2] * a[3];
+        }
+
+        assertEquals((double) area / (packer.getWidth() * packer.getHeight()), packer.getOccupancy(), 1e-9);
+    }
+
+    @Test
+    public void insertFillsTheArea() {
+        GuillotinePacker packer = new GuillotinePacker(64, 64);
+        List<int[]> rects = new ArrayList<>();
+
+        for (int i = 0; i < 4; i++) rects.add(insert(packer, 32, 32));
+        assertPacked(packer, rects);
+        assertEquals(1, packer.getOccupancy(), 0);
+        assertEquals(0, packer.getFreeCount());
+
+        assertEquals(-1, packer.insert(1, 1));
+    }
+
+    @Test
+    public void insertRejectsTooLarge() {
+        GuillotinePacker packer = new GuillotinePacker(64, 32);
+
+        assertEquals(-1, packer.insert(65, 1));
+        assertEquals(-1, packer.insert(1, 33));
+        assertEquals(0, packer.getOccupancy(), 0);
+
+        insert(packer, 64, 32);
+    }
+
+    @Test
+    public void insertedRectanglesNeverOverlap() {
+        GuillotinePacker packer = new GuillotinePacker(256, 256);
+        List<int[]> rects = new ArrayList<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            int w = 1 + random.nextInt(24), h = 1 + random.nextInt(24);
+            long position = packer.insert(w, h);
+            if (position != -1) rects.add(new int[]{GuillotinePacker.x(position), GuillotinePacker.y(position), w, h});
+        }
+
+        assertTrue(rects.size() > 100);
+        assertPacked(packer, rects);
+    }
+
+    @Test
+    public void freeMergesNeighbours() {
+        GuillotinePacker packer = new GuillotinePacker(64, 64);
+        List<int[]> rects = new ArrayList<>();
+        for (int i = 0; i < 4; i++) rects.add(insert(packer, 32, 32));
+
+        for (int[] r : rects) packer.free(r[0], r[1], r[2], r[3]);
+
+        // The four quarters merge back into the whole area
+        assertEquals(1, packer.getFreeCount());
+        assertEquals(0, packer.getOccupancy(), 0);
+        assertEquals(0, GuillotinePacker.x(packer.insert(64, 64)));
+    }
+
+    @Test
+    public void freedSpaceIsReused() {
+        GuillotinePacker packer = new GuillotinePacker(64, 64);
+        insert(packer, 64, 16);
+        int[] middle = insert(packer, 64, 32);
+        insert(packer, 64, 16);
+        assertEquals(-1, packer.insert(64, 32));
+
+        packer.free(middle[0], middle[1], middle[2], middle[3]);
+        assertEquals(0.5, packer.getOccupancy(), 0);
+
+        int[] again = insert(packer, 64, 32);
+        assertEquals(middle[0], again[0]);
+        assertEquals(middle[1], again[1]);
+    }
+
+    @Test
+    public void resetFreesEverything() {
+        GuillotinePacker packer = new GuillotinePacker(64, 64);
+        for (int i = 0; i < 10; i++) insert(packer, 10, 10);
+
+        packer.reset();
+        assertEquals(0, packer.getOccupancy(), 0);
+        assertEquals(1, packer.getFreeCount());
+        insert(packer, 64, 64);
+    }
+}
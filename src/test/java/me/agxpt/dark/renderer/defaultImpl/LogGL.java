@@ -0,0 +1,404 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.interfaces.IGL;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.lwjgl.system.MemoryUtil.memAddress;
+
+/**
+ * Implementation of {@link IGL} that only records the calls it receives as readable strings, e.g. {@code bindVAO 3}.
+ * Creating objects is not logged, names are handed out counting up. Queries report success and programs have no
+ * uniforms.
+ */
+public class LogGL implements IGL {
+    public final List<String> calls = new ArrayList<>();
+    private int nextName;
+    private ByteBuffer mapped = ByteBuffer.allocateDirect(0);
+
+    /**
+     * Creates a log that hands out names starting at 1.
+     */
+    public LogGL() {
+        this(1);
+    }
+
+    /**
+     * Creates a log that hands out names starting at another value, to tell them apart from recorded names.
+     *
+     * @param firstName The first name.
+     */
+    public LogGL(int firstName) {
+        nextName = firstName;
+    }
+
+    private void log(String name, Object... args) {
+        StringBuilder sb = new StringBuilder(name);
+        for (Object arg : args) sb.append(' ').append(arg);
+        calls.add(sb.toString());
+    }
+
+    /**
+     * Gets the recorded calls and clears the log.
+     *
+     * @return The recorded calls.
+     */
+    public List<String> take() {
+        List<String> taken = new ArrayList<>(calls);
+        calls.clear();
+        return taken;
+    }
+
+    @Override
+    public void bindVAO(int array) {
+        log("bindVAO", array);
+    }
+
+    @Override
+    public void bindVBO(int buffer) {
+        log("bindVBO", buffer);
+    }
+
+    @Override
+    public void bindIBO(int buffer) {
+        log("bindIBO", buffer);
+    }
+
+    @Override
+    public void bindBuffer(int target, int buffer) {
+        log("bindBuffer", target, buffer);
+    }
+
+    @Override
+    public void bindBufferRange(int target, int index, int buffer, long offset, long size) {
+        log("bindBufferRange", target, index, buffer, offset, size);
+    }
+
+    @Override
+    public long mapBufferRange(int target, long offset, long size, int access) {
+        log("mapBufferRange", target, offset, size, access);
+
+        if (size > mapped.capacity()) mapped = ByteBuffer.allocateDirect((int) size);
+        return memAddress(mapped);
+    }
+
+    @Override
+    public boolean unmapBuffer(int target) {
+        log("unmapBuffer", target);
+        return true;
+    }
+
+    @Override
+    public void bindTexture(int texture, int slot) {
+        log("bindTexture", texture, slot);
+    }
+
+    @Override
+    public void deleteVAO(int array) {
+        log("deleteVAO", array);
+    }
+
+    @Override
+    public void deleteBuffer(int buffer) {
+        log("deleteBuffer", buffer);
+    }
+
+    @Override
+    public void deleteTexture(int texture) {
+        log("deleteTexture", texture);
+    }
+
+    @Override
+    public int genVAO() {
+        return nextName++;
+    }
+
+    @Override
+    public int genBuffer() {
+        return nextName++;
+    }
+
+    @Override
+    public int genTexture() {
+        return nextName++;
+    }
+
+    @Override
+    public void bufferData(int target, long size, long data, int usage) {
+        log("bufferData", target, size);
+    }
+
+    @Override
+    public void bufferSubData(int target, long offset, long size, long data) {
+        log("bufferSubData", target, offset, size);
+    }
+
+    @Override
+    public void bufferStorage(int target, long size, int flags) {
+        log("bufferStorage", target, size, flags);
+    }
+
+    @Override
+    public boolean isBufferStorageSupported() {
+        return true;
+    }
+
+    @Override
+    public void copyBufferSubData(int readTarget, int writeTarget, long readOffset, long writeOffset, long size) {
+        log("copyBufferSubData", readTarget, writeTarget, readOffset, writeOffset, size);
+    }
+
+    @Override
+    public long fenceSync() {
+        return nextName++;
+    }
+
+    @Override
+    public int clientWaitSync(long sync, int flags, long timeout) {
+        log("clientWaitSync", sync);
+        return 0x911A; // GL_ALREADY_SIGNALED
+    }
+
+    @Override
+    public void deleteSync(long sync) {
+        log("deleteSync", sync);
+    }
+
+    @Override
+    public int getInteger(int name) {
+        return 1;
+    }
+
+    @Override
+    public String getString(int name) {
+        return "";
+    }
+
+    @Override
+    public void enableVertexAttrib(int index) {
+        log("enableVertexAttrib", index);
+    }
+
+    @Override
+    public void vertexAttribPointer(int index, int size, int type, boolean normalized, int stride, long offset) {
+        log("vertexAttribPointer", index, size, type, normalized, stride, offset);
+    }
+
+    @Override
+    public void vertexAttribDivisor(int index, int divisor) {
+        log("vertexAttribDivisor", index, divisor);
+    }
+
+    @Override
+    public void drawElements(int mode, int count, int type, long offset, int baseVertex) {
+        log("drawElements", mode, count, type, offset, baseVertex);
+    }
+
+    @Override
+    public void drawElementsInstanced(int mode, int count, int type, long offset, int instances, int baseVertex) {
+        log("drawElementsInstanced", mode, count, type, offset, instances, baseVertex);
+    }
+
+    @Override
+    public void primitiveRestart(boolean enabled, int index) {
+        log("primitiveRestart", enabled, index);
+    }
+
+    @Override
+    public void texParameter(int name, int value) {
+        log("texParameter", name, value);
+    }
+
+    @Override
+    public void pixelStore(int name, int value) {
+        log("pixelStore", name, value);
+    }
+
+    @Override
+    public void texImage2D(int level, int internalFormat, int width, int height, int format, int type, long pixels) {
+        log("texImage2D", level, internalFormat, width, height, format, type);
+    }
+
+    @Override
+    public void texStorage2D(int levels, int internalFormat, int width, int height) {
+        log("texStorage2D", levels, internalFormat, width, height);
+    }
+
+    @Override
+    public void texSubImage2D(int level, int x, int y, int width, int height, int format, int type, long pixels) {
+        log("texSubImage2D", level, x, y, width, height, format, type);
+    }
+
+    @Override
+    public void compressedTexImage2D(int level, int internalFormat, int width, int height, int size, long data) {
+        log("compressedTexImage2D", level, internalFormat, width, height, size);
+    }
+
+    @Override
+    public void generateMipmap() {
+        log("generateMipmap");
+    }
+
+    @Override
+    public void useProgram(int program) {
+        log("useProgram", program);
+    }
+
+    @Override
+    public void uniform(int location, int v) {
+        log("uniform", location, v);
+    }
+
+    @Override
+    public void uniform(int location, float v) {
+        log("uniform", location, v);
+    }
+
+    @Override
+    public void uniform(int location, float x, float y) {
+        log("uniform", location, x, y);
+    }
+
+    @Override
+    public void uniformMatrix4(int location, long matrix) {
+        log("uniformMatrix4", location);
+    }
+
+    @Override
+    public int createProgram() {
+        return nextName++;
+    }
+
+    @Override
+    public void deleteProgram(int program) {
+        log("deleteProgram", program);
+    }
+
+    @Override
+    public int createShader(int type) {
+        return nextName++;
+    }
+
+    @Override
+    public void deleteShader(int shader) {
+        log("deleteShader", shader);
+    }
+
+    @Override
+    public void shaderSource(int shader, CharSequence source) {
+        log("shaderSource", shader, source);
+    }
+
+    @Override
+    public void compileShader(int shader) {
+        log("compileShader", shader);
+    }
+
+    @Override
+    public int getShaderi(int shader, int name) {
+        return 1;
+    }
+
+    @Override
+    public String getShaderInfoLog(int shader) {
+        return "";
+    }
+
+    @Override
+    public void attachShader(int program, int shader) {
+        log("attachShader", program, shader);
+    }
+
+    @Override
+    public void detachShader(int program, int shader) {
+        log("detachShader", program, shader);
+    }
+
+    @Override
+    public void linkProgram(int program) {
+        log("linkProgram", program);
+    }
+
+    @Override
+    public void validateProgram(int program) {
+        log("validateProgram", program);
+    }
+
+    @Override
+    public int getProgrami(int program, int name) {
+        return 0x8B82 == name || 0x8B83 == name ? 1 : 0; // GL_LINK_STATUS, GL_VALIDATE_STATUS
+    }
+
+    @Override
+    public String getProgramInfoLog(int program) {
+        return "";
+    }
+
+    @Override
+    public void programParameter(int program, int name, int value) {
+        log("programParameter", program, name, value);
+    }
+
+    @Override
+    public String getActiveUniform(int program, int index, int maxLength, IntBuffer size, IntBuffer type) {
+        return "";
+    }
+
+    @Override
+    public int getUniformLocation(int program, CharSequence name) {
+        return -1;
+    }
+
+    @Override
+    public int getUniformBlockIndex(int program, CharSequence name) {
+        return 0;
+    }
+
+    @Override
+    public void uniformBlockBinding(int program, int index, int binding) {
+        log("uniformBlockBinding", program, index, binding);
+    }
+
+    @Override
+    public int getProgramBinary(int program, IntBuffer format, ByteBuffer binary) {
+        return 0;
+    }
+
+    @Override
+    public void programBinary(int program, int format, ByteBuffer binary) {
+        log("programBinary", program, format, binary.remaining());
+    }
+
+    @Override
+    public void maxShaderCompilerThreads(int count) {
+        log("maxShaderCompilerThreads", count);
+    }
+
+    @Override
+    public int genQuery() {
+        return nextName++;
+    }
+
+    @Override
+    public void deleteQuery(int query) {
+        log("deleteQuery", query);
+    }
+
+    @Override
+    public void queryCounter(int query, int target) {
+        log("queryCounter", query, target);
+    }
+
+    @Override
+    public int getQueryObjecti(int query, int name) {
+        return 1;
+    }
+
+    @Override
+    public long getQueryObjecti64(int query, int name) {
+        return 0;
+    }
+}
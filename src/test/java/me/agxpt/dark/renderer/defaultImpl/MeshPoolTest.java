@@ -0,0 +1,80 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MeshPoolTest {
+    private MeshPool pool;
+
+    @BeforeEach
+    public void setup() {
+        Renderer.gl = new LogGL();
+        pool = new MeshPool(Long.MAX_VALUE);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.dispose();
+        Renderer.gl = new GL();
+    }
+
+    @Test
+    public void reusesMeshesOfTheSameUploadMode() {
+        Mesh dynamic = pool.acquire(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+        Mesh retained = pool.acquire(Mesh.DrawMode.Triangles, Mesh.UploadMode.Retained, Mesh.Attrib.Vec2);
+        pool.release(dynamic);
+        pool.release(retained);
+        assertEquals(2, pool.getKeyCount());
+
+        assertSame(retained, pool.acquire(Mesh.DrawMode.Triangles, Mesh.UploadMode.Retained, Mesh.Attrib.Vec2));
+        assertSame(dynamic, pool.acquire(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2));
+        assertEquals(2, pool.getHits());
+
+        Mesh offline = pool.acquire(Mesh.DrawMode.Triangles, Mesh.UploadMode.Offline, Mesh.Attrib.Vec2);
+        assertNotSame(dynamic, offline);
+        assertEquals(Mesh.UploadMode.Offline, offline.getUploadMode());
+        assertEquals(3, pool.getMisses());
+
+        dynamic.dispose();
+        retained.dispose();
+        offline.dispose();
+    }
+
+    @Test
+    public void rejectsReleasingTwice() {
+        Mesh mesh = pool.acquire(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+        pool.release(mesh);
+
+        assertThrows(IllegalStateException.class, () -> pool.release(mesh));
+        assertEquals(1, pool.getIdleCount());
+
+        // Once acquired again it can be released again
+        assertSame(mesh, pool.acquire(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2));
+        pool.release(mesh);
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    @Test
+    public void dropsEmptyKeys() {
+        Mesh a = pool.acquire(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+        Mesh b = pool.acquire(Mesh.DrawMode.Lines, Mesh.Attrib.Vec3);
+        pool.release(a);
+        pool.release(b);
+        assertEquals(2, pool.getKeyCount());
+
+        pool.acquire(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2).dispose();
+        assertEquals(1, pool.getKeyCount());
+
+        pool.trim(0);
+        assertEquals(0, pool.getKeyCount());
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(0, pool.getRetainedBytes());
+    }
+}
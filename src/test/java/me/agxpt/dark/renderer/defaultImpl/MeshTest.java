@@ -0,0 +1,133 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MeshTest {
+    private LogGL log;
+
+    @BeforeEach
+    public void setup() {
+        log = new LogGL();
+        Renderer.gl = log;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Renderer.gl = new GL();
+    }
+
+    private static void quads(Mesh mesh, int count) {
+        mesh.begin();
+
+        for (int i = 0; i < count; i++) {
+            mesh.quad(
+                    mesh.vec2(i, 0).next(),
+                    mesh.vec2(i, 1).next(),
+                    mesh.vec2(i + 1, 1).next(),
+                    mesh.vec2(i + 1, 0).next()
+            );
+        }
+
+        mesh.end();
+    }
+
+    @Test
+    public void allocatedBytesReturnToZero() {
+        Mesh small = new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+        Mesh large = new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+        Mesh offline = new Mesh(Mesh.DrawMode.Triangles, Mesh.UploadMode.Offline, Mesh.Attrib.Vec2);
+        assertTrue(Mesh.getAllocatedBytes() > 0);
+
+        // Small meshes convert their indices to 16 bits in the shared scratch buffer, large ones grow their buffers
+        quads(small, 16);
+        quads(large, 20000);
+        quads(offline, 16);
+
+        small.dispose();
+        large.dispose();
+        offline.dispose();
+        assertEquals(0, Mesh.getAllocatedBytes());
+
+        Mesh.disposeScratch();
+    }
+
+    @Test
+    public void disposeTwiceDoesNothing() {
+        Mesh mesh = new Mesh(Mesh.DrawMode.Triangles, Mesh.Attrib.Vec2);
+        mesh.dispose();
+        log.take();
+
+        long allocated = Mesh.getAllocatedBytes();
+        mesh.dispose();
+
+        assertEquals(Collections.emptyList(), log.take());
+        assertEquals(allocated, Mesh.getAllocatedBytes());
+    }
+    private static void assertHalf(int expected, double v) {
+        assertEquals(String.format("0x%04X", expected), String.format("0x%04X", Mesh.half(v) & 0xFFFF), "half(" + v + ")");
+    }
+
+    @Test
+    public void halfExactValues() {
+        assertHalf(0x0000, 0);
+        assertHalf(0x8000, -0.0);
+        assertHalf(0x3C00, 1);
+        assertHalf(0xC000, -2);
+        assertHalf(0x3555, 1 / 3.0);
+        assertHalf(0x0400, 0x1p-14);
+        assertHalf(0x0001, 0x1p-24);
+        assertHalf(0x03FF, 0x3FFp-24);
+    }
+
+    @Test
+    public void halfRange() {
+        // The largest half is 65504, halfway to the next step of 32 rounds to even, which is infinity
+        assertHalf(0x7BFF, 65504);
+        assertHalf(0x7BFF, 65519);
+        assertHalf(0x7C00, 65520);
+        assertHalf(0xFC00, -65520);
+        assertHalf(0x7C00, 1e6);
+
+        // Float.MAX_VALUE used to carry into the NaN range
+        assertHalf(0x7C00, Float.MAX_VALUE);
+        assertHalf(0xFC00, -Float.MAX_VALUE);
+        assertHalf(0x7C00, Double.MAX_VALUE);
+    }
+
+    @Test
+    public void halfInfinityAndNaN() {
+        assertHalf(0x7C00, Double.POSITIVE_INFINITY);
+        assertHalf(0xFC00, Double.NEGATIVE_INFINITY);
+        assertHalf(0x7E00, Double.NaN);
+
+        // A NaN whose payload only sits in the dropped bits stays NaN
+        assertHalf(0x7E00, Float.intBitsToFloat(0x7F800001));
+    }
+
+    @Test
+    public void halfRounding() {
+        // Steps between 1 and 2 are 2^-10
+        assertHalf(0x3C00, 1 + 0x1p-12);
+        assertHalf(0x3C01, 1 + 0x3p-12);
+        assertHalf(0x3C00, 1 + 0x1p-11);
+        assertHalf(0x3C02, 1 + 0x3p-11);
+        assertHalf(0x3C01, 1 + 0x1p-10 + 0x1p-12);
+
+        // Subnormals, the smallest step is 2^-24
+        assertHalf(0x0000, 0x1p-25);
+        assertHalf(0x0001, 0x3p-26);
+        assertHalf(0x0002, 0x3p-25);
+        assertHalf(0x0002, 0x5p-25);
+        assertHalf(0x8001, -0x1p-24);
+        assertHalf(0x0000, 0x1p-30);
+        assertHalf(0x0400, 0x3FFp-24 + 0x1p-25);
+    }
+}
@@ -0,0 +1,44 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PendingShaderTest {
+    private LogGL log;
+
+    @BeforeEach
+    public void setup() {
+        log = new LogGL();
+        Renderer.gl = log;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Renderer.gl = new GL();
+    }
+
+    @Test
+    public void disposeTwiceDeletesTheProgramOnce() {
+        // A shader loaded from the program cache resolves without its compiler
+        PendingShader pending = new PendingShader(null, 5, 0, 0, "key", 0);
+        pending.resolve(true);
+        pending.get();
+
+        pending.dispose();
+        assertEquals(Collections.singletonList("deleteProgram 5"), log.take());
+
+        pending.dispose();
+        assertEquals(Collections.emptyList(), log.take());
+
+        assertTrue(pending.isReady());
+        assertThrows(RuntimeException.class, pending::get);
+    }
+}
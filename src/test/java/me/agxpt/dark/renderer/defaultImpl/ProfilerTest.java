@@ -0,0 +1,75 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProfilerTest {
+    @BeforeEach
+    public void setup() {
+        Renderer.gl = new LogGL();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Profiler.dispose();
+        Renderer.gl = new GL();
+    }
+
+    private static Profiler.Scope child(Profiler.Scope scope, String name) {
+        for (Profiler.Scope child : scope.children) {
+            if (child.name.equals(name)) return child;
+        }
+        return null;
+    }
+
+    private static void frame() {
+        Profiler.beginFrame();
+
+        Profiler.push("Mesh 1");
+        Profiler.shader("Shader 3");
+        Profiler.draw(6);
+        Profiler.draw(12);
+        Profiler.pop();
+
+        Profiler.push("Mesh 2");
+        Profiler.shader("Shader 3");
+        Profiler.draw(6);
+        Profiler.shader("Shader 4");
+        Profiler.draw(6);
+        Profiler.pop();
+
+        Profiler.push("Empty");
+        Profiler.pop();
+
+        Profiler.endFrame();
+    }
+
+    @Test
+    public void scopesAreTaggedWithTheirShader() {
+        // A frame is read back once LATENCY more frames were recorded after it
+        for (int i = 0; i <= Profiler.LATENCY + 1; i++) frame();
+
+        Profiler.Scope root = Profiler.getLastFrame();
+        assertNotNull(root);
+
+        Profiler.Scope single = child(root, "Mesh 1");
+        assertEquals("Shader 3", single.shader);
+        assertEquals(2, single.draws);
+        assertEquals(18, single.indices);
+
+        assertNull(child(root, "Mesh 2").shader);
+        assertNull(child(root, "Empty").shader);
+        assertNull(root.shader);
+
+        assertTrue(Profiler.getShaderTimes().containsKey("Shader 3"));
+        assertEquals(1, Profiler.getShaderTimes().size());
+        assertTrue(Profiler.format().contains("Mesh 1 [Shader 3]"));
+    }
+}
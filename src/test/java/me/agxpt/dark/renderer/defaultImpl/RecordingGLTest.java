@@ -0,0 +1,137 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.BufferUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.lwjgl.opengl.GL33C.*;
+import static org.lwjgl.system.MemoryUtil.memAddress;
+
+public class RecordingGLTest {
+    private RecordingGL recording;
+    private Path file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        recording = new RecordingGL();
+        file = Files.createTempFile("commands", ".bin");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        recording.dispose();
+        Files.deleteIfExists(file);
+    }
+
+    private RecordingGL saveAndLoad() throws IOException {
+        recording.save(file);
+        return RecordingGL.load(file);
+    }
+
+    @Test
+    public void replayRemapsNames() throws IOException {
+        ByteBuffer vertices = BufferUtils.createByteBuffer(16);
+
+        int vao = recording.genVAO();
+        int vbo = recording.genBuffer();
+        recording.bindVAO(vao);
+        recording.bindVBO(vbo);
+        recording.bufferData(GL_ARRAY_BUFFER, 16, memAddress(vertices), GL_STATIC_DRAW);
+
+        int texture = recording.genTexture();
+        recording.bindTexture(texture, 2);
+
+        int program = recording.createProgram();
+        int shader = recording.createShader(GL_VERTEX_SHADER);
+        recording.shaderSource(shader, "void main() {}");
+        recording.compileShader(shader);
+        recording.attachShader(program, shader);
+        recording.linkProgram(program);
+        recording.useProgram(program);
+        recording.drawElements(GL_TRIANGLES, 6, GL_UNSIGNED_INT, 0, 0);
+
+        int query = recording.genQuery();
+        recording.queryCounter(query, GL_TIMESTAMP);
+        long sync = recording.fenceSync();
+        recording.deleteSync(sync);
+
+        recording.deleteShader(shader);
+        recording.deleteProgram(program);
+        recording.deleteQuery(query);
+        recording.deleteTexture(texture);
+        recording.deleteBuffer(vbo);
+        recording.deleteVAO(vao);
+
+        RecordingGL loaded = saveAndLoad();
+        assertEquals(recording.getCommandCount(), loaded.getCommandCount());
+        assertEquals(recording.getSize(), loaded.getSize());
+
+        // Names on the target start at 100 so recorded names that leak through would show up
+        LogGL target = new LogGL(100);
+        loaded.replay(target);
+        loaded.dispose();
+
+        assertEquals(Arrays.asList(
+                "bindVAO 100",
+                "bindVBO 101",
+                "bufferData " + GL_ARRAY_BUFFER + " 16",
+                "bindTexture 102 2",
+                "shaderSource 104 void main() {}",
+                "compileShader 104",
+                "attachShader 103 104",
+                "linkProgram 103",
+                "useProgram 103",
+                "drawElements " + GL_TRIANGLES + " 6 " + GL_UNSIGNED_INT + " 0 0",
+                "queryCounter 105 " + GL_TIMESTAMP,
+                "deleteSync 106",
+                "deleteShader 104",
+                "deleteProgram 103",
+                "deleteQuery 105",
+                "deleteTexture 102",
+                "deleteBuffer 101",
+                "deleteVAO 100"
+        ), target.take());
+    }
+
+    @Test
+    public void namesNotCreatedInTheLogAreKept() throws IOException {
+        recording.bindVAO(0);
+        recording.bindTexture(7, 0);
+        recording.useProgram(9);
+
+        RecordingGL loaded = saveAndLoad();
+        LogGL target = new LogGL(100);
+        loaded.replay(target);
+        loaded.dispose();
+
+        assertEquals(Arrays.asList("bindVAO 0", "bindTexture 7 0", "useProgram 9"), target.take());
+    }
+
+    @Test
+    public void headlessShadersCompileAndLink() {
+        int program = recording.createProgram();
+        int shader = recording.createShader(GL_VERTEX_SHADER);
+
+        assertEquals(1, recording.getShaderi(shader, GL_COMPILE_STATUS));
+        assertEquals(1, recording.getProgrami(program, GL_LINK_STATUS));
+        assertEquals(0, recording.getProgrami(program, GL_ACTIVE_UNIFORMS));
+    }
+
+    @Test
+    public void loadRejectsOtherFiles() throws IOException {
+        Files.write(file, new byte[20]);
+        assertThrows(IOException.class, () -> RecordingGL.load(file));
+
+        Files.write(file, new byte[4]);
+        assertThrows(IOException.class, () -> RecordingGL.load(file));
+    }
+}
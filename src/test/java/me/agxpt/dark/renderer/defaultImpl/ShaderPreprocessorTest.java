@@ -0,0 +1,105 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ShaderPreprocessorTest {
+    private final Map<String, String> files = new HashMap<>();
+    private final ShaderPreprocessor preprocessor = new ShaderPreprocessor(files::get);
+
+    private static String lines(String... lines) {
+        return String.join("\n", lines) + "\n";
+    }
+
+    @Test
+    public void resolvesIncludesWithLineDirectives() {
+        files.put("shaders/main.frag", lines(
+                "#version 330 core",
+                "#include \"lib/color.glsl\"",
+                "void main() {}"
+        ));
+        files.put("shaders/lib/color.glsl", lines(
+                "#include \"../common.glsl\"",
+                "vec4 color;"
+        ));
+        files.put("shaders/common.glsl", lines("float pi;"));
+
+        assertEquals(lines(
+                "#version 330 core",
+                "#line 1 1 // shaders/lib/color.glsl",
+                "#line 1 2 // shaders/common.glsl",
+                "float pi;",
+                "#line 2 1",
+                "vec4 color;",
+                "#line 3 0",
+                "void main() {}"
+        ), preprocessor.process("shaders/main.frag", null));
+    }
+
+    @Test
+    public void includesEveryFileOnce() {
+        files.put("main.vert", lines(
+                "#include \"/common.glsl\"",
+                "#include \"common.glsl\"",
+                "void main() {}"
+        ));
+        files.put("common.glsl", lines("float pi;"));
+
+        // The second include keeps its line so main() stays on line 3
+        assertEquals(lines(
+                "#line 1 1 // common.glsl",
+                "float pi;",
+                "#line 2 0",
+                "",
+                "void main() {}"
+        ), preprocessor.process("main.vert", null));
+    }
+
+    @Test
+    public void rejectsIncludeCycles() {
+        files.put("a.glsl", lines("#include \"b.glsl\""));
+        files.put("b.glsl", lines("#include \"a.glsl\""));
+        assertThrows(RuntimeException.class, () -> preprocessor.process("a.glsl", null));
+
+        files.put("self.glsl", lines("#include \"./self.glsl\""));
+        assertThrows(RuntimeException.class, () -> preprocessor.process("self.glsl", null));
+    }
+
+    @Test
+    public void rejectsMissingAndMalformedIncludes() {
+        files.put("missing.glsl", lines("#include \"nothing.glsl\""));
+        assertThrows(RuntimeException.class, () -> preprocessor.process("missing.glsl", null));
+
+        files.put("malformed.glsl", lines("#include <common.glsl>"));
+        assertThrows(RuntimeException.class, () -> preprocessor.process("malformed.glsl", null));
+    }
+
+    @Test
+    public void injectsDefinesAfterVersion() {
+        Map<String, String> defines = new LinkedHashMap<>();
+        defines.put("SHADOWS", null);
+        defines.put("LIGHTS", "4");
+
+        assertEquals(lines(
+                "// header",
+                "#version 330 core",
+                "#define SHADOWS",
+                "#define LIGHTS 4",
+                "#line 3 0",
+                "void main() {}"
+        ), preprocessor.process(lines("// header", "#version 330 core", "void main() {}"), "main.frag", defines));
+
+        assertEquals(lines(
+                "#define SHADOWS",
+                "#define LIGHTS 4",
+                "#line 1 0",
+                "void main() {}"
+        ), preprocessor.process(lines("void main() {}"), "main.frag", defines));
+    }
+}
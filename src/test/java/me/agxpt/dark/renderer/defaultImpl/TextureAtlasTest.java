@@ -0,0 +1,109 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextureAtlasTest {
+    private TextureAtlas atlas;
+
+    @BeforeEach
+    public void setup() {
+        Renderer.gl = new LogGL();
+        atlas = new TextureAtlas(64, 1, 0, Texture.Format.RGBA, Texture.MinFilter.Nearest, Texture.MagFilter.Nearest);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        atlas.dispose();
+        Renderer.gl = new GL();
+    }
+
+    private AtlasRegion add(int width, int height) {
+        ByteBuffer data = BufferUtils.createByteBuffer(width * height * 4);
+        return atlas.add(width, height, data);
+    }
+
+    @Test
+    public void evictsLeastRecentlyBound() {
+        AtlasRegion a = add(32, 32), b = add(32, 32), c = add(32, 32), d = add(32, 32);
+        assertEquals(1, atlas.getPageCount());
+        assertEquals(1, atlas.getOccupancy(), 0);
+
+        // Binding a makes b the least recently used region
+        a.bind();
+
+        AtlasRegion e = add(32, 32);
+        assertEquals(1, atlas.getEvictions());
+        assertFalse(b.isValid());
+        assertTrue(a.isValid() && c.isValid() && d.isValid() && e.isValid());
+        assertEquals(b.x, e.x);
+        assertEquals(b.y, e.y);
+
+        // Then c, d and a in order
+        AtlasRegion f = add(32, 32);
+        assertFalse(c.isValid());
+        assertEquals(c.x, f.x);
+        assertEquals(c.y, f.y);
+        assertEquals(2, atlas.getEvictions());
+        assertEquals(4, atlas.getRegionCount());
+    }
+
+    @Test
+    public void evictsUntilTheRegionFits() {
+        add(32, 32);
+        add(32, 32);
+        add(32, 32);
+        add(32, 32);
+
+        AtlasRegion large = add(64, 64);
+        assertEquals(4, atlas.getEvictions());
+        assertEquals(1, atlas.getRegionCount());
+        assertEquals(0, large.x);
+        assertEquals(0, large.y);
+    }
+
+    @Test
+    public void disposedRegionsFreeTheirSpace() {
+        AtlasRegion a = add(32, 32);
+        add(32, 32);
+        add(32, 32);
+        add(32, 32);
+
+        a.dispose();
+        assertFalse(a.isValid());
+        assertEquals(3, atlas.getRegionCount());
+
+        add(32, 32);
+        assertEquals(0, atlas.getEvictions());
+    }
+
+    @Test
+    public void paddingSurroundsRegions() {
+        atlas.dispose();
+        atlas = new TextureAtlas(64, 2, 2, Texture.Format.RGBA, Texture.MinFilter.Nearest, Texture.MagFilter.Nearest);
+
+        AtlasRegion a = add(28, 28);
+        assertEquals(2, a.x);
+        assertEquals(2, a.y);
+        assertEquals(2 / 64f, a.u0, 0);
+        assertEquals(30 / 64f, a.u1, 0);
+
+        // 60x60 plus padding fills a page, so it needs the second one
+        AtlasRegion b = add(60, 60);
+        assertEquals(2, atlas.getPageCount());
+        assertEquals(0, atlas.getEvictions());
+        assertTrue(a.getPage() != b.getPage());
+
+        assertThrows(IllegalArgumentException.class, () -> add(61, 1));
+    }
+}
@@ -0,0 +1,144 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TextureContainerTest {
+    private static final int DDSD_MIPMAPCOUNT = 0x20000, DDPF_FOURCC = 0x4;
+    private static final int FOURCC_DXT5 = 0x35545844, FOURCC_DX10 = 0x30315844;
+    private static final int DXGI_BC7_UNORM = 98;
+    private static final int GL_COMPRESSED_RGBA_S3TC_DXT1_EXT = 0x83F1;
+
+    /**
+     * Builds a DDS file whose level bytes are filled with the level index.
+     */
+    private static ByteBuffer dds(int width, int height, int mipMaps, int fourCC, int dxgi, int... levelSizes) {
+        int header = fourCC == FOURCC_DX10 ? 148 : 128;
+        int size = header;
+        for (int levelSize : levelSizes) size += levelSize;
+
+        ByteBuffer b = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(0, 0x20534444);
+        b.putInt(4, 124);
+        b.putInt(8, DDSD_MIPMAPCOUNT);
+        b.putInt(12, height);
+        b.putInt(16, width);
+        b.putInt(28, mipMaps);
+        b.putInt(80, DDPF_FOURCC);
+        b.putInt(84, fourCC);
+        if (fourCC == FOURCC_DX10) b.putInt(128, dxgi);
+
+        int offset = header;
+        for (int i = 0; i < levelSizes.length; i++) {
+            for (int j = 0; j < levelSizes[i]; j++) b.put(offset + j, (byte) i);
+            offset += levelSizes[i];
+        }
+        return b;
+    }
+
+    /**
+     * Builds a KTX 1 file with a key value block, whose level bytes are filled with the level index.
+     */
+    private static ByteBuffer ktx(ByteOrder order, int width, int height, int mipMaps, int... levelSizes) {
+        int keyValueBytes = 8;
+        int size = 64 + keyValueBytes;
+        for (int levelSize : levelSizes) size += 4 + ((levelSize + 3) & ~3);
+
+        ByteBuffer b = ByteBuffer.allocate(size).order(order);
+        b.put(new byte[]{(byte) 0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte) 0xBB, '\r', '\n', 0x1A, '\n'});
+        b.putInt(12, 0x04030201);
+        b.putInt(28, GL_COMPRESSED_RGBA_S3TC_DXT1_EXT);
+        b.putInt(36, width);
+        b.putInt(40, height);
+        b.putInt(52, 1);
+        b.putInt(56, mipMaps);
+        b.putInt(60, keyValueBytes);
+
+        int offset = 64 + keyValueBytes;
+        for (int i = 0; i < levelSizes.length; i++) {
+            b.putInt(offset, levelSizes[i]);
+            for (int j = 0; j < levelSizes[i]; j++) b.put(offset + 4 + j, (byte) i);
+            offset += 4 + ((levelSizes[i] + 3) & ~3);
+        }
+        b.clear();
+        return b;
+    }
+
+    private static ByteBuffer truncate(ByteBuffer b, int bytes) {
+        b.limit(b.capacity() - bytes);
+        return b;
+    }
+
+    private static void assertLevels(TextureContainer image, int... sizes) {
+        assertEquals(sizes.length, image.getLevelCount());
+
+        for (int i = 0; i < sizes.length; i++) {
+            ByteBuffer level = image.getLevel(i);
+            assertEquals(sizes[i], level.remaining());
+            assertEquals(i, level.get(0));
+            assertEquals(i, level.get(sizes[i] - 1));
+        }
+    }
+
+    @Test
+    public void parsesDdsMipChain() {
+        TextureContainer image = TextureContainer.parse(dds(8, 8, 4, FOURCC_DXT5, 0, 64, 16, 16, 16));
+
+        assertEquals(Texture.CompressedFormat.BC3, image.format);
+        assertEquals(8, image.width);
+        assertEquals(8, image.height);
+        assertLevels(image, 64, 16, 16, 16);
+    }
+
+    @Test
+    public void parsesDx10Header() {
+        TextureContainer image = TextureContainer.parse(dds(8, 4, 2, FOURCC_DX10, DXGI_BC7_UNORM, 32, 16));
+
+        assertEquals(Texture.CompressedFormat.BC7, image.format);
+        assertEquals(8, image.width);
+        assertEquals(4, image.height);
+        assertLevels(image, 32, 16);
+    }
+
+    @Test
+    public void parsesKtxInBothByteOrders() {
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN}) {
+            TextureContainer image = TextureContainer.parse(ktx(order, 8, 8, 4, 32, 8, 8, 8));
+
+            assertEquals(Texture.CompressedFormat.BC1A, image.format);
+            assertEquals(8, image.width);
+            assertEquals(8, image.height);
+            assertLevels(image, 32, 8, 8, 8);
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() {
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(truncate(dds(8, 8, 1, FOURCC_DXT5, 0, 64), 64 + 1)));
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(truncate(dds(8, 8, 2, FOURCC_DXT5, 0, 64, 16), 1)));
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(truncate(dds(4, 4, 1, FOURCC_DX10, DXGI_BC7_UNORM, 16), 16 + 1)));
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(truncate(ktx(ByteOrder.LITTLE_ENDIAN, 8, 8, 2, 32, 8), 1)));
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(truncate(ktx(ByteOrder.LITTLE_ENDIAN, 8, 8, 1, 32), 32 + 4 + 8 + 1)));
+    }
+
+    @Test
+    public void rejectsMalformedSizes() {
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(dds(0, 8, 1, FOURCC_DXT5, 0, 16)));
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(dds(8, -8, 1, FOURCC_DXT5, 0, 16)));
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(ktx(ByteOrder.LITTLE_ENDIAN, -4, 4, 1, 8)));
+    }
+
+    @Test
+    public void rejectsMoreLevelsThanTheChainHas() {
+        // 8x8 has 4 levels down to 1x1
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(dds(8, 8, 5, FOURCC_DXT5, 0, 64, 16, 16, 16, 16)));
+        // Past 32 levels the shifted size wraps around
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(dds(8, 8, 40, FOURCC_DXT5, 0, 64)));
+        assertThrows(IllegalArgumentException.class, () -> TextureContainer.parse(ktx(ByteOrder.LITTLE_ENDIAN, 4, 4, Integer.MAX_VALUE, 8)));
+    }
+}
@@ -0,0 +1,77 @@
+package me.agxpt.dark.renderer.defaultImpl;
+
+import me.agxpt.dark.renderer.Renderer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.lwjgl.opengl.GL30C.*;
+
+public class TextureTest {
+    private LogGL log;
+
+    @BeforeEach
+    public void setup() {
+        log = new LogGL();
+        Renderer.gl = log;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Renderer.gl = new GL();
+    }
+
+    private static Texture texture(int width, int height, byte[] data, Texture.Format format) {
+        return new Texture(width, height, data, format, Texture.MinFilter.Nearest, Texture.MagFilter.Nearest);
+    }
+
+    private static void assertUploaded(List<String> calls, Texture.Format format, int width, int height, int type) {
+        String call = "texImage2D 0 " + format.internalFormat + " " + width + " " + height + " " + format.format + " " + type;
+        assertTrue(calls.contains(call), call + " not in " + calls);
+    }
+
+    @Test
+    public void byteDataIsUploadedAsUnsignedBytes() {
+        // 8 bit data such as decoded images is converted by OpenGL, also for float and half float formats
+        for (Texture.Format format : Texture.Format.values()) {
+            texture(3, 2, new byte[3 * 2 * format.channels], format);
+            assertUploaded(log.take(), format, 3, 2, GL_UNSIGNED_BYTE);
+        }
+    }
+
+    @Test
+    public void rawDataIsUploadedWithItsType() {
+        Texture texture = new Texture(2, 2, (ByteBuffer) null, Texture.Format.HalfRGBA, Texture.MinFilter.Nearest, Texture.MagFilter.Nearest);
+        log.take();
+
+        texture.upload(BufferUtils.createByteBuffer(2 * 2 * 4 * 2), GL_HALF_FLOAT);
+        assertUploaded(log.take(), Texture.Format.HalfRGBA, 2, 2, GL_HALF_FLOAT);
+
+        assertThrows(IllegalArgumentException.class, () -> texture.upload(BufferUtils.createByteBuffer(2 * 2 * 4 * 2 - 1), GL_HALF_FLOAT));
+        assertThrows(IllegalArgumentException.class, () -> texture.upload(BufferUtils.createByteBuffer(2 * 2 * 4), GL_FLOAT));
+    }
+
+    @Test
+    public void tooSmallDataIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> texture(2, 2, new byte[15], Texture.Format.RGBA));
+        assertThrows(IllegalArgumentException.class, () -> new Texture(2, 2, new float[15], Texture.Format.FloatRGBA, Texture.MinFilter.Nearest, Texture.MagFilter.Nearest));
+    }
+
+    @Test
+    public void rowsAreTightlyPacked() {
+        // 3 RGB pixels are 9 bytes, decoded images do not pad rows to the default unpack alignment of 4
+        texture(3, 2, new byte[9 + 9], Texture.Format.RGB);
+
+        List<String> calls = log.take();
+        int upload = calls.indexOf("texImage2D 0 " + GL_RGB + " 3 2 " + GL_RGB + " " + GL_UNSIGNED_BYTE);
+        assertEquals("pixelStore " + GL_UNPACK_ALIGNMENT + " 1", calls.get(upload - 1));
+        assertEquals("pixelStore " + GL_UNPACK_ALIGNMENT + " 4", calls.get(upload + 1));
+    }
+}